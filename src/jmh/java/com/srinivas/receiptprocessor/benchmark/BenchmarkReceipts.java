@@ -0,0 +1,60 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BenchmarkReceipts builds deterministic receipts for the benchmarks
+ */
+final class BenchmarkReceipts {
+
+    private static final String[] DESCRIPTIONS = {
+            "Mountain Dew 12PK", "Emils Cheese Pizza", "Knorr Creamy Chicken",
+            "Doritos Nacho Cheese", "   Klarbrunn 12-PK 12 FL OZ  ", "Gatorade"
+    };
+
+    private static final String[] PRICES = {"6.49", "12.25", "1.26", "3.35", "12.00", "2.25"};
+
+    private BenchmarkReceipts() {
+    }
+
+    /**
+     * Method to build a valid receipt with the given number of items
+     * @param itemCount
+     * @return
+     */
+    static Receipt receipt(int itemCount) {
+        return receipt(itemCount, "M&M Corner Market");
+    }
+
+    /**
+     * Method to build a receipt that differs from every other receipt with another serial, so it
+     * is not recognised as a duplicate
+     * @param itemCount
+     * @param serial
+     * @return
+     */
+    static Receipt uniqueReceipt(int itemCount, long serial) {
+        return receipt(itemCount, "M&M Corner Market " + serial);
+    }
+
+    private static Receipt receipt(int itemCount, String retailer) {
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(Item.builder()
+                    .shortDescription(DESCRIPTIONS[i % DESCRIPTIONS.length])
+                    .price(PRICES[i % PRICES.length])
+                    .build());
+        }
+        return Receipt.builder()
+                .retailer(retailer)
+                .purchaseDate("2022-01-01")
+                .purchaseTime("14:33")
+                .total("35.35")
+                .items(items)
+                .build();
+    }
+}
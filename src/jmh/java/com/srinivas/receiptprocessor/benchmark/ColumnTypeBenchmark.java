@@ -0,0 +1,186 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.jpa.CentsConverter;
+import com.srinivas.receiptprocessor.jpa.EpochDayConverter;
+import com.srinivas.receiptprocessor.jpa.MinuteOfDayConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ColumnTypeBenchmark compares the receipt table with the total, purchase date and purchase time
+ * stored as strings against the same table with cents, epoch days and minutes of the day. Each
+ * trial loads {@code rows} receipts over two years into a new file-based H2 database with an index
+ * on the purchase date and prints the size of the compacted file. The benchmarks then read every
+ * row into numbers, as a rescoring or rollup pass does, group the totals by day in SQL, and count
+ * the receipts of one week through the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ColumnTypeBenchmark {
+
+    private static final int BATCH = 1000;
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 1);
+
+    private static final int DAYS = 730;
+
+    private static final LocalDate WEEK_START = LocalDate.of(2023, 3, 1);
+
+    private static final LocalDate WEEK_END = WEEK_START.plusDays(6);
+
+    @Param({"text", "typed"})
+    String schema;
+
+    @Param({"1000000"})
+    int rows;
+
+    Path directory;
+
+    Connection connection;
+
+    boolean typed;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("receipts-column-benchmark");
+        typed = schema.equals("typed");
+        connection = open();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table receipt (id uuid primary key, retailer varchar(255), "
+                    + (typed ? "purchase_date integer, purchase_time smallint, total bigint, total_text varchar(64), "
+                    : "purchase_date varchar(255), purchase_time varchar(255), total varchar(255), ")
+                    + "points int not null)");
+        }
+        connection.setAutoCommit(false);
+        Random random = new Random(42);
+        try (PreparedStatement insert = connection.prepareStatement(typed
+                ? "insert into receipt values (?, ?, ?, ?, ?, null, ?)"
+                : "insert into receipt values (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                String date = FIRST_DAY.plusDays(random.nextInt(DAYS)).toString();
+                int minute = random.nextInt(24 * 60);
+                String time = String.format("%02d:%02d", minute / 60, minute % 60);
+                String total = CentsConverter.format(random.nextInt(50_000));
+                insert.setObject(1, UUID.randomUUID());
+                insert.setString(2, "Retailer " + random.nextInt(50));
+                if (typed) {
+                    insert.setInt(3, new EpochDayConverter().convertToDatabaseColumn(date));
+                    insert.setShort(4, new MinuteOfDayConverter().convertToDatabaseColumn(time));
+                    insert.setLong(5, CentsConverter.toCents(total));
+                    insert.setInt(6, random.nextInt(100));
+                } else {
+                    insert.setString(3, date);
+                    insert.setString(4, time);
+                    insert.setString(5, total);
+                    insert.setInt(6, random.nextInt(100));
+                }
+                insert.addBatch();
+                if ((i + 1) % BATCH == 0 || i + 1 == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create index receipt_purchase_date on receipt (purchase_date)");
+            statement.execute("shutdown compact");
+        }
+        connection.close();
+        long bytes = Files.size(directory.resolve("receipts.mv.db"));
+        System.out.printf("%n%s: %d rows, file %.1f MB (%d bytes per row)%n", schema, rows, bytes / 1e6, bytes / rows);
+        connection = open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long scan() throws SQLException {
+        EpochDayConverter days = new EpochDayConverter();
+        MinuteOfDayConverter minutes = new MinuteOfDayConverter();
+        long result = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select total, purchase_date, purchase_time from receipt")) {
+            while (resultSet.next()) {
+                if (typed) {
+                    result += resultSet.getLong(1) + resultSet.getInt(2) + resultSet.getShort(3);
+                } else {
+                    result += CentsConverter.toCents(resultSet.getString(1))
+                            + days.convertToDatabaseColumn(resultSet.getString(2))
+                            + minutes.convertToDatabaseColumn(resultSet.getString(3));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long totalsByDay() throws SQLException {
+        long result = 0;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(typed
+                     ? "select purchase_date, count(*), sum(total) from receipt group by purchase_date"
+                     : "select purchase_date, count(*), sum(cast(total as decimal(17, 2))) from receipt group by purchase_date")) {
+            while (resultSet.next()) {
+                result += resultSet.getLong(2) + resultSet.getLong(3);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long week() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "select count(*), sum(points) from receipt where purchase_date between ? and ?")) {
+            if (typed) {
+                statement.setInt(1, (int) WEEK_START.toEpochDay());
+                statement.setInt(2, (int) WEEK_END.toEpochDay());
+            } else {
+                statement.setString(1, WEEK_START.toString());
+                statement.setString(2, WEEK_END.toString());
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1) + resultSet.getLong(2);
+            }
+        }
+    }
+
+    private Connection open() throws SQLException {
+        // without the query cache H2 cannot hand back the result of the last run of a query
+        return DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("receipts") + ";QUERY_CACHE_SIZE=0", "sa", "");
+    }
+}
@@ -0,0 +1,84 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.DTO.PostResponseDTO;
+import com.srinivas.receiptprocessor.ReceiptProcessorApplication;
+import com.srinivas.receiptprocessor.controller.Controller;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ControllerBenchmark measures the request handling of the Controller against the H2 database.
+ * The Spring context is started without the web server so only the handler methods, the service
+ * and the persistence layer are measured. Logging is reduced to WARN to keep console I/O out of
+ * the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerBenchmark {
+
+    @Param({"1", "10", "100"})
+    int items;
+
+    ConfigurableApplicationContext context;
+
+    Controller controller;
+
+    String savedId;
+
+    AtomicLong serial = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ReceiptProcessorApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run();
+        controller = context.getBean(Controller.class);
+        savedId = ((PostResponseDTO) controller.saveReceipt(BenchmarkReceipts.receipt(items)).getBody()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<?> saveReceipt() {
+        return controller.saveReceipt(BenchmarkReceipts.uniqueReceipt(items, serial.incrementAndGet()));
+    }
+
+    @Benchmark
+    public ResponseEntity<?> saveInvalidReceipt() {
+        Receipt receipt = BenchmarkReceipts.uniqueReceipt(items, serial.incrementAndGet());
+        receipt.setPurchaseDate("2999-01-01");
+        return controller.saveReceipt(receipt);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> getPoints() {
+        return controller.getPoints(savedId);
+    }
+}
@@ -0,0 +1,100 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.srinivas.receiptprocessor.DTO.ScoreResultDTO;
+import com.srinivas.receiptprocessor.config.ScoreProperties;
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.service.ReceiptScoringService;
+import com.srinivas.receiptprocessor.service.ReceiptValidator;
+import com.srinivas.receiptprocessor.service.ScoringEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DryRunScoringBenchmark measures {@code POST /receipts/score} without HTTP, reported per receipt
+ * for a request of {@code BATCH} receipts with {@code parallelism} threads: validating and scoring
+ * receipts already parsed, as for a JSON array, and parsing, validating and scoring the lines of
+ * a newline-delimited JSON upload. Compare the parallelism against the number of processors of
+ * the machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DryRunScoringBenchmark {
+
+    private static final int BATCH = 10_000;
+
+    @Param({"1", "2", "4", "8"})
+    int parallelism;
+
+    @Param({"10", "100"})
+    int items;
+
+    ReceiptScoringService receiptScoringService;
+
+    List<Receipt> receipts;
+
+    List<byte[]> lines;
+
+    ObjectReader receiptReader;
+
+    @Setup
+    public void setUp() throws IOException {
+        receiptScoringService = new ReceiptScoringService(new ReceiptValidator(Clock.systemDefaultZone()),
+                new ScoringEngine(new ScoringRules()), new ScoreProperties(parallelism, BATCH));
+        ObjectMapper objectMapper = new ObjectMapper();
+        receiptReader = objectMapper.readerFor(Receipt.class);
+        receipts = new ArrayList<>(BATCH);
+        lines = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            receipts.add(BenchmarkReceipts.uniqueReceipt(items, i));
+            lines.add(objectMapper.writeValueAsBytes(receipts.get(i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        receiptScoringService.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<ScoreResultDTO> scoreAll() {
+        return receiptScoringService.scoreAll(receipts);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void readAndScoreLines(Blackhole blackhole) {
+        receiptScoringService.scoreAll(lines.iterator(), line -> {
+            try {
+                return receiptReader.readValue(line);
+            } catch (IOException e) {
+                return null;
+            }
+        }, blackhole::consume);
+    }
+}
@@ -0,0 +1,104 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.ReceiptProcessorApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ExecutionModeBenchmark compares request handling on the Tomcat platform thread pool with
+ * request handling on virtual threads. The application runs with its web server on a random port
+ * and 256 client threads call it over HTTP, more than the 200 threads of the default Tomcat pool.
+ * Throughput mode reports requests per second, sample mode reports the latency percentiles
+ * including p0.99.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(256)
+@Fork(1)
+public class ExecutionModeBenchmark {
+
+    private static final String RECEIPT = """
+            {"retailer":"M&M Corner Market %d","purchaseDate":"2022-01-01","purchaseTime":"14:33","total":"9.00",
+             "items":[{"shortDescription":"Gatorade","price":"2.25"},{"shortDescription":"Gatorade","price":"2.25"},
+                      {"shortDescription":"Gatorade","price":"2.25"},{"shortDescription":"Gatorade","price":"2.25"}]}
+            """;
+
+    @Param({"false", "true"})
+    String virtualThreads;
+
+    ConfigurableApplicationContext context;
+
+    HttpClient httpClient;
+
+    HttpRequest.Builder processRequest;
+
+    AtomicLong serial = new AtomicLong();
+
+    HttpRequest pointsRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(ReceiptProcessorApplication.class)
+                .properties("server.port=0",
+                        "logging.level.root=WARN")
+                // an argument rather than a default property, which application.yml would override
+                .run("--receipts.threads.virtual=" + virtualThreads);
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/receipts";
+
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        processRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/process"))
+                .header("Content-Type", "application/json");
+        String body = httpClient.send(nextReceipt(), HttpResponse.BodyHandlers.ofString()).body();
+        String id = body.substring(body.indexOf(":\"") + 2, body.lastIndexOf('"'));
+        pointsRequest = HttpRequest.newBuilder(URI.create(baseUrl + "/" + id + "/points")).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int process() throws IOException, InterruptedException {
+        return httpClient.send(nextReceipt(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Every posted receipt is different, otherwise all but the first would be answered as duplicates
+     */
+    private HttpRequest nextReceipt() {
+        return processRequest.copy()
+                .POST(HttpRequest.BodyPublishers.ofString(RECEIPT.formatted(serial.incrementAndGet())))
+                .build();
+    }
+
+    @Benchmark
+    public int points() throws IOException, InterruptedException {
+        return httpClient.send(pointsRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,72 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+
+import java.util.List;
+
+/**
+ * HandWrittenScorer is the standard rule set with every constant written into the code, the
+ * reference the configured ScoringEngine is measured against. It only handles receipts in the
+ * canonical format.
+ */
+final class HandWrittenScorer {
+
+    private HandWrittenScorer() {
+    }
+
+    static PointsBreakdown breakdown(Receipt receipt) {
+        int retailerPoints = 0;
+        String retailer = receipt.getRetailer();
+        for (int i = 0, n = retailer.length(); i < n; i++) {
+            char c = retailer.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                retailerPoints++;
+            }
+        }
+
+        long totalCents = cents(receipt.getTotal());
+        int roundDollarPoints = totalCents % 100 == 0 ? 50 : 0;
+        int multipleOf25Points = totalCents % 25 == 0 ? 25 : 0;
+
+        List<Item> items = receipt.getItems();
+        int itemPoints = (items.size() / 2) * 5;
+        int descriptionPoints = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            Item item = items.get(i);
+            String description = item.getShortDescription();
+            int start = 0;
+            int end = description.length();
+            while (start < end && description.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && description.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if ((end - start) % 3 == 0) {
+                descriptionPoints += (int) ((cents(item.getPrice()) + 499) / 500);
+            }
+        }
+
+        int datePoints = (receipt.getPurchaseDate().charAt(9) - '0') % 2 != 0 ? 6 : 0;
+
+        String time = receipt.getPurchaseTime();
+        int minuteOfDay = ((time.charAt(0) - '0') * 10 + (time.charAt(1) - '0')) * 60
+                + (time.charAt(3) - '0') * 10 + (time.charAt(4) - '0');
+        int timePoints = minuteOfDay > 14 * 60 && minuteOfDay < 16 * 60 ? 10 : 0;
+        return new PointsBreakdown(retailerPoints, roundDollarPoints, multipleOf25Points, itemPoints,
+                descriptionPoints, datePoints, timePoints);
+    }
+
+    private static long cents(String amount) {
+        long cents = 0;
+        for (int i = 0, n = amount.length(); i < n; i++) {
+            char c = amount.charAt(i);
+            if (c != '.') {
+                cents = cents * 10 + (c - '0');
+            }
+        }
+        return cents;
+    }
+}
@@ -0,0 +1,136 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * IdBenchmark compares random (version 4) with time-ordered (version 7) receipt ids as the primary
+ * key of a table, stored as 36 character strings in a {@code varchar} column or as 16 bytes in a
+ * {@code uuid} column. Every iteration inserts {@code rows} ids into a new file-based H2 database in
+ * batches, and then prints the size the database file grew to, which counts every page the inserts
+ * rewrote, and its size once compacted, the table with its primary key index.
+ * Pass {@code -p rows=10000000} for 10 million rows. The cost of generating the ids on their own is
+ * measured separately.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class IdBenchmark {
+
+    private static final int BATCH = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Table {
+
+        @Param({"varchar-v4", "varchar-v7", "uuid-v4", "uuid-v7"})
+        String keyType;
+
+        @Param({"1000000"})
+        int rows;
+
+        Path directory;
+
+        Connection connection;
+
+        Supplier<UUID> ids;
+
+        boolean uuidColumn;
+
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException, SQLException {
+            directory = Files.createTempDirectory("receipts-id-benchmark");
+            connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("ids"), "sa", "");
+            uuidColumn = keyType.startsWith("uuid");
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("create table receipt (id " + (uuidColumn ? "uuid" : "varchar(255)")
+                        + " primary key, points int)");
+            }
+            connection.setAutoCommit(false);
+            ReceiptIdGenerator receiptIdGenerator = new ReceiptIdGenerator(Clock.systemUTC(), 0);
+            ids = keyType.endsWith("v7") ? receiptIdGenerator::nextUuid : UUID::randomUUID;
+        }
+
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException, SQLException {
+            Path file = directory.resolve("ids.mv.db");
+            long written = Files.size(file);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("shutdown compact");
+            }
+            connection.close();
+            long compacted = Files.size(file);
+            System.out.printf("%n%s: %d rows, file %.1f MB, compacted %.1f MB (%d bytes per row)%n",
+                    keyType, rows, written / 1e6, compacted / 1e6, compacted / rows);
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Generators {
+
+        ReceiptIdGenerator receiptIdGenerator = new ReceiptIdGenerator(Clock.systemUTC(), 0);
+    }
+
+    @Benchmark
+    public int insert(Table table) throws SQLException {
+        try (PreparedStatement insert = table.connection.prepareStatement("insert into receipt values (?, ?)")) {
+            for (int i = 0; i < table.rows; i++) {
+                UUID id = table.ids.get();
+                insert.setObject(1, table.uuidColumn ? id : id.toString());
+                insert.setInt(2, i % 100);
+                insert.addBatch();
+                if ((i + 1) % BATCH == 0 || i + 1 == table.rows) {
+                    insert.executeBatch();
+                    table.connection.commit();
+                }
+            }
+        }
+        return table.rows;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public UUID randomId() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public UUID timeOrderedId(Generators generators) {
+        return generators.receiptIdGenerator.nextUuid();
+    }
+}
@@ -0,0 +1,143 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.ReceiptProcessorApplication;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ItemStorageBenchmark measures what the items of a receipt cost the jpa store: saving receipts
+ * in chunks, loading one receipt with its items and reading a page of receipts with their items,
+ * for receipts with 1, 10 and 50 items and {@code PRELOADED} receipts stored. The setup prints
+ * the rows inserted and the statements sent per receipt saved, and the statements of one load and
+ * of one page, from the Hibernate statistics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemStorageBenchmark {
+
+    private static final int PRELOADED = 10_000;
+
+    private static final int CHUNK = 50;
+
+    private static final int PAGE = 100;
+
+    @Param({"1", "10", "50"})
+    int items;
+
+    ConfigurableApplicationContext context;
+
+    ReceiptStore receiptStore;
+
+    TransactionTemplate readOnlyTransaction;
+
+    String[] ids;
+
+    AtomicLong serial = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ReceiptProcessorApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                .run("--receipts.storage.type=jpa", "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN");
+        receiptStore = context.getBean(ReceiptStore.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        ids = new String[PRELOADED];
+        for (int i = 0; i < PRELOADED; i += CHUNK) {
+            List<Receipt> chunk = chunk();
+            receiptStore.saveAll(chunk);
+            for (int j = 0; j < CHUNK; j++) {
+                ids[i + j] = chunk.get(j).getId();
+            }
+        }
+        System.out.printf("%n%d items: %.1f rows inserted and %.2f statements per receipt saved%n", items,
+                (double) statistics.getEntityInsertCount() / PRELOADED,
+                (double) statistics.getPrepareStatementCount() / PRELOADED);
+
+        statistics.clear();
+        findById();
+        long load = statistics.getPrepareStatementCount();
+        statistics.clear();
+        findPage();
+        System.out.printf("%d items: %d statements per load, %d per page of %d%n",
+                items, load, statistics.getPrepareStatementCount(), PAGE);
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public List<Receipt> saveAll() {
+        List<Receipt> chunk = chunk();
+        receiptStore.saveAll(chunk);
+        return chunk;
+    }
+
+    @Benchmark
+    public Optional<Receipt> findById() {
+        // in one transaction with reading the items, as the open session of a web request
+        return readOnlyTransaction.execute(status -> {
+            Optional<Receipt> receipt = receiptStore.findById(ids[ThreadLocalRandom.current().nextInt(PRELOADED)]);
+            receipt.ifPresent(found -> found.getItems().size());
+            return receipt;
+        });
+    }
+
+    @Benchmark
+    public List<Receipt> findPage() {
+        return receiptStore.findPageAfter(ids[ThreadLocalRandom.current().nextInt(PRELOADED - PAGE)], PAGE);
+    }
+
+    private List<Receipt> chunk() {
+        List<Receipt> chunk = new ArrayList<>(CHUNK);
+        for (int i = 0; i < CHUNK; i++) {
+            long next = serial.incrementAndGet();
+            Receipt receipt = BenchmarkReceipts.uniqueReceipt(items, next);
+            receipt.setPoints((int) (next % 100));
+            receipt.setContentHash(Long.toHexString(next));
+            chunk.add(receipt);
+        }
+        return chunk;
+    }
+}
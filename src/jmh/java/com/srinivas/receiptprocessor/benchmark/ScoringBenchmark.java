@@ -0,0 +1,88 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.service.ReceiptMetrics;
+import com.srinivas.receiptprocessor.service.ReceiptService;
+import com.srinivas.receiptprocessor.service.ScoringEngine;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScoringBenchmark measures calculatePoints and each scoring rule of the ReceiptService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoringBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    int items;
+
+    ReceiptService receiptService;
+
+    Receipt receipt;
+
+    @Setup
+    public void setUp() {
+        receiptService = new ReceiptService(null, null, null, null, new ScoringEngine(new ScoringRules()),
+                new ReceiptMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), 64), null, null, null, null);
+        receipt = BenchmarkReceipts.receipt(items);
+    }
+
+    @Benchmark
+    public int calculatePoints() {
+        return receiptService.calculatePoints(receipt);
+    }
+
+    @Benchmark
+    public int retailerNamePoints() {
+        return receiptService.calculateRetailerNamePoints(receipt.getRetailer());
+    }
+
+    @Benchmark
+    public int roundDollarPoints() {
+        return receiptService.calculateRoundDollarPoints(receipt.getTotal());
+    }
+
+    @Benchmark
+    public int multipleOf25Points() {
+        return receiptService.calculateMultipleOf25Points(receipt.getTotal());
+    }
+
+    @Benchmark
+    public int twoItemPoints() {
+        return receiptService.calculateTwoItemPoints(receipt.getItems().size());
+    }
+
+    @Benchmark
+    public int trimmedLengthPoints() {
+        return receiptService.calculateTrimmedLengthPoints(receipt.getItems());
+    }
+
+    @Benchmark
+    public int purchaseDatePoints() {
+        return receiptService.purchaseDatePoints(receipt.getPurchaseDate());
+    }
+
+    @Benchmark
+    public int purchaseTimePoints() {
+        return receiptService.purchaseTimePoints(receipt.getPurchaseTime());
+    }
+}
@@ -0,0 +1,59 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.service.ScoringEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScoringEngineBenchmark compares the points breakdown of the ScoringEngine compiled from the
+ * default ScoringRules, which every stored receipt is scored with, with the same rules written by
+ * hand with constants
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(5)
+public class ScoringEngineBenchmark {
+
+    @Param({"1", "10", "100"})
+    int items;
+
+    ScoringEngine scoringEngine;
+
+    Receipt receipt;
+
+    @Setup
+    public void setUp() {
+        scoringEngine = new ScoringEngine(new ScoringRules());
+        receipt = BenchmarkReceipts.receipt(items);
+        if (!scoringEngine.breakdown(receipt).equals(HandWrittenScorer.breakdown(receipt))) {
+            throw new IllegalStateException("The configured and hand-written rules disagree");
+        }
+    }
+
+    @Benchmark
+    public PointsBreakdown configured() {
+        return scoringEngine.breakdown(receipt);
+    }
+
+    @Benchmark
+    public PointsBreakdown handWritten() {
+        return HandWrittenScorer.breakdown(receipt);
+    }
+}
@@ -0,0 +1,126 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.ReceiptProcessorApplication;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * StorageBenchmark compares the receipt stores for ingest and lookup: the JPA store over the
+ * in-memory H2 database, the append-only log and the log with every write forced to disk.
+ * Lookups read the points of random receipts out of {@code PRELOADED} stored ones. The log
+ * directory is a new temporary directory per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int PRELOADED = 100_000;
+
+    private static final int CHUNK = 50;
+
+    @Param({"jpa", "log", "log-fsync"})
+    String storage;
+
+    ConfigurableApplicationContext context;
+
+    ReceiptStore receiptStore;
+
+    Path directory;
+
+    String[] ids;
+
+    AtomicLong serial = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("receipts-storage-benchmark");
+        context = new SpringApplicationBuilder(ReceiptProcessorApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("logging.level.root=WARN")
+                // arguments rather than default properties, which application.yml would override
+                .run("--receipts.storage.type=" + (storage.startsWith("log") ? "log" : "jpa"),
+                        "--receipts.storage.log.directory=" + directory,
+                        "--receipts.storage.log.fsync=" + storage.endsWith("fsync"));
+        receiptStore = context.getBean(ReceiptStore.class);
+
+        ids = new String[PRELOADED];
+        List<Receipt> chunk = new ArrayList<>(CHUNK);
+        for (int i = 0; i < PRELOADED; i++) {
+            chunk.add(receipt());
+            if (chunk.size() == CHUNK) {
+                receiptStore.saveAll(chunk);
+                for (int j = 0; j < CHUNK; j++) {
+                    ids[i - CHUNK + 1 + j] = chunk.get(j).getId();
+                }
+                chunk = new ArrayList<>(CHUNK);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Receipt save() {
+        return receiptStore.save(receipt());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public List<Receipt> saveAll() {
+        List<Receipt> chunk = new ArrayList<>(CHUNK);
+        for (int i = 0; i < CHUNK; i++) {
+            chunk.add(receipt());
+        }
+        receiptStore.saveAll(chunk);
+        return chunk;
+    }
+
+    @Benchmark
+    public Optional<Integer> findPointsById() {
+        return receiptStore.findPointsById(ids[ThreadLocalRandom.current().nextInt(PRELOADED)]);
+    }
+
+    private Receipt receipt() {
+        long next = serial.incrementAndGet();
+        Receipt receipt = BenchmarkReceipts.uniqueReceipt(3, next);
+        receipt.setPoints((int) (next % 100));
+        receipt.setContentHash(Long.toHexString(next));
+        return receipt;
+    }
+}
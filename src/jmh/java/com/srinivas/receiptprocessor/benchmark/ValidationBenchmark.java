@@ -0,0 +1,69 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.service.ReceiptMetrics;
+import com.srinivas.receiptprocessor.service.ReceiptService;
+import com.srinivas.receiptprocessor.service.ReceiptValidator;
+import com.srinivas.receiptprocessor.service.ScoringEngine;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ValidationBenchmark measures the purchase date and time check and the validation of a whole
+ * receipt by the ReceiptService
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Param({"1", "10", "100"})
+    int items;
+
+    ReceiptService receiptService;
+
+    Receipt receipt;
+
+    @Setup
+    public void setUp() {
+        receiptService = new ReceiptService(null, null, null, null, new ScoringEngine(new ScoringRules()),
+                new ReceiptMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT), 64),
+                new ReceiptValidator(Clock.systemDefaultZone()), null, null, null);
+        receipt = BenchmarkReceipts.receipt(items);
+    }
+
+    @Benchmark
+    public boolean checkDateTimePast() {
+        return receiptService.checkDateTime("2022-01-01", "14:33");
+    }
+
+    @Benchmark
+    public boolean checkDateTimeFuture() {
+        return receiptService.checkDateTime("2999-01-01", "14:33");
+    }
+
+    @Benchmark
+    public List<ViolationDTO> validate() {
+        return receiptService.validate(receipt);
+    }
+}
@@ -0,0 +1,121 @@
+package com.srinivas.receiptprocessor.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * WireFormatBenchmark compares the request bodies of a client sending receipts as JSON, CBOR and
+ * Smile: parsing one receipt as {@code POST /receipts/process} does, parsing a batch of
+ * {@code BATCH} receipts as {@code POST /receipts/process/batch} does, and writing one receipt.
+ * The setup prints the size of one receipt and of the batch in every format, plain and gzipped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"json", "cbor", "smile"})
+    String format;
+
+    @Param({"1", "10", "100"})
+    int items;
+
+    ObjectReader receiptReader;
+
+    ObjectReader batchReader;
+
+    ObjectWriter writer;
+
+    Receipt receipt;
+
+    byte[] receiptBody;
+
+    byte[] batchBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        receiptReader = objectMapper.readerFor(Receipt.class);
+        batchReader = objectMapper.readerForListOf(Receipt.class);
+        writer = objectMapper.writerFor(Receipt.class);
+
+        receipt = BenchmarkReceipts.receipt(items);
+        ArrayNode batch = objectMapper.createArrayNode();
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(request(objectMapper, BenchmarkReceipts.uniqueReceipt(items, i)));
+        }
+        receiptBody = objectMapper.writeValueAsBytes(request(objectMapper, receipt));
+        batchBody = objectMapper.writeValueAsBytes(batch);
+        System.out.printf("%n%s, %d items: receipt %d bytes (%d gzipped), batch of %d %d bytes (%d gzipped)%n",
+                format, items, receiptBody.length, gzipped(receiptBody), BATCH, batchBody.length, gzipped(batchBody));
+    }
+
+    @Benchmark
+    public Receipt parseReceipt() throws IOException {
+        return receiptReader.readValue(receiptBody);
+    }
+
+    @Benchmark
+    public List<Receipt> parseBatch() throws IOException {
+        return batchReader.readValue(batchBody);
+    }
+
+    @Benchmark
+    public byte[] writeReceipt() throws IOException {
+        return writer.writeValueAsBytes(receipt);
+    }
+
+    /**
+     * Method to build the body a client sends for a receipt, without the id and points assigned
+     * by the service
+     * @param objectMapper
+     * @param receipt
+     * @return
+     */
+    private static ObjectNode request(ObjectMapper objectMapper, Receipt receipt) {
+        ObjectNode request = objectMapper.valueToTree(receipt);
+        request.remove(List.of("id", "points"));
+        return request;
+    }
+
+    private static int gzipped(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,105 @@
+package com.srinivas.receiptprocessor.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyStats records the response times of one endpoint in microseconds, in a histogram per
+ * report interval and in one for the whole measured run, with the responses counted by status.
+ * Requests that got no response are counted as {@code error}.
+ */
+final class LatencyStats {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final String endpoint;
+
+    private final Recorder interval = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Recorder measured = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+
+    private Histogram recycled;
+
+    LatencyStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Method to record a response
+     * @param nanos    response time
+     * @param status   HTTP status, or a negative number when there was no response
+     * @param measured false for a response during the warmup, which only shows in the interval report
+     */
+    void record(long nanos, int status, boolean measured) {
+        long micros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos));
+        interval.recordValue(micros);
+        if (measured) {
+            this.measured.recordValue(micros);
+            outcomes.computeIfAbsent(status < 0 ? "error" : Integer.toString(status), key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Method to print one line for the responses since the last interval report
+     * @param out
+     * @param label what the interval is part of, such as warmup
+     * @param elapsedSeconds
+     */
+    void printInterval(PrintStream out, String label, long elapsedSeconds) {
+        Histogram histogram = interval.getIntervalHistogram(recycled);
+        recycled = histogram;
+        double seconds = (histogram.getEndTimeStamp() - histogram.getStartTimeStamp()) / 1000.0;
+        out.printf(Locale.ROOT, "%5ds %-7s %-26s %8.1f/s  p50 %8s  p99 %8s  p99.9 %8s  max %8s%n",
+                elapsedSeconds, label, endpoint, seconds > 0 ? histogram.getTotalCount() / seconds : 0,
+                millis(histogram, 50), millis(histogram, 99), millis(histogram, 99.9), millis(histogram.getMaxValue()));
+    }
+
+    /**
+     * Method to print the summary of the measured run and write its percentile distribution to a
+     * {@code .hgrm} file, in milliseconds
+     * @param out
+     * @param seconds length of the measured run
+     * @param file
+     * @throws IOException
+     */
+    void printSummary(PrintStream out, double seconds, Path file) throws IOException {
+        Histogram histogram = measured.getIntervalHistogram();
+        Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> counts.put(outcome, count.sum()));
+        out.printf(Locale.ROOT, "%s: %d responses, %.1f/s, by status %s%n",
+                endpoint, histogram.getTotalCount(), histogram.getTotalCount() / seconds, counts);
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+        out.printf(Locale.ROOT, "  mean %s  p50 %s  p90 %s  p99 %s  p99.9 %s  p99.99 %s  max %s%n",
+                millis(Math.round(histogram.getMean())), millis(histogram, 50), millis(histogram, 90),
+                millis(histogram, 99), millis(histogram, 99.9), millis(histogram, 99.99), millis(histogram.getMaxValue()));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (PrintStream hgrm = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+            histogram.outputPercentileDistribution(hgrm, MICROS_PER_MILLI);
+        }
+    }
+
+    private static String millis(Histogram histogram, double percentile) {
+        return millis(histogram.getValueAtPercentile(percentile));
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.2fms", micros / MICROS_PER_MILLI);
+    }
+}
@@ -0,0 +1,145 @@
+package com.srinivas.receiptprocessor.load;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LoadOptions holds the settings of a load test, read from {@code --name=value} arguments
+ *
+ * @param url            base URL of the running application
+ * @param mode           open: requests arrive at {@code rate} whatever the response times,
+ *                       closed: {@code connections} clients each send their next request when the
+ *                       last one is answered
+ * @param rate           requests per second of the open mode
+ * @param arrivals       poisson for exponential gaps between arrivals, uniform for equal gaps
+ * @param connections    requests in flight at most, and the clients of the closed mode
+ * @param thinkTime      pause of a closed mode client between a response and its next request
+ * @param duration       length of the measured run
+ * @param warmup         run before the measured run, not reported
+ * @param reportInterval time between the interval reports
+ * @param lookupShare    share of the requests that are {@code GET /receipts/{id}/points}, the rest
+ *                       are {@code POST /receipts/process}
+ * @param items          distribution of the items per receipt: {@code fixed:N},
+ *                       {@code uniform:MIN-MAX} or {@code geometric:MEAN}
+ * @param retailers      distinct retailers
+ * @param retailerSkew   Zipf exponent of the retailer popularity, 0 for all equally likely
+ * @param invalidShare   share of the receipts posted that fail validation
+ * @param duplicateShare share of the receipts posted that repeat an earlier receipt
+ * @param seed           seed of the generated receipts, the same seed sends the same receipts
+ * @param output         directory the percentile distributions are written to
+ * @param name           prefix of the files written, to tell runs apart
+ */
+record LoadOptions(
+        URI url,
+        String mode,
+        int rate,
+        String arrivals,
+        int connections,
+        Duration thinkTime,
+        Duration duration,
+        Duration warmup,
+        Duration reportInterval,
+        double lookupShare,
+        String items,
+        int retailers,
+        double retailerSkew,
+        double invalidShare,
+        double duplicateShare,
+        long seed,
+        Path output,
+        String name) {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("url", "http://localhost:8080"),
+            Map.entry("mode", "open"),
+            Map.entry("rate", "200"),
+            Map.entry("arrivals", "poisson"),
+            Map.entry("connections", "64"),
+            Map.entry("think-time", "0ms"),
+            Map.entry("duration", "60s"),
+            Map.entry("warmup", "10s"),
+            Map.entry("report-interval", "5s"),
+            Map.entry("lookup-share", "0.5"),
+            Map.entry("items", "geometric:5"),
+            Map.entry("retailers", "1000"),
+            Map.entry("retailer-skew", "1.0"),
+            Map.entry("invalid-share", "0.02"),
+            Map.entry("duplicate-share", "0.01"),
+            Map.entry("seed", "42"),
+            Map.entry("output", "target/load"),
+            Map.entry("name", "load"));
+
+    private static final Set<String> MODES = Set.of("open", "closed");
+
+    private static final Set<String> ARRIVALS = Set.of("poisson", "uniform");
+
+    /**
+     * Method to read the options from the program arguments, with the defaults for the rest
+     * @param args
+     * @return
+     * @throws IllegalArgumentException when an argument is unknown or malformed
+     */
+    static LoadOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String key = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (key == null || !DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("Unknown argument " + arg + ", expected one of --"
+                        + String.join("=, --", DEFAULTS.keySet().stream().sorted().toList()) + "=");
+            }
+            values.put(key, arg.substring(equals + 1));
+        }
+        LoadOptions options = new LoadOptions(
+                URI.create(values.get("url")),
+                values.get("mode"),
+                Integer.parseInt(values.get("rate")),
+                values.get("arrivals"),
+                Integer.parseInt(values.get("connections")),
+                DurationStyle.detectAndParse(values.get("think-time")),
+                DurationStyle.detectAndParse(values.get("duration")),
+                DurationStyle.detectAndParse(values.get("warmup")),
+                DurationStyle.detectAndParse(values.get("report-interval")),
+                Double.parseDouble(values.get("lookup-share")),
+                values.get("items"),
+                Integer.parseInt(values.get("retailers")),
+                Double.parseDouble(values.get("retailer-skew")),
+                Double.parseDouble(values.get("invalid-share")),
+                Double.parseDouble(values.get("duplicate-share")),
+                Long.parseLong(values.get("seed")),
+                Path.of(values.get("output")),
+                values.get("name"));
+        options.check();
+        return options;
+    }
+
+    private void check() {
+        if (!MODES.contains(mode)) {
+            throw new IllegalArgumentException("The mode must be open or closed");
+        }
+        if (!ARRIVALS.contains(arrivals)) {
+            throw new IllegalArgumentException("The arrivals must be poisson or uniform");
+        }
+        if (rate < 1 || connections < 1 || retailers < 1) {
+            throw new IllegalArgumentException("The rate, connections and retailers must be positive");
+        }
+        if (lookupShare < 0 || lookupShare > 1 || invalidShare < 0 || duplicateShare < 0
+                || invalidShare + duplicateShare > 1) {
+            throw new IllegalArgumentException("The shares must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Method to tell whether requests arrive on a schedule rather than after the last response
+     * @return
+     */
+    boolean open() {
+        return mode.equals("open");
+    }
+}
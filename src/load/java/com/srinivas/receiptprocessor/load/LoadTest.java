@@ -0,0 +1,284 @@
+package com.srinivas.receiptprocessor.load;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.srinivas.receiptprocessor.model.Receipt;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadTest sends generated receipts to {@code POST /receipts/process} and looks up the points of
+ * the receipts saved with {@code GET /receipts/{id}/points} on an application started on its own,
+ * then reports the response times and the throughput of both endpoints.
+ *
+ * In the open mode requests arrive at a fixed rate whatever the response times, as requests from
+ * many independent users do. The response time of a request is counted from when it was due, so
+ * a request held up by a slow response before it, or waiting for one of the {@code connections},
+ * counts the wait. In the closed mode every one of the {@code connections} clients sends its next
+ * request when the last one is answered, and the response time is counted from the send; this
+ * finds the highest throughput but hides the waits of a saturated application.
+ *
+ * See {@link LoadOptions} for the arguments.
+ */
+public final class LoadTest {
+
+    /**
+     * The requests sent
+     */
+    enum Endpoint {
+        PROCESS("POST /receipts/process", "process"),
+        POINTS("GET /receipts/{id}/points", "points");
+
+        private final String label;
+
+        private final String file;
+
+        Endpoint(String label, String file) {
+            this.label = label;
+            this.file = file;
+        }
+    }
+
+    /**
+     * A request to send, built ahead so building it is not part of its response time
+     */
+    private record Request(Endpoint endpoint, HttpRequest http) {
+    }
+
+    /**
+     * Leaves out the fields of a receipt the application assigns
+     */
+    @JsonIgnoreProperties({"id", "points"})
+    private abstract static class ReceiptRequest {
+    }
+
+    private static final int SAVED_IDS = 1 << 16;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadOptions options;
+
+    private final HttpClient client;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ObjectWriter receiptWriter = new ObjectMapper()
+            .addMixIn(Receipt.class, ReceiptRequest.class)
+            .writerFor(Receipt.class);
+
+    private final Map<Endpoint, LatencyStats> stats = new EnumMap<>(Endpoint.class);
+
+    /**
+     * Ids of the last receipts saved, for the points lookups
+     */
+    private final AtomicReferenceArray<String> savedIds = new AtomicReferenceArray<>(SAVED_IDS);
+
+    private final AtomicLong saved = new AtomicLong();
+
+    private final URI processUri;
+
+    private long startNanos;
+
+    private long measureNanos;
+
+    private long endNanos;
+
+    LoadTest(LoadOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.processUri = options.url().resolve("/receipts/process");
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.put(endpoint, new LatencyStats(endpoint.label));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(new LoadTest(options).run() ? 0 : 1);
+    }
+
+    /**
+     * Method to run the warmup and the measured run and print the report
+     * @return false when the application could not be reached
+     * @throws Exception
+     */
+    boolean run() throws Exception {
+        try {
+            client.send(HttpRequest.newBuilder(options.url().resolve("/receipts/stats")).timeout(TIMEOUT).build(),
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (ConnectException e) {
+            System.err.println("No application answers at " + options.url() + ", start it first");
+            return false;
+        }
+        System.out.printf(Locale.ROOT, "%s load on %s: %s, %d connections, %s warmup, %s measured, items %s, "
+                        + "%d retailers (skew %.2f), %.0f%% lookups, %.0f%% invalid, %.0f%% duplicates%n",
+                options.mode(), options.url(), options.open() ? options.rate() + "/s " + options.arrivals() + " arrivals" : "back to back",
+                options.connections(), options.warmup(), options.duration(), options.items(), options.retailers(),
+                options.retailerSkew(), options.lookupShare() * 100, options.invalidShare() * 100, options.duplicateShare() * 100);
+
+        startNanos = System.nanoTime();
+        measureNanos = startNanos + options.warmup().toNanos();
+        endNanos = measureNanos + options.duration().toNanos();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long reportMillis = Math.max(1, options.reportInterval().toMillis());
+        reporter.scheduleAtFixedRate(this::printInterval, reportMillis, reportMillis, TimeUnit.MILLISECONDS);
+
+        ReceiptGenerator generator = new ReceiptGenerator(options);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (options.open()) {
+                runOpen(generator, executor);
+            } else {
+                runClosed(generator, executor);
+            }
+        }
+        reporter.shutdownNow();
+
+        System.out.println();
+        double seconds = options.duration().toNanos() / 1e9;
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.get(endpoint).printSummary(System.out, seconds,
+                    options.output().resolve(options.name() + "-" + endpoint.file + ".hgrm"));
+        }
+        System.out.println("Percentile distributions written to " + options.output().toAbsolutePath());
+        return true;
+    }
+
+    /**
+     * Sends the requests on their schedule, each from a virtual thread of its own once one of the
+     * connections is free
+     */
+    private void runOpen(ReceiptGenerator generator, ExecutorService executor) throws InterruptedException {
+        Semaphore connections = new Semaphore(options.connections());
+        SplittableRandom random = generator.random();
+        double meanGapNanos = 1e9 / options.rate();
+        double sinceStart = 0;
+        while (startNanos + (long) sinceStart < endNanos) {
+            long dueNanos = startNanos + (long) sinceStart;
+            long wait;
+            while ((wait = dueNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Request request = nextRequest(generator);
+            connections.acquire();
+            executor.execute(() -> {
+                try {
+                    send(request, dueNanos);
+                } finally {
+                    connections.release();
+                }
+            });
+            sinceStart += options.arrivals().equals("poisson") ? -Math.log(1 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+    }
+
+    /**
+     * Runs the clients, each sending its requests one after another
+     */
+    private void runClosed(ReceiptGenerator generator, ExecutorService executor) {
+        long thinkNanos = options.thinkTime().toNanos();
+        for (int i = 0; i < options.connections(); i++) {
+            ReceiptGenerator clientGenerator = generator.split();
+            executor.execute(() -> {
+                while (System.nanoTime() < endNanos) {
+                    Request request = nextRequest(clientGenerator);
+                    send(request, System.nanoTime());
+                    if (thinkNanos > 0) {
+                        LockSupport.parkNanos(thinkNanos);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds a points lookup of a saved receipt, or a receipt to process when it is not a lookup
+     * or no receipt is saved yet
+     */
+    private Request nextRequest(ReceiptGenerator generator) {
+        SplittableRandom random = generator.random();
+        long savedCount = saved.get();
+        if (savedCount > 0 && random.nextDouble() < options.lookupShare()) {
+            String id = savedIds.get(random.nextInt((int) Math.min(savedCount, SAVED_IDS)));
+            if (id != null) {
+                return new Request(Endpoint.POINTS, HttpRequest.newBuilder(options.url().resolve("/receipts/" + id + "/points"))
+                        .timeout(TIMEOUT)
+                        .build());
+            }
+        }
+        try {
+            return new Request(Endpoint.PROCESS, HttpRequest.newBuilder(processUri)
+                    .timeout(TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(receiptWriter.writeValueAsBytes(generator.next())))
+                    .build());
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write a generated receipt", e);
+        }
+    }
+
+    /**
+     * Sends a request and records its response time from the given start, when the request was
+     * due in the warmup or the measured run
+     */
+    private void send(Request request, long fromNanos) {
+        int status;
+        try {
+            HttpResponse<byte[]> response = client.send(request.http(), HttpResponse.BodyHandlers.ofByteArray());
+            status = response.statusCode();
+            if (request.endpoint() == Endpoint.PROCESS && status == 200) {
+                String id = objectMapper.readTree(response.body()).path("id").asText(null);
+                if (id != null) {
+                    savedIds.set((int) (saved.getAndIncrement() % SAVED_IDS), id);
+                }
+            }
+        } catch (IOException e) {
+            status = -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long nanos = System.nanoTime() - fromNanos;
+        if (fromNanos < endNanos) {
+            stats.get(request.endpoint()).record(nanos, status, fromNanos >= measureNanos);
+        }
+    }
+
+    private void printInterval() {
+        long now = System.nanoTime();
+        // the part of the test most of the interval fell in
+        long middle = now - options.reportInterval().toNanos() / 2;
+        String label = middle < measureNanos ? "warmup" : middle < endNanos ? "run" : "drain";
+        for (Endpoint endpoint : Endpoint.values()) {
+            stats.get(endpoint).printInterval(System.out, label, TimeUnit.NANOSECONDS.toSeconds(now - startNanos));
+        }
+    }
+}
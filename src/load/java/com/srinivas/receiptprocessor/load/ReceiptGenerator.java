@@ -0,0 +1,238 @@
+package com.srinivas.receiptprocessor.load;
+
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * ReceiptGenerator makes up receipts for a load test: the number of items follows the
+ * {@code items} distribution, retailers are drawn from {@code retailers} names with a Zipf
+ * popularity of exponent {@code retailer-skew}, {@code invalid-share} of the receipts break one
+ * validation rule and {@code duplicate-share} repeat one of the last receipts made.
+ *
+ * A generator is not thread safe, every client uses its own from {@link #split()}. Generators
+ * made from the same seed make the same receipts.
+ */
+final class ReceiptGenerator {
+
+    private static final int MAX_ITEMS = 1000;
+
+    private static final int RECENT = 256;
+
+    private static final int DAYS = 730;
+
+    private static final String[] NAMES = {
+            "Target", "Walmart", "Corner Market", "M&M Corner Market", "Fresh Foods", "Quick Stop",
+            "Green Grocer", "Hardware Hub", "Book Nook", "Daily Deli", "Super Saver", "Pet Place"
+    };
+
+    private static final String[] PRODUCTS = {
+            "Mountain Dew", "Cheese Pizza", "Creamy Chicken", "Nacho Cheese", "Sparkling Water",
+            "Gatorade", "Whole Milk", "Sourdough Bread", "Paper Towels", "Dog Food", "Batteries",
+            "Coffee Beans", "Olive Oil", "Bananas", "Greek Yogurt", "Dish Soap"
+    };
+
+    private static final String[] SIZES = {"", "", " 12PK", " 6-PK", " 2 LB", " 16 OZ", " Family Size"};
+
+    private final ItemCounts itemCounts;
+
+    /**
+     * Cumulative popularity of the retailers, shared by the generators split off one another
+     */
+    private final double[] retailerCdf;
+
+    private final double invalidShare;
+
+    private final double duplicateShare;
+
+    private final SplittableRandom random;
+
+    private final LocalDate today = LocalDate.now();
+
+    private final Receipt[] recent = new Receipt[RECENT];
+
+    private long made;
+
+    ReceiptGenerator(LoadOptions options) {
+        this(ItemCounts.parse(options.items()), retailerCdf(options.retailers(), options.retailerSkew()),
+                options.invalidShare(), options.duplicateShare(), new SplittableRandom(options.seed()));
+    }
+
+    private ReceiptGenerator(ItemCounts itemCounts, double[] retailerCdf, double invalidShare,
+                             double duplicateShare, SplittableRandom random) {
+        this.itemCounts = itemCounts;
+        this.retailerCdf = retailerCdf;
+        this.invalidShare = invalidShare;
+        this.duplicateShare = duplicateShare;
+        this.random = random;
+    }
+
+    /**
+     * Method to make a generator of other receipts for another client
+     * @return
+     */
+    ReceiptGenerator split() {
+        return new ReceiptGenerator(itemCounts, retailerCdf, invalidShare, duplicateShare, random.split());
+    }
+
+    /**
+     * Method to get the random numbers of this generator, for the choices a client makes
+     * alongside the receipts
+     * @return
+     */
+    SplittableRandom random() {
+        return random;
+    }
+
+    /**
+     * Method to make the next receipt
+     * @return
+     */
+    Receipt next() {
+        double draw = random.nextDouble();
+        if (draw < duplicateShare && made > 0) {
+            return recent[random.nextInt((int) Math.min(made, RECENT))];
+        }
+        Receipt receipt = valid();
+        if (draw < duplicateShare + invalidShare) {
+            breakRule(receipt);
+            return receipt;
+        }
+        recent[(int) (made++ % RECENT)] = receipt;
+        return receipt;
+    }
+
+    private Receipt valid() {
+        int count = itemCounts.next(random);
+        List<Item> items = new ArrayList<>(count);
+        long totalCents = 0;
+        for (int i = 0; i < count; i++) {
+            // prices from 0.25 to about 60.00, most of them small
+            long cents = 25 + (long) (Math.pow(random.nextDouble(), 3) * 6000);
+            totalCents += cents;
+            items.add(Item.builder()
+                    .shortDescription(PRODUCTS[random.nextInt(PRODUCTS.length)] + SIZES[random.nextInt(SIZES.length)])
+                    .price(amount(cents))
+                    .build());
+        }
+        int minute = random.nextInt(24 * 60);
+        return Receipt.builder()
+                .retailer(retailer(Arrays.binarySearch(retailerCdf, random.nextDouble())))
+                .purchaseDate(today.minusDays(1 + random.nextInt(DAYS)).toString())
+                .purchaseTime(String.format(Locale.ROOT, "%02d:%02d", minute / 60, minute % 60))
+                .total(amount(totalCents))
+                .items(items)
+                .build();
+    }
+
+    /**
+     * Changes the receipt so it fails one of the validation rules
+     */
+    private void breakRule(Receipt receipt) {
+        switch (random.nextInt(6)) {
+            case 0 -> receipt.setPurchaseDate(today.plusDays(1 + random.nextInt(DAYS)).toString());
+            case 1 -> receipt.setPurchaseTime("25:" + receipt.getPurchaseTime().substring(3));
+            case 2 -> receipt.setTotal("$" + receipt.getTotal());
+            case 3 -> receipt.setRetailer(" ");
+            case 4 -> receipt.setItems(null);
+            default -> {
+                Item item = receipt.getItems().get(random.nextInt(receipt.getItems().size()));
+                item.setPrice(item.getPrice().substring(0, item.getPrice().length() - 1));
+            }
+        }
+    }
+
+    /**
+     * The name of the retailer of the given rank, or of the insertion point a binary search
+     * returns for it
+     */
+    private static String retailer(int search) {
+        int rank = search >= 0 ? search : -search - 1;
+        String name = NAMES[rank % NAMES.length];
+        return rank < NAMES.length ? name : name + " " + (rank / NAMES.length);
+    }
+
+    private static double[] retailerCdf(int retailers, double skew) {
+        double[] cdf = new double[retailers];
+        double sum = 0;
+        for (int rank = 0; rank < retailers; rank++) {
+            sum += Math.pow(rank + 1, -skew);
+            cdf[rank] = sum;
+        }
+        for (int rank = 0; rank < retailers; rank++) {
+            cdf[rank] /= sum;
+        }
+        cdf[retailers - 1] = 1;
+        return cdf;
+    }
+
+    private static String amount(long cents) {
+        return String.format(Locale.ROOT, "%d.%02d", cents / 100, cents % 100);
+    }
+
+    /**
+     * The distribution of the items per receipt
+     *
+     * @param kind  fixed, uniform or geometric
+     * @param first the count, the least count or the mean count
+     * @param last  the greatest count of a uniform distribution
+     */
+    record ItemCounts(String kind, double first, int last) {
+
+        /**
+         * Method to read a distribution such as {@code geometric:5} or {@code uniform:1-20}
+         * @param spec
+         * @return
+         * @throws IllegalArgumentException when the distribution is unknown or malformed
+         */
+        static ItemCounts parse(String spec) {
+            String[] parts = spec.split(":", 2);
+            if (parts.length == 2) {
+                try {
+                    switch (parts[0]) {
+                        case "fixed":
+                            return checked(new ItemCounts("fixed", Integer.parseInt(parts[1]), 0));
+                        case "geometric":
+                            return checked(new ItemCounts("geometric", Double.parseDouble(parts[1]), 0));
+                        case "uniform":
+                            String[] range = parts[1].split("-", 2);
+                            return checked(new ItemCounts("uniform", Integer.parseInt(range[0]),
+                                    Integer.parseInt(range[range.length - 1])));
+                        default:
+                    }
+                } catch (NumberFormatException e) {
+                    // reported below
+                }
+            }
+            throw new IllegalArgumentException("The items must be fixed:N, uniform:MIN-MAX or geometric:MEAN, not " + spec);
+        }
+
+        private static ItemCounts checked(ItemCounts counts) {
+            if (counts.first < 1 || counts.first > MAX_ITEMS || counts.last > MAX_ITEMS
+                    || (counts.kind.equals("uniform") && counts.last < counts.first)) {
+                throw new IllegalArgumentException("The items per receipt must be between 1 and " + MAX_ITEMS);
+            }
+            return counts;
+        }
+
+        int next(SplittableRandom random) {
+            return switch (kind) {
+                case "fixed" -> (int) first;
+                case "uniform" -> random.nextInt((int) first, last + 1);
+                default -> {
+                    // one item and then a geometric number of further items, for the given mean
+                    double more = first - 1;
+                    int extra = more <= 0 ? 0
+                            : (int) (Math.log(1 - random.nextDouble()) / Math.log(more / (more + 1)));
+                    yield Math.min(MAX_ITEMS, 1 + extra);
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * BatchResultDTO is a DTO class for the result of one receipt of a batch,
+ * either the id of the saved receipt or the reason it was rejected
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResultDTO {
+    String id;
+    String error;
+    List<ViolationDTO> violations;
+
+    public static BatchResultDTO saved(String id) {
+        return new BatchResultDTO(id, null, null);
+    }
+
+    public static BatchResultDTO rejected(String error) {
+        return new BatchResultDTO(null, error, null);
+    }
+
+    public static BatchResultDTO rejected(String error, List<ViolationDTO> violations) {
+        return new BatchResultDTO(null, error, violations);
+    }
+}
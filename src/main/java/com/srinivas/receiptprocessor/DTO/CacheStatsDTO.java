@@ -0,0 +1,22 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * CacheStatsDTO is a DTO class for the counters of the points cache
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CacheStatsDTO {
+    long size;
+    long hitCount;
+    long missCount;
+    long loadCount;
+    long evictionCount;
+    double hitRate;
+}
@@ -0,0 +1,19 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DedupStatsDTO is a DTO class for the counters of the duplicate receipt check
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DedupStatsDTO {
+    long lookups;
+    long duplicates;
+    double hitRate;
+}
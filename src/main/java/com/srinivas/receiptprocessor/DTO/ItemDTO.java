@@ -0,0 +1,18 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ItemDTO is a DTO class for an item of a stored receipt
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ItemDTO {
+    String shortDescription;
+    String price;
+}
@@ -0,0 +1,26 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * LeaderboardDTO is a DTO class for the top retailers by points or by receipts. When it is
+ * approximate, the error bound is the largest error of any entry and the largest value a
+ * retailer left off the leaderboard can have
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LeaderboardDTO {
+    String by;
+    boolean approximate;
+    Long errorBound;
+    List<LeaderboardEntryDTO> entries;
+}
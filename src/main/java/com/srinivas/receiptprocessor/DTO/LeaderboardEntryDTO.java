@@ -0,0 +1,22 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * LeaderboardEntryDTO is a DTO class for one retailer of the leaderboard, the error is the most
+ * the value can exceed the true value by and is only set when the leaderboard is approximate
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LeaderboardEntryDTO {
+    String retailer;
+    long value;
+    Long error;
+}
@@ -0,0 +1,31 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * PointsBreakdownDTO is a DTO class for the points of a receipt and the points every rule
+ * gave it
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PointsBreakdownDTO {
+    String id;
+    int points;
+    int retailerName;
+    int roundDollar;
+    int quarterMultiple;
+    int itemPairs;
+    int descriptionLength;
+    int oddDay;
+    int timeWindow;
+
+    public static PointsBreakdownDTO of(String id, PointsBreakdown breakdown) {
+        return new PointsBreakdownDTO(id, breakdown.total(), breakdown.retailerName(), breakdown.roundDollar(),
+                breakdown.quarterMultiple(), breakdown.itemPairs(), breakdown.descriptionLength(),
+                breakdown.oddDay(), breakdown.timeWindow());
+    }
+}
@@ -0,0 +1,25 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ReceiptDTO is a DTO class for a stored receipt with its id and points
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ReceiptDTO {
+    String id;
+    String retailer;
+    String purchaseDate;
+    String purchaseTime;
+    String total;
+    int points;
+    List<ItemDTO> items;
+}
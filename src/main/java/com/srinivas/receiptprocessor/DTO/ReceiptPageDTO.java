@@ -0,0 +1,23 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ReceiptPageDTO is a DTO class for a page of stored receipts, next is the cursor of the
+ * following page and is left out on the last page
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReceiptPageDTO {
+    List<ReceiptDTO> receipts;
+    String next;
+}
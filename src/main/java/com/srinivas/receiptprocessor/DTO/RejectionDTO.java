@@ -0,0 +1,20 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * RejectionDTO is a DTO class for the response to an invalid receipt
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class RejectionDTO {
+    String error;
+    List<ViolationDTO> violations;
+}
@@ -0,0 +1,27 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * RescoreStatusDTO is a DTO class for the progress of the rescoring job
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RescoreStatusDTO {
+    String state;
+    String cursor;
+    long scanned;
+    long updated;
+    long total;
+    double progress;
+    long elapsedMillis;
+    double receiptsPerSecond;
+    String error;
+}
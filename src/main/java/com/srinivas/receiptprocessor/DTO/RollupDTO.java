@@ -0,0 +1,23 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * RollupDTO is a DTO class for the receipts of one group, a retailer or a purchase date,
+ * or of all receipts when the key is null
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RollupDTO {
+    String key;
+    long receipts;
+    long totalPoints;
+    double averagePoints;
+}
@@ -0,0 +1,34 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * ScoreResultDTO is a DTO class for the points of one receipt scored without being stored,
+ * or the reason it could not be scored
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ScoreResultDTO {
+    Integer points;
+    String error;
+    List<ViolationDTO> violations;
+
+    public static ScoreResultDTO scored(int points) {
+        return new ScoreResultDTO(points, null, null);
+    }
+
+    public static ScoreResultDTO rejected(String error) {
+        return new ScoreResultDTO(null, error, null);
+    }
+
+    public static ScoreResultDTO rejected(String error, List<ViolationDTO> violations) {
+        return new ScoreResultDTO(null, error, violations);
+    }
+}
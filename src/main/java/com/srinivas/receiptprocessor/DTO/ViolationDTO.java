@@ -0,0 +1,20 @@
+package com.srinivas.receiptprocessor.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * ViolationDTO is a DTO class for one reason a receipt was rejected,
+ * the path of the field, the code of the reason and what is wrong with it
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ViolationDTO {
+    String field;
+    String reason;
+    String message;
+}
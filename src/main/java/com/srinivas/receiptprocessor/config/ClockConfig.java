@@ -0,0 +1,22 @@
+package com.srinivas.receiptprocessor.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * ClockConfig provides the clock that "now" is read from, so tests can fix the current time
+ */
+@Configuration
+public class ClockConfig {
+
+    /**
+     * The system clock in the default time zone
+     * @return
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
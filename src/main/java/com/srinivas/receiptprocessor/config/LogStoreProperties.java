@@ -0,0 +1,28 @@
+package com.srinivas.receiptprocessor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+/**
+ * LogStoreProperties holds the {@code receipts.storage.log} settings, used when
+ * {@code receipts.storage.type} is log
+ *
+ * @param directory          where the log segments and the index files are kept
+ * @param segmentSize        size after which the log starts a new segment file
+ * @param fsync              force every write to disk before it is acknowledged, otherwise a write
+ *                           survives a crash of the process but not of the machine
+ * @param checkpointInterval log bytes written between checkpoints, which bounds the log replayed
+ *                           on startup
+ * @param indexCapacity      slots of a new index, it doubles when half of them are used
+ */
+@ConfigurationProperties(prefix = "receipts.storage.log")
+public record LogStoreProperties(
+        @DefaultValue("data/receipts") Path directory,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("false") boolean fsync,
+        @DefaultValue("16MB") DataSize checkpointInterval,
+        @DefaultValue("65536") int indexCapacity) {
+}
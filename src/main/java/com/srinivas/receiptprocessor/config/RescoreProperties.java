@@ -0,0 +1,23 @@
+package com.srinivas.receiptprocessor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * RescoreProperties holds the {@code receipts.rescore} settings of the rescoring job
+ *
+ * @param chunkSize          receipts read, scored and updated together
+ * @param parallelism        threads scoring a chunk
+ * @param receiptsPerSecond  most receipts rescored per second, 0 for no limit; bounded by default
+ *                           so a job started on a large store does not starve live traffic
+ * @param checkpoint         file recording how far the job got, so a stopped job can resume
+ */
+@ConfigurationProperties(prefix = "receipts.rescore")
+public record RescoreProperties(
+        @DefaultValue("500") int chunkSize,
+        @DefaultValue("2") int parallelism,
+        @DefaultValue("2000") int receiptsPerSecond,
+        @DefaultValue("data/rescore.checkpoint") Path checkpoint) {
+}
@@ -0,0 +1,16 @@
+package com.srinivas.receiptprocessor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * ScoreProperties holds the {@code receipts.score} settings of scoring receipts without storing them
+ *
+ * @param parallelism threads scoring the receipts of a request, 0 for one per available processor
+ * @param chunkSize   receipts of a newline-delimited JSON upload read and scored together
+ */
+@ConfigurationProperties(prefix = "receipts.score")
+public record ScoreProperties(
+        @DefaultValue("0") int parallelism,
+        @DefaultValue("1000") int chunkSize) {
+}
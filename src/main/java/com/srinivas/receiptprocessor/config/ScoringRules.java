@@ -0,0 +1,62 @@
+package com.srinivas.receiptprocessor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.LocalTime;
+
+/**
+ * ScoringRules holds the {@code receipts.scoring} settings. The defaults are the standard
+ * receipt rules; a rule with 0 points is switched off.
+ */
+@Data
+@ConfigurationProperties(prefix = "receipts.scoring")
+public class ScoringRules {
+
+    /**
+     * Points for every letter or digit in the retailer name
+     */
+    private int retailerCharacterPoints = 1;
+
+    /**
+     * Points if the total is a round dollar amount with no cents
+     */
+    private int roundDollarPoints = 50;
+
+    /**
+     * Points if the total is a multiple of {@link #totalMultipleCents}
+     */
+    private int totalMultiplePoints = 25;
+
+    private int totalMultipleCents = 25;
+
+    /**
+     * Points for every {@link #itemGroupSize} items on the receipt
+     */
+    private int itemGroupPoints = 5;
+
+    private int itemGroupSize = 2;
+
+    /**
+     * Items whose trimmed description length is a multiple of this value earn their price times
+     * {@link #descriptionPriceMultiplier}, rounded up
+     */
+    private int descriptionLengthMultiple = 3;
+
+    private BigDecimal descriptionPriceMultiplier = new BigDecimal("0.2");
+
+    /**
+     * Points if the day in the purchase date is odd
+     */
+    private int oddDayPoints = 6;
+
+    /**
+     * Points if the purchase time is after {@link #timeWindowStart} and before {@link #timeWindowEnd}
+     */
+    private int timeWindowPoints = 10;
+
+    private LocalTime timeWindowStart = LocalTime.of(14, 0);
+
+    private LocalTime timeWindowEnd = LocalTime.of(16, 0);
+}
@@ -0,0 +1,42 @@
+package com.srinivas.receiptprocessor.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+
+/**
+ * VirtualThreadConfig runs request handling on virtual threads when
+ * {@code receipts.threads.virtual} is true.
+ *
+ * Tomcat hands every request to a new virtual thread instead of its platform thread pool, so a
+ * request that blocks on JDBC unmounts from its carrier thread rather than holding a pool thread.
+ * The repository calls run on the request thread and therefore on the same virtual thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "receipts.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Tomcat executor creating one virtual thread per request
+     * @return
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Executor for asynchronous request processing, replacing the default thread pool
+     * @return
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -0,0 +1,42 @@
+package com.srinivas.receiptprocessor.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * WireFormatConfig lets clients send and receive the receipts as CBOR ({@code application/cbor})
+ * or Smile ({@code application/x-jackson-smile}) instead of JSON, chosen by the Content-Type and
+ * Accept headers. Both are binary encodings of the same documents, so no other code changes.
+ *
+ * The converters are built from the same builder as the JSON ObjectMapper, so the
+ * {@code spring.jackson} settings apply to all three formats. JSON stays the default when a
+ * request does not ask for a format.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    /**
+     * Converter reading and writing CBOR
+     * @param builder
+     * @return
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Converter reading and writing Smile
+     * @param builder
+     * @return
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,35 @@
+package com.srinivas.receiptprocessor.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * WriteBehindProperties holds the {@code receipts.write-behind} settings
+ *
+ * @param enabled         accept receipts before they are stored and persist them asynchronously
+ * @param queueCapacity   accepted receipts that may wait for the writer
+ * @param flushSize       receipts committed together in one transaction
+ * @param flushInterval   longest time the writer waits to fill a flush
+ * @param offerTimeout    how long a request waits for room in a full queue before it is refused
+ * @param shutdownTimeout how long shutdown waits for the queue to drain
+ * @param retryBackoff    wait before storing a receipt that could not be stored is tried again,
+ *                        doubled after every failed attempt
+ * @param maxRetryBackoff longest wait between two attempts to store a receipt
+ * @param deadLetterFile  where the receipts waiting for another attempt are kept, so they are
+ *                        stored after a restart
+ */
+@ConfigurationProperties(prefix = "receipts.write-behind")
+public record WriteBehindProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") int queueCapacity,
+        @DefaultValue("500") int flushSize,
+        @DefaultValue("20ms") Duration flushInterval,
+        @DefaultValue("100ms") Duration offerTimeout,
+        @DefaultValue("30s") Duration shutdownTimeout,
+        @DefaultValue("100ms") Duration retryBackoff,
+        @DefaultValue("30s") Duration maxRetryBackoff,
+        @DefaultValue("data/write-behind-dead-letters.ndjson") Path deadLetterFile) {
+}
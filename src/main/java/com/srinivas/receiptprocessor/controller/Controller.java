@@ -1,16 +1,48 @@
 package com.srinivas.receiptprocessor.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.srinivas.receiptprocessor.DTO.BatchResultDTO;
+import com.srinivas.receiptprocessor.DTO.CacheStatsDTO;
+import com.srinivas.receiptprocessor.DTO.DedupStatsDTO;
+import com.srinivas.receiptprocessor.DTO.PointsBreakdownDTO;
 import com.srinivas.receiptprocessor.DTO.PointsResponseDTO;
 import com.srinivas.receiptprocessor.DTO.PostResponseDTO;
+import com.srinivas.receiptprocessor.DTO.RejectionDTO;
+import com.srinivas.receiptprocessor.DTO.RescoreStatusDTO;
+import com.srinivas.receiptprocessor.DTO.RollupDTO;
+import com.srinivas.receiptprocessor.DTO.ScoreResultDTO;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
 import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.service.PointsCache;
+import com.srinivas.receiptprocessor.service.ReceiptBatchService;
+import com.srinivas.receiptprocessor.service.ReceiptDeduplicator;
+import com.srinivas.receiptprocessor.service.ReceiptExportService;
+import com.srinivas.receiptprocessor.service.ReceiptRollups;
+import com.srinivas.receiptprocessor.service.ReceiptScoringService;
 import com.srinivas.receiptprocessor.service.ReceiptService;
+import com.srinivas.receiptprocessor.service.RejectionReason;
+import com.srinivas.receiptprocessor.service.RescoringJob;
+import com.srinivas.receiptprocessor.service.RetailerLeaderboard;
+import com.srinivas.receiptprocessor.service.SaveResult;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,12 +58,70 @@ public class Controller {
      */
     Logger logger = LoggerFactory.getLogger(Controller.class);
 
+    /**
+     * Media type of newline-delimited JSON
+     */
+    static final String NDJSON = "application/x-ndjson";
+
     /**
      * ReceiptService object
      */
     @Autowired
     ReceiptService receiptService;
 
+    /**
+     * ReceiptBatchService object
+     */
+    @Autowired
+    ReceiptBatchService receiptBatchService;
+
+    /**
+     * ReceiptScoringService object
+     */
+    @Autowired
+    ReceiptScoringService receiptScoringService;
+
+    /**
+     * PointsCache object
+     */
+    @Autowired
+    PointsCache pointsCache;
+
+    /**
+     * ReceiptDeduplicator object
+     */
+    @Autowired
+    ReceiptDeduplicator receiptDeduplicator;
+
+    /**
+     * ReceiptRollups object
+     */
+    @Autowired
+    ReceiptRollups receiptRollups;
+
+    /**
+     * RetailerLeaderboard object
+     */
+    @Autowired
+    RetailerLeaderboard retailerLeaderboard;
+
+    /**
+     * ReceiptExportService object
+     */
+    @Autowired
+    ReceiptExportService receiptExportService;
+
+    /**
+     * RescoringJob object
+     */
+    @Autowired
+    RescoringJob rescoringJob;
+
+    /**
+     * ObjectMapper object
+     */
+    @Autowired
+    ObjectMapper objectMapper;
 
 
     /**
@@ -42,15 +132,151 @@ public class Controller {
     @PostMapping("/process")
     public ResponseEntity<? extends Object> saveReceipt(@RequestBody Receipt receipt){
 
-        try{
-            logger.info("Receipt received: {}", receipt);
-            PostResponseDTO postResponseDTO = receiptService.save(receipt);
-            return new ResponseEntity<>(postResponseDTO, HttpStatus.OK);
+        logger.debug("Receipt received: {}", receipt);
+        SaveResult result = receiptService.save(receipt);
+        return switch (result.getStatus()) {
+            case SAVED, DUPLICATE -> new ResponseEntity<>(new PostResponseDTO(result.getId()), HttpStatus.OK);
+            case INVALID -> new ResponseEntity<>(new RejectionDTO("The receipt is invalid", result.getViolations()), HttpStatus.BAD_REQUEST);
+            case UNAVAILABLE -> new ResponseEntity<>(RejectionReason.UNAVAILABLE.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        };
+    }
+
+
+    /**
+     * Method to save a batch of receipts
+     * @param receipts
+     * @return the id or the error for every receipt, in the order of the request
+     */
+    @PostMapping("/process/batch")
+    public ResponseEntity<List<BatchResultDTO>> saveReceipts(@RequestBody List<Receipt> receipts){
+
+        logger.debug("Batch received: {} receipts", receipts.size());
+        return new ResponseEntity<>(receiptBatchService.saveAll(receipts), HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to save a stream of newline-delimited JSON receipts. Receipts are read, scored and
+     * stored one chunk at a time and the id or error of every receipt is written back as one
+     * JSON line per receipt, so memory use does not depend on the size of the upload.
+     * @param body
+     * @param response
+     * @throws IOException
+     */
+    @PostMapping(value = "/process/stream", consumes = NDJSON)
+    public void saveReceiptStream(InputStream body, HttpServletResponse response) throws IOException {
+
+        logger.info("Receipt stream received");
+        response.setContentType(NDJSON);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            receiptBatchService.saveAll(new NdjsonReceiptReader(objectMapper, body), results -> {
+                try {
+                    for (BatchResultDTO result : results) {
+                        generator.writeObject(result);
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+
+    /**
+     * Method to score a list of receipts without storing them
+     * @param receipts
+     * @return the points or the error for every receipt, in the order of the request
+     */
+    @PostMapping("/score")
+    public ResponseEntity<List<ScoreResultDTO>> scoreReceipts(@RequestBody List<Receipt> receipts){
+
+        logger.debug("Receipts to score received: {} receipts", receipts.size());
+        return new ResponseEntity<>(receiptScoringService.scoreAll(receipts), HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to score a stream of newline-delimited JSON receipts without storing them. The lines
+     * are parsed and scored in parallel one chunk at a time and the points or error of every
+     * receipt is written back as one JSON line per receipt. A line that cannot be read is
+     * rejected on its own.
+     * @param body
+     * @param response
+     * @throws IOException
+     */
+    @PostMapping(value = "/score", consumes = NDJSON)
+    public void scoreReceiptStream(InputStream body, HttpServletResponse response) throws IOException {
+
+        logger.info("Receipt stream to score received");
+        response.setContentType(NDJSON);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            ObjectReader receiptReader = objectMapper.readerFor(Receipt.class);
+            receiptScoringService.scoreAll(new NdjsonLineReader(body), line -> {
+                try {
+                    return receiptReader.readValue(line);
+                } catch (IOException e) {
+                    return null;
+                }
+            }, results -> {
+                try {
+                    for (ScoreResultDTO result : results) {
+                        generator.writeObject(result);
+                        generator.writeRaw('\n');
+                    }
+                    generator.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
         }
-        catch (Exception e){
-            return new ResponseEntity<>("The receipt is invalid", HttpStatus.BAD_REQUEST);
+    }
+
+
+    /**
+     * Method to get a page of the stored receipts in id order
+     * @param after the next cursor of the previous page, left out for the first page
+     * @param limit number of receipts in the page
+     * @return
+     */
+    @GetMapping
+    public ResponseEntity<? extends Object> getReceipts(@RequestParam(required = false) String after,
+                                                       @RequestParam(defaultValue = "100") int limit){
+
+        if (limit < 1 || limit > ReceiptExportService.MAX_PAGE_SIZE) {
+            return new ResponseEntity<>("The limit must be between 1 and " + ReceiptExportService.MAX_PAGE_SIZE,
+                    HttpStatus.BAD_REQUEST);
         }
+        return new ResponseEntity<>(receiptExportService.page(after, limit), HttpStatus.OK);
+    }
+
 
+    /**
+     * Method to export the stored receipts as newline-delimited JSON in id order, one receipt
+     * per line. An interrupted export can be resumed by passing the id of the last line as after.
+     * @param after the id of the last receipt already exported, left out to export all of them
+     * @param response
+     * @throws IOException
+     */
+    @GetMapping(produces = NDJSON)
+    public void exportReceipts(@RequestParam(required = false) String after, HttpServletResponse response) throws IOException {
+
+        logger.info("Receipt export started");
+        response.setContentType(NDJSON);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            receiptExportService.export(after, receipt -> {
+                try {
+                    generator.writeObject(receipt);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
 
@@ -62,16 +288,225 @@ public class Controller {
     @GetMapping("/{id}/points")
     public ResponseEntity<? extends Object> getPoints(@PathVariable String id){
 
-        Optional<Receipt> optionalReceipt = receiptService.findById(id);
-        logger.info("Receipt found: {}", optionalReceipt);
-        if (optionalReceipt.isPresent()) {
-            int points = receiptService.getPoints(id);
-            return new ResponseEntity<>(new PointsResponseDTO(points), HttpStatus.OK);
+        Optional<Integer> points = receiptService.findPoints(id);
+        logger.debug("Points found: {}", points);
+        if (points.isPresent()) {
+            return new ResponseEntity<>(new PointsResponseDTO(points.get()), HttpStatus.OK);
+        } else {
+            return new ResponseEntity<>("Receipt not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Method to get the points every rule gave a receipt, as they were stored when it was scored
+     * @param id
+     * @return
+     */
+    @GetMapping("/{id}/points/breakdown")
+    public ResponseEntity<? extends Object> getPointsBreakdown(@PathVariable String id){
+
+        Optional<PointsBreakdown> breakdown = receiptService.findBreakdown(id);
+        logger.debug("Points breakdown found: {}", breakdown);
+        if (breakdown.isPresent()) {
+            return new ResponseEntity<>(PointsBreakdownDTO.of(id, breakdown.get()), HttpStatus.OK);
+        } else if (receiptService.findPoints(id).isPresent()) {
+            return new ResponseEntity<>("Receipt stored without a points breakdown, rescore to add it", HttpStatus.NOT_FOUND);
         } else {
             return new ResponseEntity<>("Receipt not found", HttpStatus.NOT_FOUND);
         }
     }
 
 
+    /**
+     * Method to get the number of receipts and points over all receipts
+     * @return
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<RollupDTO> getStats(){
+
+        return new ResponseEntity<>(receiptRollups.total(), HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to get the number of receipts and points of every retailer
+     * @return
+     */
+    @GetMapping("/stats/retailers")
+    public ResponseEntity<List<RollupDTO>> getRetailerStats(){
+
+        return new ResponseEntity<>(receiptRollups.byRetailer(), HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to get the number of receipts and points of one retailer
+     * @param retailer
+     * @return
+     */
+    @GetMapping("/stats/retailers/{retailer}")
+    public ResponseEntity<? extends Object> getRetailerStats(@PathVariable String retailer){
+
+        Optional<RollupDTO> rollup = receiptRollups.forRetailer(retailer);
+        if (rollup.isPresent()) {
+            return new ResponseEntity<>(rollup.get(), HttpStatus.OK);
+        } else {
+            return new ResponseEntity<>("Retailer not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
+
+    /**
+     * Method to get the number of receipts and points of every purchase date
+     * @return
+     */
+    @GetMapping("/stats/days")
+    public ResponseEntity<List<RollupDTO>> getDayStats(){
 
+        return new ResponseEntity<>(receiptRollups.byPurchaseDate(), HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to get the number of receipts and points of one purchase date
+     * @param purchaseDate
+     * @return
+     */
+    @GetMapping("/stats/days/{purchaseDate}")
+    public ResponseEntity<? extends Object> getDayStats(@PathVariable String purchaseDate){
+
+        Optional<RollupDTO> rollup = receiptRollups.forPurchaseDate(purchaseDate);
+        if (rollup.isPresent()) {
+            return new ResponseEntity<>(rollup.get(), HttpStatus.OK);
+        } else {
+            return new ResponseEntity<>("Purchase date not found", HttpStatus.NOT_FOUND);
+        }
+    }
+
+
+    /**
+     * Method to get the retailers with the most points or receipts
+     * @param by points or receipts
+     * @param limit number of retailers, at most the capacity of the leaderboard
+     * @return
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<? extends Object> getLeaderboard(@RequestParam(defaultValue = "points") String by,
+                                                          @RequestParam(defaultValue = "10") int limit){
+
+        RetailerLeaderboard.Ranking ranking;
+        try {
+            ranking = RetailerLeaderboard.Ranking.of(by);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>("The ranking must be points or receipts", HttpStatus.BAD_REQUEST);
+        }
+        if (limit < 1 || limit > retailerLeaderboard.getCapacity()) {
+            return new ResponseEntity<>("The limit must be between 1 and " + retailerLeaderboard.getCapacity(),
+                    HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(retailerLeaderboard.top(ranking, limit), HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to start scoring the stored receipts again with the current scoring rules, from the
+     * checkpoint of a stopped job unless restart is set
+     * @param restart
+     * @return the progress of the job, or 409 when it is already running
+     */
+    @PostMapping("/rescore")
+    public ResponseEntity<RescoreStatusDTO> startRescore(@RequestParam(defaultValue = "false") boolean restart){
+
+        boolean started = rescoringJob.start(restart);
+        return new ResponseEntity<>(rescoringJob.status(), started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT);
+    }
+
+
+    /**
+     * Method to get the progress of the rescoring job
+     * @return
+     */
+    @GetMapping("/rescore")
+    public ResponseEntity<RescoreStatusDTO> getRescore(){
+
+        return new ResponseEntity<>(rescoringJob.status(), HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to stop the rescoring job after its current chunk, it can be resumed later
+     * @return the progress of the job, or 409 when it is not running
+     */
+    @DeleteMapping("/rescore")
+    public ResponseEntity<RescoreStatusDTO> stopRescore(){
+
+        boolean stopping = rescoringJob.stop();
+        return new ResponseEntity<>(rescoringJob.status(), stopping ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT);
+    }
+
+
+    /**
+     * Method to get the counters of the duplicate receipt check
+     * @return
+     */
+    @GetMapping("/dedup/stats")
+    public ResponseEntity<DedupStatsDTO> getDedupStats(){
+
+        long lookups = receiptDeduplicator.lookups();
+        long duplicates = receiptDeduplicator.duplicates();
+        DedupStatsDTO dedupStatsDTO = DedupStatsDTO.builder()
+                .lookups(lookups)
+                .duplicates(duplicates)
+                .hitRate(lookups == 0 ? 0 : (double) duplicates / lookups)
+                .build();
+        return new ResponseEntity<>(dedupStatsDTO, HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to get the counters of the points cache
+     * @return
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsDTO> getCacheStats(){
+
+        CacheStats stats = pointsCache.stats();
+        CacheStatsDTO cacheStatsDTO = CacheStatsDTO.builder()
+                .size(pointsCache.size())
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .loadCount(stats.loadCount())
+                .evictionCount(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .build();
+        return new ResponseEntity<>(cacheStatsDTO, HttpStatus.OK);
+    }
+
+
+    /**
+     * Method to answer a request that failed because the store could not be reached or was too
+     * busy, which the client can retry
+     * @param e
+     * @return
+     */
+    @ExceptionHandler({DataAccessResourceFailureException.class, TransientDataAccessException.class,
+            CannotCreateTransactionException.class})
+    public ResponseEntity<String> storeUnavailable(RuntimeException e){
+
+        logger.warn("Receipt store unavailable: {}", e.getMessage());
+        return new ResponseEntity<>(RejectionReason.UNAVAILABLE.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+
+    /**
+     * Method to answer a request that failed in the store for any other reason
+     * @param e
+     * @return
+     */
+    @ExceptionHandler(DataAccessException.class)
+    public ResponseEntity<String> storeFailed(DataAccessException e){
+
+        logger.error("Receipt store failed", e);
+        return new ResponseEntity<>(RejectionReason.NOT_SAVED.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
 }
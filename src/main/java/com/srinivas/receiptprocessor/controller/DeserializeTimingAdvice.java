@@ -0,0 +1,63 @@
+package com.srinivas.receiptprocessor.controller;
+
+import com.srinivas.receiptprocessor.service.ReceiptMetrics;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * DeserializeTimingAdvice times the binding of the request bodies of the Controller.
+ *
+ * The clock is read before the message converter runs and the start is carried on the message
+ * handed to the converter, which is the message passed back to afterBodyRead.
+ */
+@ControllerAdvice(assignableTypes = Controller.class)
+public class DeserializeTimingAdvice extends RequestBodyAdviceAdapter {
+
+    private final ReceiptMetrics receiptMetrics;
+
+    public DeserializeTimingAdvice(ReceiptMetrics receiptMetrics) {
+        this.receiptMetrics = receiptMetrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        return new TimedInputMessage(inputMessage, receiptMetrics.start());
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (inputMessage instanceof TimedInputMessage timed) {
+            receiptMetrics.record(ReceiptMetrics.Phase.DESERIALIZE, timed.start());
+        }
+        return body;
+    }
+
+    private record TimedInputMessage(HttpInputMessage message, long start) implements HttpInputMessage {
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return message.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return message.getHeaders();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.srinivas.receiptprocessor.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * NdjsonLineReader splits newline-delimited JSON into its lines without parsing them, so the
+ * lines can be parsed on other threads. Blank lines are skipped.
+ *
+ * Every line is parsed on its own, so unlike {@link NdjsonReceiptReader} a line of malformed JSON
+ * only loses that line.
+ */
+public class NdjsonLineReader implements Iterator<byte[]> {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream inputStream;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+
+    private int position;
+
+    private int limit;
+
+    private boolean eof;
+
+    private byte[] next;
+
+    public NdjsonLineReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            byte[] line = readLine();
+            if (line == null) {
+                return false;
+            }
+            if (!isBlank(line)) {
+                next = line;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public byte[] next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        byte[] line = next;
+        next = null;
+        return line;
+    }
+
+    /**
+     * Reads up to the next newline, or to the end of the stream for a last line without one
+     * @return the line without its newline, null at the end of the stream
+     */
+    private byte[] readLine() {
+        // bytes after the position already known to hold no newline
+        int checked = 0;
+        while (true) {
+            for (int i = position + checked; i < limit; i++) {
+                if (buffer[i] == '\n') {
+                    byte[] line = Arrays.copyOfRange(buffer, position, i);
+                    position = i + 1;
+                    return line;
+                }
+            }
+            checked = limit - position;
+            if (eof || !fill()) {
+                if (position == limit) {
+                    return null;
+                }
+                byte[] line = Arrays.copyOfRange(buffer, position, limit);
+                position = limit;
+                return line;
+            }
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer, grown when a line fills it, and reads more
+     * @return false at the end of the stream
+     */
+    private boolean fill() {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        try {
+            int read = inputStream.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                eof = true;
+                return false;
+            }
+            limit += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
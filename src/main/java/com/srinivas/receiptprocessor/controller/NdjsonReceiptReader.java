@@ -0,0 +1,104 @@
+package com.srinivas.receiptprocessor.controller;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.srinivas.receiptprocessor.model.Receipt;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * NdjsonReceiptReader reads newline-delimited JSON receipts one at a time with the Jackson
+ * streaming parser, so only the receipt being read is held in memory.
+ *
+ * A receipt that cannot be bound is returned as null and the parser moves on to the next one.
+ * Malformed JSON cannot be resynchronised, it is returned as null and ends the stream.
+ */
+public class NdjsonReceiptReader implements Iterator<Receipt> {
+
+    private final JsonParser parser;
+
+    private final ObjectReader receiptReader;
+
+    private JsonToken current;
+
+    private boolean done;
+
+    public NdjsonReceiptReader(ObjectMapper objectMapper, InputStream inputStream) throws IOException {
+        this.parser = objectMapper.getFactory().createParser(inputStream);
+        this.receiptReader = objectMapper.readerFor(Receipt.class);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (done) {
+            return false;
+        }
+        if (current == null) {
+            try {
+                current = parser.nextToken();
+            } catch (StreamReadException e) {
+                current = JsonToken.NOT_AVAILABLE;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (current == null) {
+                done = true;
+            }
+        }
+        return !done;
+    }
+
+    @Override
+    public Receipt next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        JsonToken token = current;
+        current = null;
+        try {
+            if (token == JsonToken.NOT_AVAILABLE) {
+                done = true;
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                return null;
+            }
+            return receiptReader.readValue(parser);
+        } catch (StreamReadException e) {
+            done = true;
+            return null;
+        } catch (JsonProcessingException e) {
+            skipToRoot();
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Moves the parser past the end of the receipt whose binding failed
+     */
+    private void skipToRoot() {
+        try {
+            while (!parser.getParsingContext().inRoot()) {
+                if (parser.nextToken() == null) {
+                    done = true;
+                    return;
+                }
+            }
+        } catch (StreamReadException e) {
+            done = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
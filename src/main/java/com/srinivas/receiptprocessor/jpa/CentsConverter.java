@@ -0,0 +1,80 @@
+package com.srinivas.receiptprocessor.jpa;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * CentsConverter stores an amount such as {@code 12.25} as the whole number of cents in a BIGINT
+ * column. Amounts are read back in the form {@code 0.00}, so an amount sent as {@code 012.25} or
+ * {@code 12.250} is returned as {@code 12.25}.
+ */
+@Converter
+public class CentsConverter implements AttributeConverter<String, Long> {
+
+    /**
+     * Most integer digits parsed without BigDecimal, far from overflowing a long in cents
+     */
+    private static final int MAX_FAST_DIGITS = 15;
+
+    @Override
+    public Long convertToDatabaseColumn(String amount) {
+        if (amount == null) {
+            return null;
+        }
+        Long cents = toCents(amount);
+        if (cents == null) {
+            throw new IllegalArgumentException("The amount " + amount + " is not a whole number of cents");
+        }
+        return cents;
+    }
+
+    @Override
+    public String convertToEntityAttribute(Long cents) {
+        return cents == null ? null : format(cents);
+    }
+
+    /**
+     * Method to convert an amount to cents
+     * @param amount
+     * @return the amount in cents, null when it is not a number or not a whole number of cents
+     */
+    public static Long toCents(String amount) {
+        int point = amount.length() - 3;
+        if (point >= 1 && point <= MAX_FAST_DIGITS && amount.charAt(point) == '.') {
+            long cents = 0;
+            for (int i = 0; i < amount.length(); i++) {
+                char c = amount.charAt(i);
+                if (i == point) {
+                    continue;
+                }
+                if (c < '0' || c > '9') {
+                    return slowToCents(amount);
+                }
+                cents = cents * 10 + (c - '0');
+            }
+            return cents;
+        }
+        return slowToCents(amount);
+    }
+
+    /**
+     * Method to write cents as an amount
+     * @param cents
+     * @return the amount in the form {@code 0.00}
+     */
+    public static String format(long cents) {
+        long units = Math.abs(cents / 100);
+        int fraction = (int) Math.abs(cents % 100);
+        return (cents < 0 ? "-" : "") + units + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private static Long slowToCents(String amount) {
+        try {
+            return new BigDecimal(amount).movePointRight(2).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+}
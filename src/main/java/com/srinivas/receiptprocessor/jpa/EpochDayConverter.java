@@ -0,0 +1,24 @@
+package com.srinivas.receiptprocessor.jpa;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.LocalDate;
+
+/**
+ * EpochDayConverter stores a date of the form {@code 2022-01-01} as the number of days since
+ * 1970-01-01 in an INTEGER column, which sorts and compares in date order.
+ */
+@Converter
+public class EpochDayConverter implements AttributeConverter<String, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(String date) {
+        return date == null ? null : Math.toIntExact(LocalDate.parse(date).toEpochDay());
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer epochDay) {
+        return epochDay == null ? null : LocalDate.ofEpochDay(epochDay).toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.srinivas.receiptprocessor.jpa;
+
+import com.srinivas.receiptprocessor.model.Item;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * ItemListConverter stores the items of a receipt in one binary column of the receipt row, so a
+ * receipt is one row and one insert however many items it has.
+ *
+ * <pre>
+ * byte    format, 0 for plain, 1 for deflated
+ * varint  length of the plain encoding, only when deflated
+ * plain:
+ * varint  item count
+ * varint  UTF-8 length of the short description plus one, 0 for null, followed by its bytes
+ * varint  price in cents plus one, 0 for null                        for every item
+ * </pre>
+ *
+ * A varint is 7 bits per byte, low bits first, with the high bit set on every byte but the last.
+ * Encodings of at least {@code DEFLATE_BYTES} are deflated, and kept so when that made them
+ * smaller; the descriptions of a long receipt often repeat.
+ */
+@Converter
+public class ItemListConverter implements AttributeConverter<List<Item>, byte[]> {
+
+    private static final byte PLAIN = 0;
+
+    private static final byte DEFLATED = 1;
+
+    /**
+     * Smallest plain encoding worth trying to deflate
+     */
+    static final int DEFLATE_BYTES = 256;
+
+    @Override
+    public byte[] convertToDatabaseColumn(List<Item> items) {
+        if (items == null) {
+            return null;
+        }
+        ByteArrayOutputStream plain = new ByteArrayOutputStream(16 + 24 * items.size());
+        plain.write(PLAIN);
+        writeVarint(plain, items.size());
+        for (Item item : items) {
+            byte[] description = item.getShortDescription() == null
+                    ? null : item.getShortDescription().getBytes(StandardCharsets.UTF_8);
+            writeVarint(plain, description == null ? 0 : description.length + 1L);
+            if (description != null) {
+                plain.writeBytes(description);
+            }
+            writeVarint(plain, item.getPrice() == null ? 0 : cents(item.getPrice()) + 1);
+        }
+        byte[] encoded = plain.toByteArray();
+        return encoded.length < DEFLATE_BYTES ? encoded : deflate(encoded);
+    }
+
+    @Override
+    public List<Item> convertToEntityAttribute(byte[] column) {
+        if (column == null) {
+            return null;
+        }
+        byte[] plain = column[0] == DEFLATED ? inflate(column) : column;
+        int[] position = {1};
+        int count = (int) readVarint(plain, position);
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = (int) readVarint(plain, position) - 1;
+            String description = null;
+            if (length >= 0) {
+                description = new String(plain, position[0], length, StandardCharsets.UTF_8);
+                position[0] += length;
+            }
+            long price = readVarint(plain, position) - 1;
+            items.add(Item.builder()
+                    .shortDescription(description)
+                    .price(price < 0 ? null : CentsConverter.format(price))
+                    .build());
+        }
+        return items;
+    }
+
+    private static long cents(String price) {
+        Long cents = CentsConverter.toCents(price);
+        if (cents == null || cents < 0) {
+            throw new IllegalArgumentException("The price " + price + " is not a whole number of cents");
+        }
+        return cents;
+    }
+
+    private static byte[] deflate(byte[] plain) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(plain, 1, plain.length - 1);
+            deflater.finish();
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream(plain.length);
+            deflated.write(DEFLATED);
+            writeVarint(deflated, plain.length);
+            byte[] buffer = new byte[Math.min(plain.length, 4096)];
+            while (!deflater.finished()) {
+                deflated.write(buffer, 0, deflater.deflate(buffer));
+                if (deflated.size() >= plain.length) {
+                    return plain;
+                }
+            }
+            return deflated.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] column) {
+        int[] position = {1};
+        byte[] plain = new byte[(int) readVarint(column, position)];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(column, position[0], column.length - position[0]);
+            int length = 1;
+            while (length < plain.length) {
+                int inflated = inflater.inflate(plain, length, plain.length - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new IllegalStateException("The stored items end early");
+                }
+                length += inflated;
+            }
+            return plain;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("The stored items are damaged", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+}
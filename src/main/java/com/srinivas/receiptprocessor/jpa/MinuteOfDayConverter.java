@@ -0,0 +1,40 @@
+package com.srinivas.receiptprocessor.jpa;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * MinuteOfDayConverter stores a time of the form {@code 13:01} or {@code 9:05} as the minute of
+ * the day in a SMALLINT column. Times are read back as {@code HH:mm}, so {@code 9:05} is returned
+ * as {@code 09:05}.
+ */
+@Converter
+public class MinuteOfDayConverter implements AttributeConverter<String, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(String time) {
+        if (time == null) {
+            return null;
+        }
+        int colon = time.indexOf(':');
+        if (colon < 1 || colon > 2 || time.length() != colon + 3) {
+            throw new IllegalArgumentException("The time " + time + " is not of the form HH:mm");
+        }
+        int hours = Integer.parseInt(time, 0, colon, 10);
+        int minutes = Integer.parseInt(time, colon + 1, colon + 3, 10);
+        if (hours > 23 || minutes > 59) {
+            throw new IllegalArgumentException("The time " + time + " is not of the form HH:mm");
+        }
+        return (short) (hours * 60 + minutes);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short minuteOfDay) {
+        if (minuteOfDay == null) {
+            return null;
+        }
+        int hours = minuteOfDay / 60;
+        int minutes = minuteOfDay % 60;
+        return (hours < 10 ? "0" : "") + hours + (minutes < 10 ? ":0" : ":") + minutes;
+    }
+}
@@ -0,0 +1,23 @@
+package com.srinivas.receiptprocessor.jpa;
+
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * PointsBreakdownConverter stores a points breakdown packed into a small VARBINARY column, see
+ * {@link PointsBreakdown#pack()}. Receipts stored before breakdowns were kept have none.
+ */
+@Converter
+public class PointsBreakdownConverter implements AttributeConverter<PointsBreakdown, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(PointsBreakdown breakdown) {
+        return breakdown == null ? null : breakdown.pack();
+    }
+
+    @Override
+    public PointsBreakdown convertToEntityAttribute(byte[] packed) {
+        return packed == null ? null : PointsBreakdown.unpack(packed);
+    }
+}
@@ -1,13 +1,102 @@
 package com.srinivas.receiptprocessor.jpa;
 
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
 import com.srinivas.receiptprocessor.model.Receipt;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 /**
  * ReceiptRepository is a repository class for the Receipt
  */
 @Repository
 public interface  ReceiptRepository extends JpaRepository<Receipt, String> {
 
+    /**
+     * Rows fetched from the database per round trip when streaming receipts
+     */
+    String STREAM_FETCH_SIZE = "1000";
+
+    /**
+     * Method to get only the points of a receipt, a primary key lookup that does not load
+     * the Receipt entity or its items
+     * @param id
+     * @return
+     */
+    @Query("select r.points from Receipt r where r.id = :id")
+    Optional<Integer> findPointsById(@Param("id") String id);
+
+    /**
+     * Method to get only the points breakdown of a receipt, a primary key lookup of a few bytes
+     * that does not load the Receipt entity or its items
+     * @param id
+     * @return empty when there is no receipt with the id or it was stored without a breakdown
+     */
+    @Query("select r.breakdown from Receipt r where r.id = :id")
+    Optional<PointsBreakdown> findBreakdownById(@Param("id") String id);
+
+    /**
+     * Method to get the id of the receipt stored with a content hash
+     * @param contentHash
+     * @return
+     */
+    @Query("select r.id from Receipt r where r.contentHash = :contentHash")
+    Optional<String> findIdByContentHash(@Param("contentHash") String contentHash);
+
+    /**
+     * Method to get the number of receipts and the total points per retailer
+     * @return
+     */
+    @Query("select r.retailer as groupKey, count(r) as receipts, coalesce(sum(r.points), 0) as points "
+            + "from Receipt r group by r.retailer")
+    List<RollupRow> rollupByRetailer();
+
+    /**
+     * Method to get the number of receipts and the total points per purchase date
+     * @return
+     */
+    @Query("select r.purchaseDate as groupKey, count(r) as receipts, coalesce(sum(r.points), 0) as points "
+            + "from Receipt r group by r.purchaseDate")
+    List<RollupRow> rollupByPurchaseDate();
+
+    /**
+     * Method to get the receipts with an id greater than a given id with their items, in id
+     * order. The primary key index is read from the given id on, no rows are skipped with an
+     * offset.
+     * @param after
+     * @param limit
+     * @return
+     */
+    @Query("select r.id as id, r.retailer as retailer, r.purchaseDate as purchaseDate, r.purchaseTime as purchaseTime, "
+            + "r.totalCents as totalCents, r.totalText as totalText, r.points as points, r.breakdown as breakdown, "
+            + "r.items as items "
+            + "from Receipt r where r.id > :after order by r.id limit :limit")
+    List<ReceiptRow> findPageAfter(@Param("after") String after, @Param("limit") int limit);
+
+    /**
+     * Method to stream the receipts with an id greater than a given id with their items, in id
+     * order. The rows are read through a forward-only cursor and are not managed by the
+     * persistence context, so the stream has to be closed inside a transaction but its memory
+     * does not grow with the number of receipts.
+     * @param after
+     * @return
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r.id as id, r.retailer as retailer, r.purchaseDate as purchaseDate, r.purchaseTime as purchaseTime, "
+            + "r.totalCents as totalCents, r.totalText as totalText, r.points as points, r.breakdown as breakdown, "
+            + "r.items as items "
+            + "from Receipt r where r.id > :after order by r.id")
+    Stream<ReceiptRow> streamAfter(@Param("after") String after);
+
 }
@@ -0,0 +1,38 @@
+package com.srinivas.receiptprocessor.jpa;
+
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+
+import java.util.List;
+
+/**
+ * ReceiptRow is the stored fields of a receipt, read without loading the entity
+ */
+public interface ReceiptRow {
+
+    String getId();
+
+    String getRetailer();
+
+    String getPurchaseDate();
+
+    String getPurchaseTime();
+
+    Long getTotalCents();
+
+    String getTotalText();
+
+    int getPoints();
+
+    PointsBreakdown getBreakdown();
+
+    List<Item> getItems();
+
+    /**
+     * Method to get the total from the columns it is stored in
+     * @return
+     */
+    default String getTotal() {
+        return getTotalCents() != null ? CentsConverter.format(getTotalCents()) : getTotalText();
+    }
+}
@@ -0,0 +1,13 @@
+package com.srinivas.receiptprocessor.jpa;
+
+/**
+ * RollupRow is one group of a GROUP BY over the stored receipts
+ */
+public interface RollupRow {
+
+    String getGroupKey();
+
+    long getReceipts();
+
+    long getPoints();
+}
@@ -0,0 +1,76 @@
+package com.srinivas.receiptprocessor.jpa;
+
+import org.hibernate.type.SqlTypes;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractClassJavaType;
+import org.hibernate.type.descriptor.jdbc.JdbcType;
+import org.hibernate.type.descriptor.jdbc.JdbcTypeIndicators;
+
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * UuidStringJavaType stores a String attribute holding a UUID in a UUID column.
+ *
+ * The attribute keeps the 36 character form the API uses while the column holds the 16 bytes of
+ * the UUID, less than half the size of the string in the table and in every index on it. A native
+ * UUID column compares the bytes as an unsigned number, which is the same order as the strings.
+ */
+public class UuidStringJavaType extends AbstractClassJavaType<String> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public UuidStringJavaType() {
+        super(String.class);
+    }
+
+    @Override
+    public JdbcType getRecommendedJdbcType(JdbcTypeIndicators indicators) {
+        return indicators.getTypeConfiguration().getJdbcTypeRegistry().getDescriptor(SqlTypes.UUID);
+    }
+
+    @Override
+    public String fromString(CharSequence string) {
+        return string == null ? null : string.toString();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (type == String.class) {
+            return (X) value;
+        }
+        UUID uuid = UUID.fromString(value);
+        if (type == UUID.class || type == Object.class) {
+            return (X) uuid;
+        }
+        if (type == byte[].class) {
+            return (X) ByteBuffer.allocate(16).putLong(uuid.getMostSignificantBits())
+                    .putLong(uuid.getLeastSignificantBits()).array();
+        }
+        throw unknownUnwrap(type);
+    }
+
+    @Override
+    public <X> String wrap(X value, WrapperOptions options) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof UUID uuid) {
+            return uuid.toString();
+        }
+        if (value instanceof String string) {
+            return string;
+        }
+        if (value instanceof byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        }
+        throw unknownWrap(value.getClass());
+    }
+}
@@ -0,0 +1,111 @@
+package com.srinivas.receiptprocessor.model;
+
+import java.util.Arrays;
+
+/**
+ * PointsBreakdown is the points a receipt got from every scoring rule, kept with the receipt when
+ * it is scored so the points can be explained without scoring it again. The points of the
+ * receipt are the {@link #total()}.
+ *
+ * It is stored packed: one byte with a bit for every rule that gave points other than 0, in the
+ * order of the components, followed by those points as zigzag varints. Most rules give fewer
+ * than 64 points, which take one byte, so a receipt usually takes 3 to 8 bytes.
+ *
+ * @param retailerName      points for the letters and digits of the retailer name
+ * @param roundDollar       points for a total with no cents
+ * @param quarterMultiple   points for a total that is a multiple of 0.25
+ * @param itemPairs         points for every two items
+ * @param descriptionLength points for the items whose trimmed description length is a multiple of 3
+ * @param oddDay            points for an odd purchase day
+ * @param timeWindow        points for a purchase time between 14:00 and 16:00
+ */
+public record PointsBreakdown(
+        int retailerName,
+        int roundDollar,
+        int quarterMultiple,
+        int itemPairs,
+        int descriptionLength,
+        int oddDay,
+        int timeWindow) {
+
+    private static final int RULES = 7;
+
+    /**
+     * Largest packed breakdown: the bitmask and a varint of at most 5 bytes for every rule
+     */
+    public static final int MAX_PACKED_BYTES = 1 + RULES * 5;
+
+    /**
+     * Method to get the points of the receipt, the sum of the rules as the points are added up
+     * when a receipt is scored
+     * @return
+     */
+    public int total() {
+        return retailerName + roundDollar + quarterMultiple + itemPairs + descriptionLength + oddDay + timeWindow;
+    }
+
+    /**
+     * Method to pack the breakdown into the bytes it is stored as
+     * @return
+     */
+    public byte[] pack() {
+        int[] points = components();
+        byte[] packed = new byte[MAX_PACKED_BYTES];
+        int mask = 0;
+        int length = 1;
+        for (int rule = 0; rule < RULES; rule++) {
+            if (points[rule] != 0) {
+                mask |= 1 << rule;
+                // zigzag, so small negative points of a changed rule also take one byte
+                int value = (points[rule] << 1) ^ (points[rule] >> 31);
+                while ((value & ~0x7F) != 0) {
+                    packed[length++] = (byte) ((value & 0x7F) | 0x80);
+                    value >>>= 7;
+                }
+                packed[length++] = (byte) value;
+            }
+        }
+        packed[0] = (byte) mask;
+        return Arrays.copyOf(packed, length);
+    }
+
+    /**
+     * Method to read a breakdown from the bytes it was stored as
+     * @param packed
+     * @return
+     * @throws IllegalArgumentException when the bytes are not a packed breakdown
+     */
+    public static PointsBreakdown unpack(byte[] packed) {
+        if (packed.length == 0 || (packed[0] & 0xFF) >= 1 << RULES) {
+            throw new IllegalArgumentException("Not a packed points breakdown");
+        }
+        int mask = packed[0];
+        int[] points = new int[RULES];
+        int position = 1;
+        for (int rule = 0; rule < RULES; rule++) {
+            if ((mask & 1 << rule) == 0) {
+                continue;
+            }
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position == packed.length || shift > 28) {
+                    throw new IllegalArgumentException("Not a packed points breakdown");
+                }
+                byte b = packed[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            points[rule] = (value >>> 1) ^ -(value & 1);
+        }
+        if (position != packed.length) {
+            throw new IllegalArgumentException("Not a packed points breakdown");
+        }
+        return new PointsBreakdown(points[0], points[1], points[2], points[3], points[4], points[5], points[6]);
+    }
+
+    private int[] components() {
+        return new int[]{retailerName, roundDollar, quarterMultiple, itemPairs, descriptionLength, oddDay, timeWindow};
+    }
+}
@@ -1,11 +1,21 @@
 package com.srinivas.receiptprocessor.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.srinivas.receiptprocessor.jpa.CentsConverter;
+import com.srinivas.receiptprocessor.jpa.EpochDayConverter;
+import com.srinivas.receiptprocessor.jpa.ItemListConverter;
+import com.srinivas.receiptprocessor.jpa.MinuteOfDayConverter;
+import com.srinivas.receiptprocessor.jpa.PointsBreakdownConverter;
+import com.srinivas.receiptprocessor.jpa.UuidStringJavaType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import lombok.*;
+import org.hibernate.annotations.JavaType;
+import org.springframework.data.domain.Persistable;
 
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Receipt is a model class for the Receipt
@@ -16,9 +26,12 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString(exclude = "items")
-public class Receipt {
+public class Receipt implements Persistable<String> {
+    /**
+     * Assigned by the application, stored as a UUID
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @JavaType(UuidStringJavaType.class)
     private String id;
 
     @NotBlank(message = "The retailer field cannot be blank")
@@ -26,18 +39,106 @@ public class Receipt {
 
     @NotBlank(message = "The purchase date field cannot be blank")
     @Pattern(regexp = "^\\d{4}-\\d{2}-\\d{2}$")
+    @Convert(converter = EpochDayConverter.class)
     private String purchaseDate;
 
     @NotBlank(message = "The purchase time field cannot be blank")
     @Pattern(regexp = "([01]?[0-9]|2[0-3]):[0-5][0-9]", message = "The purchase time must be valid and in the format '00:00' 24 hours format")
+    @Convert(converter = MinuteOfDayConverter.class)
     private String purchaseTime;
 
+    /**
+     * Stored as {@code totalCents}, or as {@code totalText} when it is not a whole number of cents
+     */
     @NotBlank(message = "The total field cannot be blank")
+    @Transient
     private String total;
 
+    /**
+     * The total in cents, null when the total is not a whole number of cents
+     */
+    @JsonIgnore
+    @Column(name = "total")
+    @EqualsAndHashCode.Exclude
+    private Long totalCents;
+
+    /**
+     * The total as it was received, only kept when it is not a whole number of cents
+     */
+    @JsonIgnore
+    @Column(length = 64)
+    @EqualsAndHashCode.Exclude
+    private String totalText;
+
     private int points;
 
-    @OneToMany(mappedBy = "receipt", cascade = CascadeType.ALL)
+    /**
+     * The points of every rule, packed into a few bytes. Null for receipts stored before
+     * breakdowns were kept, until they are rescored.
+     */
+    @JsonIgnore
+    @Convert(converter = PointsBreakdownConverter.class)
+    @Column(length = PointsBreakdown.MAX_PACKED_BYTES)
+    @EqualsAndHashCode.Exclude
+    private PointsBreakdown breakdown;
+
+    /**
+     * SHA-256 of the receipt content, used to recognise resubmitted receipts
+     */
+    @JsonIgnore
+    @Column(unique = true, length = 64)
+    private String contentHash;
+
+    /**
+     * Stored in one binary column of the receipt, with no row of their own. The column is the
+     * largest VARBINARY rather than a BLOB, so the items are read with the row; 1 MB holds tens
+     * of thousands of items.
+     */
+    @Convert(converter = ItemListConverter.class)
+    @Column(length = 1_048_576)
     private List<Item> items;
 
+    /**
+     * Whether the receipt was persisted or loaded. The id is assigned before a receipt is saved,
+     * so it cannot tell a new receipt apart, and a receipt with an id would otherwise be merged,
+     * with a select before every insert.
+     */
+    @Transient
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private boolean stored;
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !stored;
+    }
+
+    @PostPersist
+    void markStored() {
+        stored = true;
+    }
+
+    @PostLoad
+    void loaded() {
+        stored = true;
+        total = totalCents != null ? CentsConverter.format(totalCents) : totalText;
+    }
+
+    /**
+     * Assigns a random UUID to a receipt persisted without an id, and converts the total to the
+     * columns it is stored in. Receipts are given a time-ordered id from
+     * {@code ReceiptIdGenerator} before they are saved, this only covers receipts persisted
+     * without one.
+     */
+    @PrePersist
+    @PreUpdate
+    void beforeWrite() {
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+        totalCents = total == null ? null : CentsConverter.toCents(total);
+        totalText = totalCents == null ? total : null;
+    }
+
 }
@@ -0,0 +1,88 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * PointsCache is a bounded in-process cache of receipt id to points.
+ *
+ * Points only change when {@link RescoringJob} scores a stored receipt again, and it puts the new
+ * points in the cache, so the cache is filled when a receipt is saved and read through on a miss.
+ * Concurrent misses for the same id wait for a single load.
+ *
+ * The load runs on the calling thread outside of any map lock: the first caller publishes an
+ * incomplete future through the cache, which counts it as a load once it completes, and the
+ * others wait on it. A blocking JDBC load inside the cache's compute
+ * lock would pin a virtual thread to its carrier for the duration of the query.
+ */
+@Component
+public class PointsCache {
+
+    private final AsyncCache<String, Integer> cache;
+
+    public PointsCache(@Value("${receipts.points-cache.maximum-size:100000}") long maximumSize,
+                       @Value("${receipts.points-cache.expire-after-write:PT1H}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+    }
+
+    /**
+     * Method to get the points of a receipt, loading them on a miss
+     * @param id
+     * @param loader returns the points, or null when there is no receipt with the id
+     * @return
+     */
+    public Optional<Integer> get(String id, Function<String, Integer> loader) {
+        CompletableFuture<Integer> loading = new CompletableFuture<>();
+        // the mapping function only publishes the future, Caffeine counts the load when it completes
+        CompletableFuture<Integer> cached = cache.get(id, (key, executor) -> loading);
+        if (cached != loading) {
+            return Optional.ofNullable(cached.join());
+        }
+        try {
+            Integer points = loader.apply(id);
+            // a null result removes the entry, missing receipts are not cached
+            loading.complete(points);
+            return Optional.ofNullable(points);
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Method to store the points of a saved receipt
+     * @param id
+     * @param points
+     */
+    public void put(String id, int points) {
+        cache.put(id, CompletableFuture.completedFuture(points));
+    }
+
+    /**
+     * Method to get the hit, miss and eviction counters
+     * @return
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Method to get the approximate number of cached receipts
+     * @return
+     */
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+}
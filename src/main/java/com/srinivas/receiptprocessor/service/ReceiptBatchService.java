@@ -0,0 +1,259 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.BatchResultDTO;
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * ReceiptBatchService is a service class for saving many receipts at once.
+ *
+ * Every receipt is validated and scored on its own, the receipts are taken in chunks of the
+ * Hibernate JDBC batch size and the valid ones of a chunk are persisted in one transaction. The
+ * items are linked to their receipt before the insert, so a chunk is written as batched INSERTs
+ * only.
+ */
+@Slf4j
+@Service
+public class ReceiptBatchService {
+
+    /**
+     * Error returned for a receipt that fails validation
+     */
+    public static final String INVALID_RECEIPT = "The receipt is invalid";
+
+    /**
+     * Error returned for a receipt that could not be stored
+     */
+    public static final String NOT_SAVED = "The receipt could not be saved";
+
+    private final ReceiptService receiptService;
+
+    private final ReceiptStore receiptStore;
+
+    private final PointsCache pointsCache;
+
+    private final ReceiptDeduplicator receiptDeduplicator;
+
+    private final ReceiptMetrics receiptMetrics;
+
+    private final ReceiptRollups receiptRollups;
+
+    private final ReceiptIdGenerator receiptIdGenerator;
+
+    private final int chunkSize;
+
+    public ReceiptBatchService(ReceiptService receiptService,
+                               ReceiptStore receiptStore,
+                               PointsCache pointsCache,
+                               ReceiptDeduplicator receiptDeduplicator,
+                               ReceiptMetrics receiptMetrics,
+                               ReceiptRollups receiptRollups,
+                               ReceiptIdGenerator receiptIdGenerator,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int chunkSize) {
+        this.receiptService = receiptService;
+        this.receiptStore = receiptStore;
+        this.pointsCache = pointsCache;
+        this.receiptDeduplicator = receiptDeduplicator;
+        this.receiptMetrics = receiptMetrics;
+        this.receiptRollups = receiptRollups;
+        this.receiptIdGenerator = receiptIdGenerator;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Method to save a batch of receipts
+     * @param receipts
+     * @return one result per receipt, in the order of the request
+     */
+    public List<BatchResultDTO> saveAll(List<Receipt> receipts) {
+        log.debug("Saving batch of {} receipts", receipts.size());
+
+        List<BatchResultDTO> results = new ArrayList<>(receipts.size());
+        saveAll(receipts.iterator(), results::addAll);
+        return results;
+    }
+
+    /**
+     * Method to save a stream of receipts. At most one chunk of receipts is held at a time, the
+     * results of each chunk are handed to the consumer in input order once the chunk is stored.
+     * A null element stands for a receipt that could not be read and is rejected, an invalid
+     * receipt is rejected with the violations found before it is scored. Receipts that
+     * were already stored, or that repeat an earlier receipt of the same chunk, get the id of
+     * that receipt without being scored or stored again.
+     * @param receipts
+     * @param chunkResults
+     */
+    public void saveAll(Iterator<Receipt> receipts, Consumer<List<BatchResultDTO>> chunkResults) {
+        BatchResultDTO[] results = new BatchResultDTO[chunkSize];
+        List<Receipt> chunk = new ArrayList<>(chunkSize);
+        int[] positions = new int[chunkSize];
+        int[] duplicateOf = new int[chunkSize];
+        Map<String, Integer> chunkHashes = new HashMap<>();
+        int pending = 0;
+
+        while (receipts.hasNext()) {
+            Receipt receipt = receipts.next();
+            duplicateOf[pending] = -1;
+            List<ViolationDTO> violations = receipt == null ? null : receiptService.validate(receipt);
+            if (receipt == null) {
+                results[pending] = BatchResultDTO.rejected(INVALID_RECEIPT);
+                receiptService.rejected(RejectionReason.UNREADABLE);
+            } else if (!violations.isEmpty()) {
+                results[pending] = BatchResultDTO.rejected(INVALID_RECEIPT, violations);
+                receiptService.rejected(violations);
+            } else {
+                long start = receiptMetrics.start();
+                String contentHash = receiptDeduplicator.hash(receipt);
+                Optional<String> existingId = receiptDeduplicator.findExisting(contentHash);
+                Integer firstInChunk = chunkHashes.putIfAbsent(contentHash, pending);
+                receiptMetrics.record(ReceiptMetrics.Phase.DEDUP, start);
+                Receipt toSave = existingId.isPresent() || firstInChunk != null ? null : prepare(receipt);
+                if (existingId.isPresent()) {
+                    results[pending] = BatchResultDTO.saved(existingId.get());
+                    receiptMetrics.duplicate();
+                } else if (firstInChunk != null) {
+                    duplicateOf[pending] = firstInChunk;
+                    receiptMetrics.duplicate();
+                } else if (toSave == null) {
+                    results[pending] = BatchResultDTO.rejected(INVALID_RECEIPT);
+                    receiptService.rejected(RejectionReason.UNSCORABLE);
+                } else {
+                    toSave.setContentHash(contentHash);
+                    positions[chunk.size()] = pending;
+                    chunk.add(toSave);
+                }
+            }
+            pending++;
+            if (pending == chunkSize) {
+                persist(chunk, positions, results);
+                resolveDuplicates(duplicateOf, results, pending);
+                chunkResults.accept(Arrays.asList(results.clone()));
+                chunk.clear();
+                chunkHashes.clear();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            persist(chunk, positions, results);
+            resolveDuplicates(duplicateOf, results, pending);
+            chunkResults.accept(Arrays.asList(Arrays.copyOf(results, pending)));
+        }
+    }
+
+    private static void resolveDuplicates(int[] duplicateOf, BatchResultDTO[] results, int pending) {
+        for (int i = 0; i < pending; i++) {
+            if (duplicateOf[i] >= 0) {
+                results[i] = results[duplicateOf[i]];
+            }
+        }
+    }
+
+    /**
+     * Scores a validated receipt and builds the entity to store
+     * @param receipt
+     * @return the entity, or null when the receipt cannot be scored
+     */
+    Receipt prepare(Receipt receipt) {
+        try {
+            PointsBreakdown breakdown = receiptService.calculateBreakdown(receipt);
+            Receipt toSave = Receipt.builder()
+                    .id(receiptIdGenerator.next())
+                    .items(receipt.getItems())
+                    .points(breakdown.total())
+                    .breakdown(breakdown)
+                    .purchaseTime(receipt.getPurchaseTime())
+                    .purchaseDate(receipt.getPurchaseDate())
+                    .retailer(receipt.getRetailer())
+                    .total(receipt.getTotal())
+                    .build();
+            return toSave;
+        } catch (RuntimeException e) {
+            log.debug("Rejected receipt in batch: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Persists one chunk in a single transaction. If the chunk fails, its receipts are retried
+     * one by one so a single bad row does not reject the others. The receipts keep their ids but
+     * are marked new again, otherwise the retry would merge rows that were never written. A
+     * receipt refused because an identical receipt was stored meanwhile gets the id of that one.
+     */
+    private void persist(List<Receipt> chunk, int[] positions, BatchResultDTO[] results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        long start = receiptMetrics.start();
+        try {
+            receiptStore.saveAll(chunk);
+            for (int j = 0; j < chunk.size(); j++) {
+                results[positions[j]] = saved(chunk.get(j));
+            }
+        } catch (RuntimeException e) {
+            log.error("Error saving chunk of {} receipts, retrying one by one", chunk.size(), e);
+            for (int j = 0; j < chunk.size(); j++) {
+                Receipt receipt = chunk.get(j);
+                receipt.setStored(false);
+                try {
+                    receiptStore.save(receipt);
+                    results[positions[j]] = saved(receipt);
+                } catch (DataIntegrityViolationException single) {
+                    Optional<String> existing = stored(receipt);
+                    if (existing.isPresent()) {
+                        log.debug("Receipt in batch was stored concurrently as {}", existing.get());
+                        results[positions[j]] = BatchResultDTO.saved(existing.get());
+                        receiptMetrics.duplicate();
+                    } else {
+                        log.error("Error saving receipt in batch", single);
+                        results[positions[j]] = BatchResultDTO.rejected(NOT_SAVED);
+                        receiptService.rejected(RejectionReason.NOT_SAVED);
+                    }
+                } catch (RuntimeException single) {
+                    log.error("Error saving receipt in batch", single);
+                    results[positions[j]] = BatchResultDTO.rejected(NOT_SAVED);
+                    receiptService.rejected(RejectionReason.NOT_SAVED);
+                }
+            }
+        }
+        receiptMetrics.record(ReceiptMetrics.Phase.PERSIST_CHUNK, start);
+    }
+
+    /**
+     * Looks up the receipt stored with the content hash of a receipt whose insert broke a unique
+     * constraint, an identical receipt may have been stored since the chunk was checked
+     * @param receipt
+     * @return the id of the stored receipt, or empty when there is none or it cannot be looked up
+     */
+    private Optional<String> stored(Receipt receipt) {
+        try {
+            return receiptDeduplicator.findStored(receipt.getContentHash());
+        } catch (RuntimeException e) {
+            log.warn("Could not look up content hash of receipt in batch", e);
+            return Optional.empty();
+        }
+    }
+
+    private BatchResultDTO saved(Receipt receipt) {
+        pointsCache.put(receipt.getId(), receipt.getPoints());
+        receiptDeduplicator.remember(receipt.getContentHash(), receipt.getId());
+        receiptRollups.add(receipt);
+        receiptMetrics.accepted();
+        return BatchResultDTO.saved(receipt.getId());
+    }
+}
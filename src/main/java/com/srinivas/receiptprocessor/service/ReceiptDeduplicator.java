@@ -0,0 +1,170 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ReceiptDeduplicator recognises receipts that were already submitted.
+ *
+ * The content hash is a SHA-256 over the retailer, purchase date, purchase time, total and the
+ * description and price of every item in order, each field length-prefixed. The hash is stored
+ * in a unique column of the receipt; recently seen hashes are also kept in a bounded in-memory
+ * index so most retries are answered without a query.
+ */
+@Component
+public class ReceiptDeduplicator {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final ReceiptStore receiptStore;
+
+    private final Cache<String, String> index;
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder duplicates = new LongAdder();
+
+    public ReceiptDeduplicator(ReceiptStore receiptStore,
+                               @Value("${receipts.dedup.maximum-size:100000}") long maximumSize) {
+        this.receiptStore = receiptStore;
+        this.index = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    /**
+     * Method to compute the canonical content hash of a receipt
+     * @param receipt
+     * @return 64 hex characters
+     */
+    public String hash(Receipt receipt) {
+        MessageDigest digest = sha256();
+        update(digest, receipt.getRetailer());
+        update(digest, receipt.getPurchaseDate());
+        update(digest, receipt.getPurchaseTime());
+        update(digest, receipt.getTotal());
+        List<Item> items = receipt.getItems();
+        if (items != null) {
+            for (Item item : items) {
+                update(digest, item == null ? null : item.getShortDescription());
+                update(digest, item == null ? null : item.getPrice());
+            }
+        }
+        return HEX.formatHex(digest.digest());
+    }
+
+    /**
+     * Method to find the id of a receipt already stored with the same content hash
+     * @param hash
+     * @return
+     */
+    public Optional<String> findExisting(String hash) {
+        lookups.increment();
+        String id = index.getIfPresent(hash);
+        if (id == null) {
+            id = receiptStore.findIdByContentHash(hash).orElse(null);
+            if (id != null) {
+                index.put(hash, id);
+            }
+        }
+        if (id != null) {
+            duplicates.increment();
+        }
+        return Optional.ofNullable(id);
+    }
+
+    /**
+     * Method to find the id stored with a content hash after storing a receipt with it failed on
+     * the unique column. The store is asked rather than the index, and the receipt counts as a
+     * duplicate but not as another lookup, it was looked up before it was stored.
+     * @param hash
+     * @return
+     */
+    public Optional<String> findStored(String hash) {
+        Optional<String> id = receiptStore.findIdByContentHash(hash);
+        id.ifPresent(stored -> {
+            index.put(hash, stored);
+            duplicates.increment();
+        });
+        return id;
+    }
+
+    /**
+     * Method to record the id of a receipt accepted with the given content hash, unless another
+     * receipt claimed the hash first. Two identical receipts submitted at once both pass
+     * {@link #findExisting(String)}, only one of them gets the hash here.
+     * @param hash
+     * @param id
+     * @return the id the hash belongs to, another one when the receipt is a duplicate
+     */
+    public String remember(String hash, String id) {
+        if (hash == null) {
+            return id;
+        }
+        String owner = index.asMap().putIfAbsent(hash, id);
+        if (owner == null) {
+            return id;
+        }
+        if (!owner.equals(id)) {
+            duplicates.increment();
+        }
+        return owner;
+    }
+
+    /**
+     * Method to drop a hash whose receipt was accepted but could not be stored
+     * @param hash
+     * @param id the receipt, the hash is kept when it belongs to another one
+     */
+    public void forget(String hash, String id) {
+        if (hash != null) {
+            index.asMap().remove(hash, id);
+        }
+    }
+
+    /**
+     * Method to get the number of receipts checked for duplicates
+     * @return
+     */
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Method to get the number of receipts found to be duplicates
+     * @return
+     */
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(new byte[]{-1, -1, -1, -1});
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ItemDTO;
+import com.srinivas.receiptprocessor.DTO.ReceiptDTO;
+import com.srinivas.receiptprocessor.DTO.ReceiptPageDTO;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * ReceiptExportService reads the stored receipts back in the order of the {@link ReceiptStore}.
+ *
+ * Both pages and exports are keyset based: the cursor is the id of the last receipt returned and
+ * the next read starts right after it, so reading a page costs the same however far into the
+ * receipts it is and receipts stored in between do not shift the pages. An export streams every
+ * receipt through one sequential read of the store.
+ */
+@Service
+public class ReceiptExportService {
+
+    /**
+     * Largest number of receipts in one page
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReceiptStore receiptStore;
+
+    public ReceiptExportService(ReceiptStore receiptStore) {
+        this.receiptStore = receiptStore;
+    }
+
+    /**
+     * Method to get a page of receipts
+     * @param after the next cursor of the previous page, null for the first page
+     * @param limit between 1 and MAX_PAGE_SIZE
+     * @return
+     */
+    public ReceiptPageDTO page(String after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("The limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        // one more than the limit tells whether there is a next page without a count query
+        List<Receipt> receipts = receiptStore.findPageAfter(after, limit + 1);
+        boolean hasNext = receipts.size() > limit;
+        List<ReceiptDTO> page = new ArrayList<>(Math.min(limit, receipts.size()));
+        for (int i = 0; i < receipts.size() && i < limit; i++) {
+            page.add(toDTO(receipts.get(i)));
+        }
+        return new ReceiptPageDTO(page, hasNext ? page.get(page.size() - 1).getId() : null);
+    }
+
+    /**
+     * Method to export every receipt after a cursor, one at a time
+     * @param after the id of the last receipt already exported, null to export all of them
+     * @param consumer called once per receipt with its items
+     */
+    public void export(String after, Consumer<ReceiptDTO> consumer) {
+        receiptStore.forEachAfter(after, receipt -> consumer.accept(toDTO(receipt)));
+    }
+
+    private static ReceiptDTO toDTO(Receipt receipt) {
+        List<ItemDTO> items = new ArrayList<>(receipt.getItems().size());
+        for (Item item : receipt.getItems()) {
+            items.add(new ItemDTO(item.getShortDescription(), item.getPrice()));
+        }
+        return new ReceiptDTO(receipt.getId(), receipt.getRetailer(), receipt.getPurchaseDate(),
+                receipt.getPurchaseTime(), receipt.getTotal(), receipt.getPoints(), items);
+    }
+}
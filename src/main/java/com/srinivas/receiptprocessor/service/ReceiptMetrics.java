@@ -0,0 +1,193 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReceiptMetrics holds the Micrometer meters of receipt processing.
+ *
+ * <ul>
+ *     <li>receipts.phase: timer per phase of processing a receipt, tag phase</li>
+ *     <li>receipts.rule: timer per scoring rule, tag rule, recorded for a sample of the receipts</li>
+ *     <li>receipts.processed: counter of receipts, tag outcome accepted, duplicate or rejected</li>
+ *     <li>receipts.rejections: counter of the reasons receipts were rejected for, tag reason; a
+ *     receipt with several violations counts once per violation</li>
+ *     <li>receipts.items: distribution of the number of items of the receipts scored</li>
+ * </ul>
+ *
+ * All meters are registered up front and publish percentile histograms, so recording is a
+ * lookup in an array and a few lock-free increments. A rule takes tens of nanoseconds, about as
+ * long as reading the clock, so the rules are timed one by one only for every n-th receipt on
+ * average; the other receipts are scored in a single pass and only the whole score is timed.
+ */
+@Component
+public class ReceiptMetrics {
+
+    /**
+     * The phases of processing a receipt
+     */
+    public enum Phase {
+        DESERIALIZE, DEDUP, VALIDATE, SCORE, PERSIST, PERSIST_CHUNK
+    }
+
+    /**
+     * The scoring rules
+     */
+    public enum Rule {
+        RETAILER_NAME, ROUND_DOLLAR, MULTIPLE_OF_25, ITEM_PAIRS, DESCRIPTION_LENGTH, PURCHASE_DATE, PURCHASE_TIME
+    }
+
+    private final Timer[] phases = new Timer[Phase.values().length];
+
+    private final Timer[] rules = new Timer[Rule.values().length];
+
+    private final Counter accepted;
+
+    private final Counter duplicate;
+
+    private final Counter rejected;
+
+    private final Counter[] rejections = new Counter[RejectionReason.values().length];
+
+    private final Map<String, Counter> rejectionsByCode = new HashMap<>();
+
+    private final DistributionSummary items;
+
+    private final int ruleSampleRate;
+
+    public ReceiptMetrics(MeterRegistry registry,
+                          @Value("${receipts.metrics.rule-sample-rate:64}") int ruleSampleRate) {
+        for (Phase phase : Phase.values()) {
+            phases[phase.ordinal()] = Timer.builder("receipts.phase")
+                    .description("Time spent in one phase of processing a receipt")
+                    .tag("phase", tagValue(phase))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        for (Rule rule : Rule.values()) {
+            rules[rule.ordinal()] = Timer.builder("receipts.rule")
+                    .description("Time spent in one scoring rule, for a sample of the receipts")
+                    .tag("rule", tagValue(rule))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        this.accepted = processed(registry, "accepted");
+        this.duplicate = processed(registry, "duplicate");
+        this.rejected = processed(registry, "rejected");
+        for (RejectionReason reason : RejectionReason.values()) {
+            rejections[reason.ordinal()] = Counter.builder("receipts.rejections")
+                    .description("Reasons receipts were rejected for")
+                    .tag("reason", reason.getCode())
+                    .register(registry);
+            rejectionsByCode.put(reason.getCode(), rejections[reason.ordinal()]);
+        }
+        this.items = DistributionSummary.builder("receipts.items")
+                .description("Number of items of a receipt")
+                .baseUnit("items")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.ruleSampleRate = Math.max(1, ruleSampleRate);
+    }
+
+    /**
+     * Method to read the clock at the start of a phase or rule
+     * @return
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Method to record the time of a phase
+     * @param phase
+     * @param start the value of start() when the phase began
+     */
+    public void record(Phase phase, long start) {
+        phases[phase.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Method to record the time of a scoring rule
+     * @param rule
+     * @param start the value of start() when the rule began
+     */
+    public void record(Rule rule, long start) {
+        rules[rule.ordinal()].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Method to decide whether the rules of the next receipt are timed one by one
+     * @return
+     */
+    public boolean sampleRules() {
+        return ruleSampleRate == 1 || ThreadLocalRandom.current().nextInt(ruleSampleRate) == 0;
+    }
+
+    /**
+     * Method to record the number of items of a scored receipt
+     * @param count
+     */
+    public void items(int count) {
+        items.record(count);
+    }
+
+    /**
+     * Method to count a receipt that was stored or accepted for storing
+     */
+    public void accepted() {
+        accepted.increment();
+    }
+
+    /**
+     * Method to count a receipt answered with the id of an identical receipt
+     */
+    public void duplicate() {
+        duplicate.increment();
+    }
+
+    /**
+     * Method to count a receipt that was rejected for one reason
+     * @param reason
+     */
+    public void rejected(RejectionReason reason) {
+        rejected.increment();
+        rejections[reason.ordinal()].increment();
+    }
+
+    /**
+     * Method to count a receipt that failed validation, once per violation
+     * @param violations
+     */
+    public void rejected(List<ViolationDTO> violations) {
+        rejected.increment();
+        for (ViolationDTO violation : violations) {
+            Counter counter = rejectionsByCode.get(violation.getReason());
+            if (counter != null) {
+                counter.increment();
+            }
+        }
+    }
+
+    private static Counter processed(MeterRegistry registry, String outcome) {
+        return Counter.builder("receipts.processed")
+                .description("Receipts processed, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,208 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.RollupDTO;
+import com.srinivas.receiptprocessor.jpa.RollupRow;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * ReceiptRollups keeps the number of receipts and the total points per retailer, per purchase
+ * date and over all receipts.
+ *
+ * The rollups are loaded from the store when the application starts, with one GROUP BY per
+ * grouping or one pass over the log, and are then updated by every receipt stored, so reading
+ * them costs time in the number of groups and never scans the receipts. The counters are
+ * LongAdders, which spread concurrent increments of a popular retailer or day over separate
+ * cells. The receipt count and the points of a group are two counters, so a reader running at
+ * the same time as a save can see one updated before the other.
+ *
+ * Every retailer added is also added to the {@link RetailerLeaderboard}, so the rankings follow
+ * the same receipts as the rollups. A receipt is added to both under a shared lock that
+ * {@link #rerank()} takes exclusively, so a receipt is either in the rollups the new rankings are
+ * built from or added to the new rankings after they replace the old ones, never missed or
+ * counted twice.
+ */
+@Slf4j
+@Component
+public class ReceiptRollups {
+
+    private final ReceiptStore receiptStore;
+
+    private final RetailerLeaderboard retailerLeaderboard;
+
+    private final Map<String, Rollup> byRetailer = new ConcurrentHashMap<>();
+
+    private final Map<String, Rollup> byPurchaseDate = new ConcurrentHashMap<>();
+
+    private final Rollup all = new Rollup();
+
+    private final ReadWriteLock rankLock = new ReentrantReadWriteLock();
+
+    public ReceiptRollups(ReceiptStore receiptStore, RetailerLeaderboard retailerLeaderboard) {
+        this.receiptStore = receiptStore;
+        this.retailerLeaderboard = retailerLeaderboard;
+    }
+
+    /**
+     * Loads the rollups of the receipts stored before the application started
+     */
+    @PostConstruct
+    void load() {
+        ReceiptStore.Rollups rollups = receiptStore.rollups();
+        for (RollupRow row : rollups.byRetailer()) {
+            all.add(row.getReceipts(), row.getPoints());
+            if (row.getGroupKey() != null) {
+                rollup(byRetailer, row.getGroupKey()).add(row.getReceipts(), row.getPoints());
+                retailerLeaderboard.add(row.getGroupKey(), row.getReceipts(), row.getPoints());
+            }
+        }
+        for (RollupRow row : rollups.byPurchaseDate()) {
+            if (row.getGroupKey() != null) {
+                rollup(byPurchaseDate, row.getGroupKey()).add(row.getReceipts(), row.getPoints());
+            }
+        }
+        log.debug("Loaded rollups of {} retailers and {} days", byRetailer.size(), byPurchaseDate.size());
+    }
+
+    /**
+     * Method to add a stored receipt to the rollups
+     * @param receipt
+     */
+    public void add(Receipt receipt) {
+        rankLock.readLock().lock();
+        try {
+            rollup(byRetailer, receipt.getRetailer()).add(1, receipt.getPoints());
+            rollup(byPurchaseDate, receipt.getPurchaseDate()).add(1, receipt.getPoints());
+            all.add(1, receipt.getPoints());
+            retailerLeaderboard.add(receipt.getRetailer(), 1, receipt.getPoints());
+        } finally {
+            rankLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to change the points of a stored receipt in the rollups. The leaderboard only takes
+     * points added, it follows lowered points once {@link #rerank()} is called.
+     * @param receipt the stored receipt with its old points
+     * @param points its new points
+     */
+    public void rescored(Receipt receipt, int points) {
+        long change = points - receipt.getPoints();
+        rankLock.readLock().lock();
+        try {
+            rollup(byRetailer, receipt.getRetailer()).add(0, change);
+            rollup(byPurchaseDate, receipt.getPurchaseDate()).add(0, change);
+            all.add(0, change);
+            retailerLeaderboard.add(receipt.getRetailer(), 0, change);
+        } finally {
+            rankLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method to rank the retailers of the leaderboard again from the rollups, after the points
+     * of stored receipts were changed. Receipts stored meanwhile wait until the new rankings are
+     * in place.
+     */
+    public void rerank() {
+        rankLock.writeLock().lock();
+        try {
+            retailerLeaderboard.rebuild(byRetailer());
+        } finally {
+            rankLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Method to get the rollup of all receipts
+     * @return
+     */
+    public RollupDTO total() {
+        return all.toDTO(null);
+    }
+
+    /**
+     * Method to get the rollups of every retailer, ordered by retailer
+     * @return
+     */
+    public List<RollupDTO> byRetailer() {
+        return list(byRetailer);
+    }
+
+    /**
+     * Method to get the rollup of one retailer
+     * @param retailer
+     * @return
+     */
+    public Optional<RollupDTO> forRetailer(String retailer) {
+        return Optional.ofNullable(byRetailer.get(retailer)).map(rollup -> rollup.toDTO(retailer));
+    }
+
+    /**
+     * Method to get the rollups of every purchase date, ordered by date
+     * @return
+     */
+    public List<RollupDTO> byPurchaseDate() {
+        return list(byPurchaseDate);
+    }
+
+    /**
+     * Method to get the rollup of one purchase date
+     * @param purchaseDate
+     * @return
+     */
+    public Optional<RollupDTO> forPurchaseDate(String purchaseDate) {
+        return Optional.ofNullable(byPurchaseDate.get(purchaseDate)).map(rollup -> rollup.toDTO(purchaseDate));
+    }
+
+    private static Rollup rollup(Map<String, Rollup> rollups, String key) {
+        Rollup rollup = rollups.get(key);
+        return rollup != null ? rollup : rollups.computeIfAbsent(key, k -> new Rollup());
+    }
+
+    private static List<RollupDTO> list(Map<String, Rollup> rollups) {
+        List<RollupDTO> result = new ArrayList<>(rollups.size());
+        rollups.forEach((key, rollup) -> result.add(rollup.toDTO(key)));
+        result.sort(Comparator.comparing(RollupDTO::getKey));
+        return result;
+    }
+
+    /**
+     * The counters of one group
+     */
+    private static final class Rollup {
+
+        private final LongAdder receipts = new LongAdder();
+
+        private final LongAdder points = new LongAdder();
+
+        void add(long receiptCount, long pointCount) {
+            receipts.add(receiptCount);
+            points.add(pointCount);
+        }
+
+        RollupDTO toDTO(String key) {
+            long receiptCount = receipts.sum();
+            long pointCount = points.sum();
+            return RollupDTO.builder()
+                    .key(key)
+                    .receipts(receiptCount)
+                    .totalPoints(pointCount)
+                    .averagePoints(receiptCount == 0 ? 0 : (double) pointCount / receiptCount)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ScoreResultDTO;
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import com.srinivas.receiptprocessor.config.ScoreProperties;
+import com.srinivas.receiptprocessor.model.Receipt;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * ReceiptScoringService scores receipts without storing them, for clients that want to know the
+ * points of receipts before they send them.
+ *
+ * Every receipt is validated with the {@link ReceiptValidator} and scored with the
+ * {@link ScoringEngine} a receipt that is saved goes through, so it gets the same points or the
+ * same violations. Both are called directly rather than through {@link ReceiptService}, so
+ * nothing is stored, cached, counted as processed or rejected, or recorded in the phase timers
+ * and items summary of saved receipts. The receipts of a request are scored in
+ * parallel on a ForkJoinPool of {@code parallelism} threads, apart from the common pool and the
+ * request threads, whose idle workers steal from the busy ones so a few receipts with many
+ * items do not hold up the rest. Newline-delimited JSON uploads are also parsed on these threads,
+ * a JSON array is parsed on the request thread before it is scored.
+ */
+@Slf4j
+@Service
+public class ReceiptScoringService {
+
+    /**
+     * Receipts scored on the request thread, below which the hand-off costs more than it saves
+     */
+    static final int PARALLEL_THRESHOLD = 64;
+
+    private final ReceiptValidator receiptValidator;
+
+    private final ScoringEngine scoringEngine;
+
+    private final ForkJoinPool pool;
+
+    private final int chunkSize;
+
+    public ReceiptScoringService(ReceiptValidator receiptValidator, ScoringEngine scoringEngine, ScoreProperties properties) {
+        this.receiptValidator = receiptValidator;
+        this.scoringEngine = scoringEngine;
+        int parallelism = properties.parallelism() > 0 ? properties.parallelism() : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("receipt-score-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        this.chunkSize = Math.max(1, properties.chunkSize());
+    }
+
+    /**
+     * Method to score a list of receipts
+     * @param receipts
+     * @return one result per receipt, in the order of the request
+     */
+    public List<ScoreResultDTO> scoreAll(List<Receipt> receipts) {
+        log.debug("Scoring {} receipts", receipts.size());
+
+        return scoreAll(receipts, Function.identity());
+    }
+
+    /**
+     * Method to score a stream of receipts that are still to be read, such as the lines of an
+     * upload. The inputs are read on the scoring threads as well, rather than one after another
+     * on the request thread. At most one chunk of inputs is held at a time, the results of each
+     * chunk are handed to the consumer in input order.
+     * @param inputs
+     * @param reader turns an input into its receipt, or into null when it cannot be read
+     * @param chunkResults
+     * @param <T>
+     */
+    public <T> void scoreAll(Iterator<T> inputs, Function<T, Receipt> reader, Consumer<List<ScoreResultDTO>> chunkResults) {
+        List<T> chunk = new ArrayList<>(chunkSize);
+        while (inputs.hasNext()) {
+            chunk.add(inputs.next());
+            if (chunk.size() == chunkSize) {
+                chunkResults.accept(scoreAll(chunk, reader));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkResults.accept(scoreAll(chunk, reader));
+        }
+    }
+
+    private <T> List<ScoreResultDTO> scoreAll(List<T> inputs, Function<T, Receipt> reader) {
+        ScoreResultDTO[] results = new ScoreResultDTO[inputs.size()];
+        if (inputs.size() < PARALLEL_THRESHOLD || pool.getParallelism() == 1) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = score(reader.apply(inputs.get(i)));
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, results.length).parallel()
+                    .forEach(i -> results[i] = score(reader.apply(inputs.get(i))))).join();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Method to score one receipt
+     * @param receipt the receipt, null when it could not be read
+     * @return the points, or the violations when the receipt is invalid
+     */
+    ScoreResultDTO score(Receipt receipt) {
+        if (receipt == null) {
+            return ScoreResultDTO.rejected(ReceiptBatchService.INVALID_RECEIPT);
+        }
+        List<ViolationDTO> violations = receiptValidator.validate(receipt);
+        if (!violations.isEmpty()) {
+            return ScoreResultDTO.rejected(ReceiptBatchService.INVALID_RECEIPT, violations);
+        }
+        try {
+            return ScoreResultDTO.scored(scoringEngine.score(receipt));
+        } catch (RuntimeException e) {
+            log.debug("Could not score receipt: {}", e.toString());
+            return ScoreResultDTO.rejected(ReceiptBatchService.INVALID_RECEIPT);
+        }
+    }
+
+    /**
+     * Method to stop the scoring threads on shutdown
+     */
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+}
@@ -1,20 +1,16 @@
 package com.srinivas.receiptprocessor.service;
 
-import com.srinivas.receiptprocessor.DTO.PostResponseDTO;
-import com.srinivas.receiptprocessor.jpa.ItemRepository;
-import com.srinivas.receiptprocessor.jpa.ReceiptRepository;
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
 import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
 import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.validator.GenericValidator;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
-import java.text.DecimalFormat;
-import java.text.ParseException;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,109 +25,228 @@ public class ReceiptService {
 
 
     /**
-     * ReceiptRepository object
+     * ReceiptStore object
      */
-    public ReceiptRepository receiptRepository;
+    public ReceiptStore receiptStore;
 
     /**
-     * ItemRepository object
+     * PointsCache object
      */
-    public ItemRepository itemRepository;
-
+    public PointsCache pointsCache;
 
+    /**
+     * WriteBehindWriter object
+     */
+    public WriteBehindWriter writeBehindWriter;
 
+    /**
+     * ReceiptDeduplicator object
+     */
+    public ReceiptDeduplicator receiptDeduplicator;
 
     /**
-     * Method to check data and time
-     * @param purchaseDate, purchaseTime
-     * @return
-     * @throws ParseException
+     * ScoringEngine object
      */
+    public ScoringEngine scoringEngine;
 
+    /**
+     * ReceiptMetrics object
+     */
+    public ReceiptMetrics receiptMetrics;
 
-    public boolean checkDateTime(String purchaseDate, String  purchaseTime){
-        log.debug("Checking date and time");
+    /**
+     * ReceiptValidator object
+     */
+    public ReceiptValidator receiptValidator;
 
-        GenericValidator genericValidator = new GenericValidator();
+    /**
+     * RejectionLog object
+     */
+    public RejectionLog rejectionLog;
 
-        LocalDate currentDate = LocalDate.now();
-        LocalTime currentTime = LocalTime.now();
+    /**
+     * ReceiptRollups object
+     */
+    public ReceiptRollups receiptRollups;
 
+    /**
+     * ReceiptIdGenerator object
+     */
+    public ReceiptIdGenerator receiptIdGenerator;
 
-        LocalDate receiptDate = LocalDate.parse(purchaseDate, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-        LocalTime receiptTime = LocalTime.parse(purchaseTime, DateTimeFormatter.ofPattern("HH:mm"));
 
 
 
-        if (receiptDate.isEqual(currentDate)) {
-            if (receiptTime.isAfter(currentTime)) {
-                log.debug("Checking date and time end");
-                return false;
-            }
-        } else if (receiptDate.isAfter(currentDate)) {
-            log.debug("Checking date and time end");
-            return false;
-        }
+    /**
+     * Method to check data and time
+     * @param purchaseDate, purchaseTime
+     * @return true when both are valid and not in the future
+     */
+    public boolean checkDateTime(String purchaseDate, String  purchaseTime){
+        return receiptValidator.isValidPurchaseDateTime(purchaseDate, purchaseTime);
+    }
 
-        log.debug("Checking date and time end");
-        return genericValidator.isDate(purchaseDate, "yyyy-MM-dd", true);
+    /**
+     * Method to validate every field of a receipt
+     * @param receipt
+     * @return the violations found, empty when the receipt is valid
+     */
+    public List<ViolationDTO> validate(Receipt receipt){
+        long start = receiptMetrics.start();
+        List<ViolationDTO> violations = receiptValidator.validate(receipt);
+        receiptMetrics.record(ReceiptMetrics.Phase.VALIDATE, start);
+        return violations;
     }
 
 
     /**
-     * Method to save the receipt
+     * Method to save the receipt. An invalid receipt, or one the write-behind queue has no room
+     * for, is returned as a rejected result instead of thrown.
      * @param receipt
      * @return
-     * @throws Exception
      */
-    public PostResponseDTO save(Receipt receipt) throws Exception {
+    public SaveResult save(Receipt receipt) {
 
         try{
             log.debug("Saving receipt: {}", receipt);
 
-            int points = calculatePoints(receipt);
+            List<ViolationDTO> violations = validate(receipt);
+            if (!violations.isEmpty()) {
+                rejected(violations);
+                return SaveResult.invalid(violations);
+            }
 
-            if(!checkDateTime(receipt.getPurchaseDate(), receipt.getPurchaseTime())){
-                throw new Exception("The receipt is invalid");
+            long start = receiptMetrics.start();
+            String contentHash = receiptDeduplicator.hash(receipt);
+            Optional<String> existingId = receiptDeduplicator.findExisting(contentHash);
+            receiptMetrics.record(ReceiptMetrics.Phase.DEDUP, start);
+            if (existingId.isPresent()) {
+                log.debug("Duplicate of receipt: {}", existingId.get());
+                receiptMetrics.duplicate();
+                return SaveResult.duplicate(existingId.get());
             }
 
+            PointsBreakdown breakdown = calculateBreakdown(receipt);
+            int points = breakdown.total();
+
             Receipt toSave =
                     Receipt.builder()
-                            .id(receipt.getId())
+                            .id(receiptIdGenerator.next())
                             .items(receipt.getItems())
                             .points(points)
+                            .breakdown(breakdown)
                             .purchaseTime(receipt.getPurchaseTime())
                             .purchaseDate(receipt.getPurchaseDate())
                             .retailer(receipt.getRetailer())
                             .total(receipt.getTotal())
+                            .contentHash(contentHash)
                             .build();
-            Receipt savedReceipt = receiptRepository.save(toSave);
 
-            List<Item> items = receipt.getItems().stream()
-                    .peek(item -> item.setReceipt(savedReceipt)).toList();
+            start = receiptMetrics.start();
+            if (writeBehindWriter.isEnabled()) {
+                String owner = receiptDeduplicator.remember(contentHash, toSave.getId());
+                if (!owner.equals(toSave.getId())) {
+                    // an identical receipt was accepted concurrently
+                    log.debug("Duplicate of receipt: {}", owner);
+                    receiptMetrics.duplicate();
+                    return SaveResult.duplicate(owner);
+                }
+                if (!writeBehindWriter.submit(toSave)) {
+                    rejected(RejectionReason.UNAVAILABLE);
+                    return SaveResult.unavailable();
+                }
+                receiptMetrics.record(ReceiptMetrics.Phase.PERSIST, start);
+                receiptMetrics.accepted();
+                log.debug("Receipt accepted: {}", toSave);
+                return SaveResult.saved(toSave.getId());
+            }
+
+            Receipt savedReceipt;
+            try {
+                savedReceipt = receiptStore.save(toSave);
+            } catch (DataIntegrityViolationException e) {
+                // an identical receipt was stored concurrently
+                Optional<String> concurrentId = receiptDeduplicator.findStored(contentHash);
+                if (concurrentId.isPresent()) {
+                    receiptMetrics.duplicate();
+                    return SaveResult.duplicate(concurrentId.get());
+                }
+                throw e;
+            }
 
-            itemRepository.saveAll(items);
+            receiptMetrics.record(ReceiptMetrics.Phase.PERSIST, start);
+            receiptMetrics.accepted();
+            pointsCache.put(savedReceipt.getId(), points);
+            receiptRollups.add(toSave);
+            receiptDeduplicator.remember(contentHash, savedReceipt.getId());
 
             log.debug("Receipt saved: {}", savedReceipt);
-            return new PostResponseDTO( savedReceipt.getId());
+            return SaveResult.saved(savedReceipt.getId());
         }
-        catch (Exception e){
-            System.out.println(e);
-            log.error("Error saving receipt: {}", e);
+        catch (RuntimeException e){
+            receiptMetrics.rejected(RejectionReason.NOT_SAVED);
+            log.error("Error saving receipt", e);
             throw e;
         }
 
     }
 
+    /**
+     * Method to count and log a receipt that failed validation
+     * @param violations
+     */
+    public void rejected(List<ViolationDTO> violations){
+        receiptMetrics.rejected(violations);
+        rejectionLog.rejected(violations);
+    }
+
+    /**
+     * Method to count and log a receipt rejected for one reason
+     * @param reason
+     */
+    public void rejected(RejectionReason reason){
+        receiptMetrics.rejected(reason);
+        rejectionLog.rejected(reason);
+    }
+
     /**
      * Method to calculate points
      * @param id
      * @return
      */
     public int getPoints(String id){
-        Receipt receipt = receiptRepository.findById(id).get();
-        log.debug("Getting points for receipt: {}", receipt);
-        return receipt.getPoints();
+        return findPoints(id).get();
+    }
+
+    /**
+     * Method to get the points for a receipt, served from the receipts accepted but not yet
+     * stored or from the points cache
+     * @param id
+     * @return the points, or empty when there is no receipt with the id
+     */
+    public Optional<Integer> findPoints(String id){
+        log.debug("Getting points for receipt: {}", id);
+        Optional<Integer> inFlight = writeBehindWriter.inFlightPoints(id);
+        if (inFlight.isPresent()) {
+            return inFlight;
+        }
+        return pointsCache.get(id, key -> receiptStore.findPointsById(key).orElse(null));
+    }
+
+    /**
+     * Method to get the points every rule gave a receipt when it was scored, served from the
+     * receipts accepted but not yet stored or from the stored breakdown, without scoring it again
+     * @param id
+     * @return the breakdown, or empty when there is no receipt with the id or it was stored
+     * without a breakdown
+     */
+    public Optional<PointsBreakdown> findBreakdown(String id){
+        log.debug("Getting points breakdown for receipt: {}", id);
+        Optional<PointsBreakdown> inFlight = writeBehindWriter.inFlightBreakdown(id);
+        if (inFlight.isPresent()) {
+            return inFlight;
+        }
+        return receiptStore.findBreakdownById(id);
     }
 
 
@@ -141,9 +256,7 @@ public class ReceiptService {
      * @return
      */
     public int calculateRetailerNamePoints(String retailer){
-        String retailerAlphaNumeric = retailer.replaceAll("[^A-Za-z0-9]", "");
-        log.debug("Retailer name: {}", retailerAlphaNumeric);
-        return retailerAlphaNumeric.length();
+        return scoringEngine.retailerNamePoints(retailer);
     }
 
     /**
@@ -152,13 +265,7 @@ public class ReceiptService {
      * @return
      */
     public int calculateRoundDollarPoints(String total){
-        DecimalFormat df = new DecimalFormat("0.00");
-        log.debug("Total: {}", total);
-        double totalDouble = Double.parseDouble(total);
-        if(Double.parseDouble(df.format(totalDouble % 1)) == 0){
-            return 50;
-        }
-        return 0;
+        return scoringEngine.roundDollarPoints(total);
     }
 
     /**
@@ -167,13 +274,7 @@ public class ReceiptService {
      * @return
      */
     public int calculateMultipleOf25Points(String total){
-        DecimalFormat df = new DecimalFormat("0.00");
-        double totalDouble = Double.parseDouble(total);
-        log.debug("Total: {}", total);
-        if(Double.parseDouble(df.format(totalDouble % 0.25)) == 0){
-            return 25;
-        }
-        return 0;
+        return scoringEngine.multipleOf25Points(total);
     }
 
     /**
@@ -182,8 +283,7 @@ public class ReceiptService {
      * @return
      */
     public int calculateTwoItemPoints(int size){
-        log.debug("Number of items: {}", size);
-        return (size/2)*5;
+        return scoringEngine.twoItemPoints(size);
     }
 
     /**
@@ -192,17 +292,7 @@ public class ReceiptService {
      * @return
      */
     public int calculateTrimmedLengthPoints(List<Item> items){
-        int points = 0;
-
-        for(Item item: items){
-            if(item.getShortDescription().trim().length() % 3 == 0){
-                points += Math.ceil(Double.parseDouble(item.getPrice()) * 0.2);
-
-            }
-        }
-
-        log.debug("Trimmed length points: {}", points);
-        return points;
+        return scoringEngine.trimmedLengthPoints(items);
     }
 
 
@@ -212,13 +302,7 @@ public class ReceiptService {
      * @return
      */
     public int purchaseDatePoints(String purchaseDate){
-        String[] dateParts = purchaseDate.split("-");
-        int day = Integer.parseInt(dateParts[2]);
-        log.debug("Day: {}", day);
-        if(day% 2 != 0){
-            return 6;
-        }
-        return 0;
+        return scoringEngine.purchaseDatePoints(purchaseDate);
     }
 
     /**
@@ -227,14 +311,7 @@ public class ReceiptService {
      * @return
      */
     public int purchaseTimePoints(String purchaseTime){
-        String[] timeParts = purchaseTime.split(":");
-        int hours = Integer.parseInt(timeParts[0]);
-        int minutes = Integer.parseInt(timeParts[1]);
-
-        if((hours>14 || (hours == 14 && minutes > 0))&& hours <16){
-            return 10;
-        }
-        return 0;
+        return scoringEngine.purchaseTimePoints(purchaseTime);
     }
 
 
@@ -244,19 +321,60 @@ public class ReceiptService {
      * @return
      */
     public int calculatePoints(Receipt receipt){
+        return calculateBreakdown(receipt).total();
+    }
 
-        int points = 0;
-        points+=calculateRetailerNamePoints(receipt.getRetailer());
-        points+=calculateRoundDollarPoints(receipt.getTotal());
-        points+=calculateMultipleOf25Points(receipt.getTotal());
-        points+=calculateTwoItemPoints(receipt.getItems().size());
-        points+= calculateTrimmedLengthPoints(receipt.getItems());
-        points+= purchaseDatePoints(receipt.getPurchaseDate());
-        points+= purchaseTimePoints(receipt.getPurchaseTime());
+    /**
+     * Method to calculate the points every rule gives a receipt
+     * @param receipt
+     * @return
+     */
+    public PointsBreakdown calculateBreakdown(Receipt receipt){
+
+        long start = receiptMetrics.start();
+        PointsBreakdown breakdown = receiptMetrics.sampleRules() ? calculateBreakdownByRule(receipt) : scoringEngine.breakdown(receipt);
+        receiptMetrics.record(ReceiptMetrics.Phase.SCORE, start);
+        receiptMetrics.items(receipt.getItems().size());
 
-        log.debug("Total points: {}", points);
+        log.debug("Points breakdown: {}", breakdown);
+
+        return breakdown;
+    }
 
-        return points;
+    /**
+     * Method to calculate the points one rule at a time, timing every rule
+     * @param receipt
+     * @return
+     */
+    private PointsBreakdown calculateBreakdownByRule(Receipt receipt){
+        long start = receiptMetrics.start();
+        int retailerName = calculateRetailerNamePoints(receipt.getRetailer());
+        receiptMetrics.record(ReceiptMetrics.Rule.RETAILER_NAME, start);
+
+        start = receiptMetrics.start();
+        int roundDollar = calculateRoundDollarPoints(receipt.getTotal());
+        receiptMetrics.record(ReceiptMetrics.Rule.ROUND_DOLLAR, start);
+
+        start = receiptMetrics.start();
+        int quarterMultiple = calculateMultipleOf25Points(receipt.getTotal());
+        receiptMetrics.record(ReceiptMetrics.Rule.MULTIPLE_OF_25, start);
+
+        start = receiptMetrics.start();
+        int itemPairs = calculateTwoItemPoints(receipt.getItems().size());
+        receiptMetrics.record(ReceiptMetrics.Rule.ITEM_PAIRS, start);
+
+        start = receiptMetrics.start();
+        int descriptionLength = calculateTrimmedLengthPoints(receipt.getItems());
+        receiptMetrics.record(ReceiptMetrics.Rule.DESCRIPTION_LENGTH, start);
+
+        start = receiptMetrics.start();
+        int oddDay = purchaseDatePoints(receipt.getPurchaseDate());
+        receiptMetrics.record(ReceiptMetrics.Rule.PURCHASE_DATE, start);
+
+        start = receiptMetrics.start();
+        int timeWindow = purchaseTimePoints(receipt.getPurchaseTime());
+        receiptMetrics.record(ReceiptMetrics.Rule.PURCHASE_TIME, start);
+        return new PointsBreakdown(retailerName, roundDollar, quarterMultiple, itemPairs, descriptionLength, oddDay, timeWindow);
     }
 
     /**
@@ -266,6 +384,6 @@ public class ReceiptService {
      */
     public Optional<Receipt> findById(String id) {
         log.debug("Getting receipt by id: {}", id);
-        return receiptRepository.findById(id);
+        return receiptStore.findById(id);
     }
 }
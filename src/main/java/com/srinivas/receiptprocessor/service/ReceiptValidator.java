@@ -0,0 +1,262 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReceiptValidator checks a receipt before any scoring or storing is done.
+ *
+ * It enforces the constraints declared on {@link Receipt} and {@link Item} and rejects receipts
+ * dated after the current time of the clock. Every field is checked in one pass with plain
+ * character tests instead of regular expressions or formatters, and every problem found is
+ * reported. A valid receipt allocates nothing but the current date and time.
+ */
+@Component
+public class ReceiptValidator {
+
+    private static final int INVALID = -1;
+
+    private final Clock clock;
+
+    public ReceiptValidator(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Method to validate a receipt
+     * @param receipt
+     * @return the violations found, empty when the receipt is valid
+     */
+    public List<ViolationDTO> validate(Receipt receipt) {
+        List<ViolationDTO> violations = null;
+
+        if (isBlank(receipt.getRetailer())) {
+            violations = add(violations, "retailer", RejectionReason.RETAILER_BLANK);
+        }
+
+        String purchaseDate = receipt.getPurchaseDate();
+        int date = INVALID;
+        if (isBlank(purchaseDate)) {
+            violations = add(violations, "purchaseDate", RejectionReason.DATE_BLANK);
+        } else {
+            date = parseDate(purchaseDate);
+            if (date == INVALID) {
+                violations = add(violations, "purchaseDate", RejectionReason.DATE_FORMAT);
+            }
+        }
+
+        String purchaseTime = receipt.getPurchaseTime();
+        int minuteOfDay = INVALID;
+        if (isBlank(purchaseTime)) {
+            violations = add(violations, "purchaseTime", RejectionReason.TIME_BLANK);
+        } else {
+            minuteOfDay = parseTime(purchaseTime);
+            if (minuteOfDay == INVALID) {
+                violations = add(violations, "purchaseTime", RejectionReason.TIME_FORMAT);
+            }
+        }
+
+        if (date != INVALID && isInFuture(date, minuteOfDay)) {
+            violations = add(violations, "purchaseDate", RejectionReason.DATE_FUTURE);
+        }
+
+        String total = receipt.getTotal();
+        if (isBlank(total)) {
+            violations = add(violations, "total", RejectionReason.TOTAL_BLANK);
+        } else if (!isNumber(total)) {
+            violations = add(violations, "total", RejectionReason.TOTAL_FORMAT);
+        }
+
+        List<Item> items = receipt.getItems();
+        if (items == null) {
+            violations = add(violations, "items", RejectionReason.ITEMS_MISSING);
+        } else {
+            for (int i = 0; i < items.size(); i++) {
+                violations = validate(items.get(i), i, violations);
+            }
+        }
+
+        return violations == null ? List.of() : violations;
+    }
+
+    /**
+     * Method to check only the purchase date and time of a receipt
+     * @param purchaseDate
+     * @param purchaseTime
+     * @return true when both are valid and not in the future
+     */
+    public boolean isValidPurchaseDateTime(String purchaseDate, String purchaseTime) {
+        if (isBlank(purchaseDate) || isBlank(purchaseTime)) {
+            return false;
+        }
+        int date = parseDate(purchaseDate);
+        int minuteOfDay = parseTime(purchaseTime);
+        return date != INVALID && minuteOfDay != INVALID && !isInFuture(date, minuteOfDay);
+    }
+
+    private static List<ViolationDTO> validate(Item item, int index, List<ViolationDTO> violations) {
+        if (item == null) {
+            return add(violations, "items[" + index + "]", RejectionReason.ITEM_MISSING);
+        }
+        String description = item.getShortDescription();
+        if (isBlank(description)) {
+            violations = add(violations, "items[" + index + "].shortDescription", RejectionReason.DESCRIPTION_BLANK);
+        } else if (!isDescription(description)) {
+            violations = add(violations, "items[" + index + "].shortDescription", RejectionReason.DESCRIPTION_FORMAT);
+        }
+        String price = item.getPrice();
+        if (isBlank(price)) {
+            violations = add(violations, "items[" + index + "].price", RejectionReason.PRICE_BLANK);
+        } else if (!isPrice(price)) {
+            violations = add(violations, "items[" + index + "].price", RejectionReason.PRICE_FORMAT);
+        }
+        return violations;
+    }
+
+    /**
+     * A receipt dated after today, or dated today with a time after the current time. When the
+     * time itself is invalid only the date is compared.
+     */
+    private boolean isInFuture(int date, int minuteOfDay) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        int today = now.getYear() * 10000 + now.getMonthValue() * 100 + now.getDayOfMonth();
+        if (date != today) {
+            return date > today;
+        }
+        return minuteOfDay != INVALID && minuteOfDay * 60_000_000_000L > now.toLocalTime().toNanoOfDay();
+    }
+
+    /**
+     * Parses a date of the form {@code yyyy-MM-dd}
+     * @param value
+     * @return the date as the number yyyyMMdd, or INVALID when it is not a date of the calendar
+     */
+    static int parseDate(String value) {
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return INVALID;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 7);
+        int day = digits(value, 8, 10);
+        if (year == INVALID || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID;
+        }
+        return year * 10000 + month * 100 + day;
+    }
+
+    /**
+     * Parses a time of the form {@code H:mm} or {@code HH:mm} with hours 0 to 23
+     * @param value
+     * @return the minute of the day, or INVALID
+     */
+    static int parseTime(String value) {
+        int colon = value.length() - 3;
+        if ((colon != 1 && colon != 2) || value.charAt(colon) != ':') {
+            return INVALID;
+        }
+        int hours = digits(value, 0, colon);
+        int minutes = digits(value, colon + 1, colon + 3);
+        if (hours == INVALID || hours > 23 || minutes == INVALID || minutes > 59) {
+            return INVALID;
+        }
+        return hours * 60 + minutes;
+    }
+
+    private static int digits(String value, int from, int to) {
+        int result = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Same as the pattern {@code ^\d+\.\d{2}$}
+     */
+    static boolean isPrice(String value) {
+        int point = value.length() - 3;
+        if (point < 1 || value.charAt(point) != '.') {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (i != point && (c < '0' || c > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Same as the pattern {@code ^[\w\s\-]+$}
+     */
+    static boolean isDescription(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            boolean word = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            boolean space = c == ' ' || (c >= '\t' && c <= '\r');
+            if (!word && !space && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A total the scoring rules accept: the canonical form, or any other finite decimal number
+     */
+    static boolean isNumber(String value) {
+        if (ScoringEngine.parseCents(value) != ScoringEngine.NOT_CANONICAL) {
+            return true;
+        }
+        try {
+            return Double.isFinite(Double.parseDouble(value));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Same as {@code @NotBlank}, which trims the value: null, empty or only characters up to
+     * {@code ' '}. Control characters such as {@code '\u0000'} are blank, Unicode spaces such as
+     * {@code '\u2003'} are not.
+     */
+    static boolean isBlank(String value) {
+        if (value == null) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<ViolationDTO> add(List<ViolationDTO> violations, String field, RejectionReason reason) {
+        List<ViolationDTO> result = violations == null ? new ArrayList<>() : violations;
+        result.add(new ViolationDTO(field, reason.getCode(), reason.getMessage()));
+        return result;
+    }
+}
@@ -0,0 +1,78 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RejectionLog logs rejected receipts at a bounded rate.
+ *
+ * At most the configured number of rejections are logged per second, without stack traces;
+ * the rest are only counted and the number left out is logged once the second is over. A client
+ * sending thousands of bad receipts per second therefore costs a few log lines, not one
+ * synchronous write per receipt. The rejection counters of ReceiptMetrics count every receipt.
+ */
+@Slf4j
+@Component
+public class RejectionLog {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final int perSecond;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger logged = new AtomicInteger();
+
+    private final LongAdder suppressed = new LongAdder();
+
+    public RejectionLog(@Value("${receipts.rejection-log.per-second:10}") int perSecond) {
+        this.perSecond = perSecond;
+    }
+
+    /**
+     * Method to log a receipt that failed validation
+     * @param violations
+     */
+    public void rejected(List<ViolationDTO> violations) {
+        if (permit()) {
+            log.warn("Receipt rejected: {}", violations);
+        }
+    }
+
+    /**
+     * Method to log a receipt that was rejected for one reason
+     * @param reason
+     */
+    public void rejected(RejectionReason reason) {
+        if (permit()) {
+            log.warn("Receipt rejected: {}", reason.getCode());
+        }
+    }
+
+    /**
+     * Whether the next rejection may be logged in the current second
+     */
+    boolean permit() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            logged.set(0);
+            long left = suppressed.sumThenReset();
+            if (left > 0) {
+                log.warn("{} more receipts rejected and not logged", left);
+            }
+        }
+        if (logged.incrementAndGet() <= perSecond) {
+            return true;
+        }
+        suppressed.increment();
+        return false;
+    }
+}
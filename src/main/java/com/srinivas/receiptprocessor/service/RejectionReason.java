@@ -0,0 +1,53 @@
+package com.srinivas.receiptprocessor.service;
+
+import java.util.Locale;
+
+/**
+ * RejectionReason lists why a receipt can be rejected, with the message returned to the client
+ * and the code used in responses and as the reason tag of the rejection counter
+ */
+public enum RejectionReason {
+    RETAILER_BLANK("The retailer field cannot be blank"),
+    DATE_BLANK("The purchase date field cannot be blank"),
+    DATE_FORMAT("The purchase date must be a valid date in the format 'yyyy-MM-dd'"),
+    DATE_FUTURE("The purchase date and time cannot be in the future"),
+    TIME_BLANK("The purchase time field cannot be blank"),
+    TIME_FORMAT("The purchase time must be valid and in the format '00:00' 24 hours format"),
+    TOTAL_BLANK("The total field cannot be blank"),
+    TOTAL_FORMAT("The total must be a number"),
+    ITEMS_MISSING("The items field cannot be null"),
+    ITEM_MISSING("The item cannot be null"),
+    DESCRIPTION_BLANK("The Product Name field cannot be blank"),
+    DESCRIPTION_FORMAT("The Short Product Description for the item must contain only word characters (letters, digits, or underscores), spaces, and hyphens. "),
+    PRICE_BLANK("The price field cannot be blank"),
+    PRICE_FORMAT("The total price payed for this item must be in the format '0.00'"),
+    UNREADABLE("The receipt could not be read"),
+    UNSCORABLE("The receipt could not be scored"),
+    NOT_SAVED("The receipt could not be saved"),
+    UNAVAILABLE("The receipt could not be accepted, try again later");
+
+    private final String message;
+
+    private final String code;
+
+    RejectionReason(String message) {
+        this.message = message;
+        this.code = name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Method to get the message returned to the client
+     * @return
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Method to get the short code of the reason, such as date-future
+     * @return
+     */
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,301 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.RescoreStatusDTO;
+import com.srinivas.receiptprocessor.config.RescoreProperties;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * RescoringJob computes the points of the stored receipts again with the current scoring rules,
+ * for when the rules were changed after receipts were stored.
+ *
+ * The job runs on a thread of its own, one chunk of {@code chunk-size} receipts at a time in the
+ * order of {@link ReceiptStore#findPageAfter(String, int)}. A chunk is scored in parallel on a
+ * ForkJoinPool of {@code parallelism} threads, apart from the common pool and the request threads,
+ * and the receipts whose points breakdown changed, or that were stored without one, are updated
+ * in one batch. After every chunk the position is written to the {@code checkpoint} file, so a
+ * stopped or failed job continues from there; the file is removed when the job completes. The
+ * job reads at most {@code receipts-per-second} receipts, which leaves the database and the CPU
+ * to live traffic.
+ *
+ * The points cache and the rollups follow every chunk updated, the leaderboard is ranked again
+ * when the job ends. Receipts stored while the job runs are already scored with the current rules.
+ */
+@Slf4j
+@Component
+public class RescoringJob {
+
+    /**
+     * What the job is doing
+     */
+    public enum State {
+        IDLE, RUNNING, STOPPING, STOPPED, COMPLETED, FAILED
+    }
+
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private static final long THROTTLE_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private final RescoreProperties properties;
+
+    private final ReceiptStore receiptStore;
+
+    private final ScoringEngine scoringEngine;
+
+    private final PointsCache pointsCache;
+
+    private final ReceiptRollups receiptRollups;
+
+    private volatile State state = State.IDLE;
+
+    /**
+     * Id of the last receipt the next chunk is read after, null to read from the first receipt
+     */
+    private volatile String cursor;
+
+    private volatile long scanned;
+
+    private volatile long updated;
+
+    private volatile long scannedAtStart;
+
+    private volatile long startedNanos;
+
+    private volatile long endedNanos;
+
+    private volatile String error;
+
+    private volatile Thread worker;
+
+    public RescoringJob(RescoreProperties properties, ReceiptStore receiptStore, ScoringEngine scoringEngine,
+                        PointsCache pointsCache, ReceiptRollups receiptRollups) {
+        this.properties = properties;
+        this.receiptStore = receiptStore;
+        this.scoringEngine = scoringEngine;
+        this.pointsCache = pointsCache;
+        this.receiptRollups = receiptRollups;
+    }
+
+    /**
+     * Method to start the job, from its checkpoint when there is one
+     * @param restart start from the first receipt even when there is a checkpoint
+     * @return false when the job is already running
+     */
+    public synchronized boolean start(boolean restart) {
+        if (state == State.RUNNING || state == State.STOPPING) {
+            return false;
+        }
+        Properties checkpoint = restart ? new Properties() : readCheckpoint();
+        cursor = checkpoint.getProperty("cursor");
+        scanned = Long.parseLong(checkpoint.getProperty("scanned", "0"));
+        updated = Long.parseLong(checkpoint.getProperty("updated", "0"));
+        scannedAtStart = scanned;
+        error = null;
+        startedNanos = System.nanoTime();
+        state = State.RUNNING;
+        worker = new Thread(this::run, "receipt-rescore");
+        worker.start();
+        log.info("Rescoring started {}", cursor == null ? "from the first receipt" : "after receipt " + cursor);
+        return true;
+    }
+
+    /**
+     * Method to stop the job after the chunk it is working on, keeping its checkpoint
+     * @return false when the job is not running
+     */
+    public synchronized boolean stop() {
+        if (state != State.RUNNING) {
+            return false;
+        }
+        state = State.STOPPING;
+        return true;
+    }
+
+    /**
+     * Method to get the progress of the job, of the last run when it is not running
+     * @return
+     */
+    public RescoreStatusDTO status() {
+        State current = state;
+        long total = receiptRollups.total().getReceipts();
+        long elapsedNanos = current == State.IDLE ? 0
+                : (current == State.RUNNING || current == State.STOPPING ? System.nanoTime() : endedNanos) - startedNanos;
+        long scannedNow = scanned;
+        return RescoreStatusDTO.builder()
+                .state(current.name().toLowerCase(Locale.ROOT))
+                .cursor(cursor)
+                .scanned(scannedNow)
+                .updated(updated)
+                .total(total)
+                .progress(current == State.COMPLETED ? 1 : total == 0 ? 0 : Math.min(1, (double) scannedNow / total))
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsedNanos))
+                .receiptsPerSecond(elapsedNanos == 0 ? 0 : (scannedNow - scannedAtStart) * 1e9 / elapsedNanos)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Method to stop the job on shutdown and wait for its chunk to finish
+     * @throws InterruptedException
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        stop();
+        Thread running = worker;
+        if (running != null) {
+            running.join(SHUTDOWN_TIMEOUT_MILLIS);
+        }
+    }
+
+    /**
+     * Method to wait until the job has ended
+     * @throws InterruptedException
+     */
+    void awaitEnd() throws InterruptedException {
+        Thread running = worker;
+        if (running != null) {
+            running.join();
+        }
+    }
+
+    private void run() {
+        int chunkSize = Math.max(1, properties.chunkSize());
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, properties.parallelism()));
+        long updatedAtStart = updated;
+        long lastLog = startedNanos;
+        try {
+            while (state == State.RUNNING) {
+                List<Receipt> chunk = receiptStore.findPageAfter(cursor, chunkSize);
+                if (chunk.isEmpty()) {
+                    Files.deleteIfExists(properties.checkpoint());
+                    state = State.COMPLETED;
+                    break;
+                }
+                PointsBreakdown[] breakdowns = new PointsBreakdown[chunk.size()];
+                pool.submit(() -> IntStream.range(0, chunk.size()).parallel()
+                        .forEach(i -> breakdowns[i] = scoringEngine.breakdown(chunk.get(i)))).join();
+
+                Map<String, PointsBreakdown> changed = new LinkedHashMap<>();
+                for (int i = 0; i < chunk.size(); i++) {
+                    // receipts stored without a breakdown get one even when their points stay
+                    if (!breakdowns[i].equals(chunk.get(i).getBreakdown())) {
+                        changed.put(chunk.get(i).getId(), breakdowns[i]);
+                    }
+                }
+                if (!changed.isEmpty()) {
+                    receiptStore.updatePoints(changed);
+                    for (int i = 0; i < chunk.size(); i++) {
+                        Receipt receipt = chunk.get(i);
+                        int points = breakdowns[i].total();
+                        if (points != receipt.getPoints()) {
+                            pointsCache.put(receipt.getId(), points);
+                            receiptRollups.rescored(receipt, points);
+                        }
+                    }
+                }
+                cursor = chunk.get(chunk.size() - 1).getId();
+                scanned += chunk.size();
+                updated += changed.size();
+                writeCheckpoint();
+
+                if (System.nanoTime() - lastLog >= LOG_INTERVAL_NANOS) {
+                    lastLog = System.nanoTime();
+                    RescoreStatusDTO status = status();
+                    log.info("Rescoring: {} receipts read, {} updated, {} per second",
+                            status.getScanned(), status.getUpdated(), Math.round(status.getReceiptsPerSecond()));
+                }
+                throttle();
+            }
+        } catch (RuntimeException | IOException e) {
+            error = e.getMessage();
+            state = State.FAILED;
+            log.error("Rescoring failed after receipt {}", cursor, e);
+        } finally {
+            pool.shutdown();
+            if (updated > updatedAtStart) {
+                receiptRollups.rerank();
+            }
+            endedNanos = System.nanoTime();
+            if (state == State.STOPPING) {
+                state = State.STOPPED;
+            }
+            log.info("Rescoring {}: {} receipts read, {} updated", state.name().toLowerCase(Locale.ROOT), scanned, updated);
+        }
+    }
+
+    /**
+     * Waits until the receipts read since the start are within the rate, in steps so a stop is
+     * not held up
+     */
+    private void throttle() {
+        int rate = properties.receiptsPerSecond();
+        if (rate <= 0) {
+            return;
+        }
+        long due = startedNanos + (scanned - scannedAtStart) * TimeUnit.SECONDS.toNanos(1) / rate;
+        long wait;
+        while (state == State.RUNNING && (wait = due - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(wait, THROTTLE_STEP_NANOS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                state = State.STOPPING;
+            }
+        }
+    }
+
+    private Properties readCheckpoint() {
+        Properties checkpoint = new Properties();
+        Path file = properties.checkpoint();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                checkpoint.load(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read the rescoring checkpoint " + file, e);
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Writes the checkpoint to a new file that then replaces the old one, so a crash leaves
+     * either of them whole
+     */
+    private void writeCheckpoint() throws IOException {
+        Properties checkpoint = new Properties();
+        if (cursor != null) {
+            checkpoint.setProperty("cursor", cursor);
+        }
+        checkpoint.setProperty("scanned", Long.toString(scanned));
+        checkpoint.setProperty("updated", Long.toString(updated));
+        Path file = properties.checkpoint().toAbsolutePath();
+        Files.createDirectories(file.getParent());
+        Path next = file.resolveSibling(file.getFileName() + ".next");
+        try (Writer writer = Files.newBufferedWriter(next)) {
+            checkpoint.store(writer, null);
+        }
+        Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,203 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.LeaderboardDTO;
+import com.srinivas.receiptprocessor.DTO.LeaderboardEntryDTO;
+import com.srinivas.receiptprocessor.DTO.RollupDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * RetailerLeaderboard ranks the retailers by their total points and by their number of receipts.
+ *
+ * A ranking counts every retailer exactly, in a ConcurrentHashMap of LongAdders, until it has
+ * seen more than the configured capacity of retailers. It then moves the counts into a
+ * {@link SpaceSaving} summary of that capacity, so memory stays bounded however many retailers
+ * there are and an update locks one shard of the summary. The summary can drop retailers as soon
+ * as one of its shards is full; from then on the ranking says it is approximate and every entry
+ * carries its error bound. Reading the top k costs the number of retailers while exact and k per
+ * shard of the summary after that.
+ */
+@Component
+public class RetailerLeaderboard {
+
+    /**
+     * What the retailers are ranked by
+     */
+    public enum Ranking {
+        POINTS, RECEIPTS;
+
+        /**
+         * Method to read a ranking from a request parameter, ignoring case
+         * @param value
+         * @return
+         * @throws IllegalArgumentException when the value is not a ranking
+         */
+        public static Ranking of(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final int capacity;
+
+    private volatile Counts byPoints;
+
+    private volatile Counts byReceipts;
+
+    public RetailerLeaderboard(@Value("${receipts.leaderboard.capacity:1024}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.byPoints = new Counts(capacity);
+        this.byReceipts = new Counts(capacity);
+    }
+
+    /**
+     * Method to add receipts of a retailer
+     * @param retailer
+     * @param receipts
+     * @param points the total points of the receipts
+     */
+    public void add(String retailer, long receipts, long points) {
+        byReceipts.add(retailer, receipts);
+        byPoints.add(retailer, points);
+    }
+
+    /**
+     * Method to rank the retailers again from their totals, replacing what was added so far.
+     * The rankings cannot take points away, so they are rebuilt once the points of stored
+     * receipts were lowered. Nothing may be added from when the totals are read until this
+     * returns, or it is lost with the old rankings; {@link ReceiptRollups#rerank()} holds adds
+     * back for that long.
+     * @param retailers the receipts and points of every retailer
+     */
+    public void rebuild(List<RollupDTO> retailers) {
+        Counts points = new Counts(capacity);
+        Counts receipts = new Counts(capacity);
+        for (RollupDTO retailer : retailers) {
+            receipts.add(retailer.getKey(), retailer.getReceipts());
+            points.add(retailer.getKey(), retailer.getTotalPoints());
+        }
+        byPoints = points;
+        byReceipts = receipts;
+    }
+
+    /**
+     * Method to get the top retailers
+     * @param ranking
+     * @param limit
+     * @return
+     */
+    public LeaderboardDTO top(Ranking ranking, int limit) {
+        Counts counts = ranking == Ranking.POINTS ? byPoints : byReceipts;
+        List<SpaceSaving.Counter> counters = counts.top(limit);
+        // read after the counters, the bound only grows so it also covers them
+        long errorBound = counts.errorBound();
+        boolean approximate = errorBound > 0;
+        List<LeaderboardEntryDTO> entries = new ArrayList<>(counters.size());
+        for (SpaceSaving.Counter counter : counters) {
+            entries.add(new LeaderboardEntryDTO(counter.key(), counter.count(), approximate ? counter.error() : null));
+        }
+        return LeaderboardDTO.builder()
+                .by(ranking.name().toLowerCase(Locale.ROOT))
+                .approximate(approximate)
+                .errorBound(approximate ? errorBound : null)
+                .entries(entries)
+                .build();
+    }
+
+    /**
+     * Method to get the number of retailers each ranking keeps
+     * @return
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * The counts of one ranking: exact per retailer until more than the capacity of retailers
+     * were added, then a summary. Adds share a read lock while the counts are exact, so none is
+     * lost when they are moved into the summary; after that they go to the summary unlocked.
+     */
+    private static final class Counts {
+
+        private final int capacity;
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private volatile Map<String, LongAdder> exact = new ConcurrentHashMap<>();
+
+        private volatile SpaceSaving summary;
+
+        Counts(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void add(String retailer, long weight) {
+            if (weight <= 0) {
+                return;
+            }
+            if (exact != null) {
+                lock.readLock().lock();
+                try {
+                    Map<String, LongAdder> counts = exact;
+                    LongAdder count = counts == null ? null : counts.get(retailer);
+                    if (count == null && counts != null && counts.size() < capacity) {
+                        count = counts.computeIfAbsent(retailer, key -> new LongAdder());
+                    }
+                    if (count != null) {
+                        count.add(weight);
+                        return;
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                summarize();
+            }
+            summary.add(retailer, weight);
+        }
+
+        /**
+         * Moves the exact counts into the summary, once
+         */
+        private void summarize() {
+            lock.writeLock().lock();
+            try {
+                Map<String, LongAdder> counts = exact;
+                if (counts != null) {
+                    SpaceSaving moved = new SpaceSaving(capacity);
+                    counts.forEach((retailer, count) -> moved.add(retailer, count.sum()));
+                    summary = moved;
+                    exact = null;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        List<SpaceSaving.Counter> top(int k) {
+            Map<String, LongAdder> counts = exact;
+            if (counts == null) {
+                return summary.top(k);
+            }
+            List<SpaceSaving.Counter> result = new ArrayList<>(counts.size());
+            counts.forEach((retailer, count) -> result.add(new SpaceSaving.Counter(retailer, count.sum(), 0)));
+            result.sort(SpaceSaving.ORDER);
+            return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+        }
+
+        long errorBound() {
+            SpaceSaving moved = summary;
+            return moved == null ? 0 : moved.errorBound();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * SaveResult is the outcome of saving one receipt: the id it was stored under, the id of the
+ * identical receipt stored before, or why it was not accepted. Expected rejections are returned
+ * as a result rather than thrown, so a flood of bad receipts costs no stack traces.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SaveResult {
+
+    /**
+     * The kinds of outcome
+     */
+    public enum Status {
+        SAVED, DUPLICATE, INVALID, UNAVAILABLE
+    }
+
+    private final Status status;
+
+    private final String id;
+
+    private final List<ViolationDTO> violations;
+
+    public static SaveResult saved(String id) {
+        return new SaveResult(Status.SAVED, id, List.of());
+    }
+
+    public static SaveResult duplicate(String id) {
+        return new SaveResult(Status.DUPLICATE, id, List.of());
+    }
+
+    public static SaveResult invalid(List<ViolationDTO> violations) {
+        return new SaveResult(Status.INVALID, null, violations);
+    }
+
+    public static SaveResult unavailable() {
+        return new SaveResult(Status.UNAVAILABLE, null, List.of());
+    }
+
+    /**
+     * Method to check whether the receipt has an id, either new or of the identical receipt
+     * @return
+     */
+    public boolean isAccepted() {
+        return status == Status.SAVED || status == Status.DUPLICATE;
+    }
+}
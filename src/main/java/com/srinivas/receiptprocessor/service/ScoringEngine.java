@@ -0,0 +1,345 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.text.DecimalFormat;
+import java.util.List;
+
+/**
+ * ScoringEngine computes the receipt points in a single pass.
+ *
+ * The {@link ScoringRules} are compiled once at startup into integer constants: the price
+ * multiplier becomes a reduced fraction and the time window becomes minutes of the day. Amounts
+ * are parsed once into integer cents, the retailer and descriptions are scanned character by
+ * character and the date and time are read by offset. Input that is not in the canonical receipt
+ * format falls back to the original floating-point rules, so with the default rules the points
+ * are always the same as the per-rule methods in {@link ReceiptService} used to produce.
+ */
+@Component
+public class ScoringEngine {
+
+    /**
+     * Returned by {@link #parseCents(String)} when the amount is not in the canonical format
+     */
+    static final long NOT_CANONICAL = -1L;
+
+    /**
+     * Largest number of integer digits handled in cents, beyond this the double rules are used
+     */
+    private static final int MAX_INTEGER_DIGITS = 9;
+
+    /**
+     * Largest reduced numerator of the price multiplier, keeps cents times numerator in a long
+     */
+    private static final long MAX_MULTIPLIER_NUMERATOR = 1_000_000L;
+
+    private final int retailerCharacterPoints;
+
+    private final int roundDollarPoints;
+
+    private final int totalMultiplePoints;
+
+    private final int totalMultipleCents;
+
+    private final double totalMultiple;
+
+    private final int itemGroupPoints;
+
+    private final int itemGroupSize;
+
+    private final int descriptionLengthMultiple;
+
+    private final long multiplierNumerator;
+
+    private final long multiplierDenominator;
+
+    private final double multiplier;
+
+    private final int oddDayPoints;
+
+    private final int timeWindowPoints;
+
+    private final int timeWindowStart;
+
+    private final int timeWindowEnd;
+
+    public ScoringEngine(ScoringRules rules) {
+        if (rules.getTotalMultipleCents() <= 0 || rules.getItemGroupSize() <= 0 || rules.getDescriptionLengthMultiple() <= 0) {
+            throw new IllegalArgumentException("Scoring rule divisors must be positive");
+        }
+        BigDecimal priceMultiplier = rules.getDescriptionPriceMultiplier();
+        if (priceMultiplier.signum() < 0) {
+            throw new IllegalArgumentException("The description price multiplier cannot be negative");
+        }
+        // price * multiplier == cents * unscaled / (100 * 10^scale)
+        BigInteger numerator = priceMultiplier.unscaledValue();
+        BigInteger denominator = BigInteger.TEN.pow(Math.max(0, priceMultiplier.scale())).multiply(BigInteger.valueOf(100));
+        if (priceMultiplier.scale() < 0) {
+            numerator = numerator.multiply(BigInteger.TEN.pow(-priceMultiplier.scale()));
+        }
+        BigInteger gcd = numerator.gcd(denominator);
+        if (gcd.signum() > 0) {
+            numerator = numerator.divide(gcd);
+            denominator = denominator.divide(gcd);
+        }
+        if (numerator.compareTo(BigInteger.valueOf(MAX_MULTIPLIER_NUMERATOR)) > 0
+                || denominator.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0) {
+            throw new IllegalArgumentException("The description price multiplier is too precise: " + priceMultiplier);
+        }
+
+        this.retailerCharacterPoints = rules.getRetailerCharacterPoints();
+        this.roundDollarPoints = rules.getRoundDollarPoints();
+        this.totalMultiplePoints = rules.getTotalMultiplePoints();
+        this.totalMultipleCents = rules.getTotalMultipleCents();
+        this.totalMultiple = rules.getTotalMultipleCents() / 100.0;
+        this.itemGroupPoints = rules.getItemGroupPoints();
+        this.itemGroupSize = rules.getItemGroupSize();
+        this.descriptionLengthMultiple = rules.getDescriptionLengthMultiple();
+        this.multiplierNumerator = numerator.longValue();
+        this.multiplierDenominator = denominator.longValue();
+        this.multiplier = priceMultiplier.doubleValue();
+        this.oddDayPoints = rules.getOddDayPoints();
+        this.timeWindowPoints = rules.getTimeWindowPoints();
+        this.timeWindowStart = rules.getTimeWindowStart().getHour() * 60 + rules.getTimeWindowStart().getMinute();
+        this.timeWindowEnd = rules.getTimeWindowEnd().getHour() * 60 + rules.getTimeWindowEnd().getMinute();
+    }
+
+    /**
+     * Method to calculate the total points of a receipt
+     * @param receipt
+     * @return
+     */
+    public int score(Receipt receipt) {
+        List<Item> items = receipt.getItems();
+        String total = receipt.getTotal();
+        long totalCents = parseCents(total);
+
+        // the same sum as breakdown(receipt).total(), without the breakdown
+        return retailerNamePoints(receipt.getRetailer())
+                + (totalCents == NOT_CANONICAL ? legacyRoundDollarPoints(total) : roundDollarPoints(totalCents))
+                + (totalCents == NOT_CANONICAL ? legacyMultipleOf25Points(total) : multipleOf25Points(totalCents))
+                + twoItemPoints(items.size())
+                + trimmedLengthPoints(items)
+                + purchaseDatePoints(receipt.getPurchaseDate())
+                + purchaseTimePoints(receipt.getPurchaseTime());
+    }
+
+    /**
+     * Method to calculate the points every rule gives a receipt
+     * @param receipt
+     * @return
+     */
+    public PointsBreakdown breakdown(Receipt receipt) {
+        List<Item> items = receipt.getItems();
+        String total = receipt.getTotal();
+        long totalCents = parseCents(total);
+
+        return new PointsBreakdown(
+                retailerNamePoints(receipt.getRetailer()),
+                totalCents == NOT_CANONICAL ? legacyRoundDollarPoints(total) : roundDollarPoints(totalCents),
+                totalCents == NOT_CANONICAL ? legacyMultipleOf25Points(total) : multipleOf25Points(totalCents),
+                twoItemPoints(items.size()),
+                trimmedLengthPoints(items),
+                purchaseDatePoints(receipt.getPurchaseDate()),
+                purchaseTimePoints(receipt.getPurchaseTime()));
+    }
+
+    /**
+     * Points for every ASCII letter or digit in the retailer name
+     * @param retailer
+     * @return
+     */
+    public int retailerNamePoints(String retailer) {
+        int count = 0;
+        for (int i = 0, n = retailer.length(); i < n; i++) {
+            char c = retailer.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                count++;
+            }
+        }
+        return count * retailerCharacterPoints;
+    }
+
+    /**
+     * Points if the total is a round dollar amount with no cents
+     * @param total
+     * @return
+     */
+    public int roundDollarPoints(String total) {
+        long cents = parseCents(total);
+        return cents == NOT_CANONICAL ? legacyRoundDollarPoints(total) : roundDollarPoints(cents);
+    }
+
+    int roundDollarPoints(long totalCents) {
+        return totalCents % 100 == 0 ? roundDollarPoints : 0;
+    }
+
+    /**
+     * Points if the total is a multiple of the configured amount, 0.25 by default
+     * @param total
+     * @return
+     */
+    public int multipleOf25Points(String total) {
+        long cents = parseCents(total);
+        return cents == NOT_CANONICAL ? legacyMultipleOf25Points(total) : multipleOf25Points(cents);
+    }
+
+    int multipleOf25Points(long totalCents) {
+        return totalCents % totalMultipleCents == 0 ? totalMultiplePoints : 0;
+    }
+
+    /**
+     * Points for every group of items on the receipt, 5 for every two by default
+     * @param size
+     * @return
+     */
+    public int twoItemPoints(int size) {
+        return (size / itemGroupSize) * itemGroupPoints;
+    }
+
+    /**
+     * For every item whose trimmed description length is a multiple of the configured length,
+     * 3 by default, the price times the multiplier, 0.2 by default, rounded up. The sum
+     * saturates at {@link Integer#MAX_VALUE} like the original double to int conversion did.
+     * @param items
+     * @return
+     */
+    public int trimmedLengthPoints(List<Item> items) {
+        int points = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            Item item = items.get(i);
+            if (trimmedLength(item.getShortDescription()) % descriptionLengthMultiple != 0) {
+                continue;
+            }
+            String price = item.getPrice();
+            long cents = parseCents(price);
+            if (cents == NOT_CANONICAL) {
+                points += Math.ceil(Double.parseDouble(price) * multiplier);
+            } else {
+                // ceil(cents / 100 * multiplier) with the multiplier as a reduced fraction
+                long bonus = (cents * multiplierNumerator + multiplierDenominator - 1) / multiplierDenominator;
+                points = (int) Math.min(Integer.MAX_VALUE, points + bonus);
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Points if the day in the purchase date is odd
+     * @param purchaseDate
+     * @return
+     */
+    public int purchaseDatePoints(String purchaseDate) {
+        int day;
+        if (purchaseDate.length() == 10 && purchaseDate.charAt(4) == '-' && purchaseDate.charAt(7) == '-'
+                && isDigit(purchaseDate.charAt(8)) && isDigit(purchaseDate.charAt(9))) {
+            day = purchaseDate.charAt(9) - '0';
+        } else {
+            day = Integer.parseInt(purchaseDate.split("-")[2]);
+        }
+        return day % 2 != 0 ? oddDayPoints : 0;
+    }
+
+    /**
+     * Points if the purchase time is after the start and before the end of the time window,
+     * 14:00 and 16:00 by default
+     * @param purchaseTime
+     * @return
+     */
+    public int purchaseTimePoints(String purchaseTime) {
+        int length = purchaseTime.length();
+        int colon = length - 3;
+        int hours;
+        int minutes;
+        if ((length == 5 || length == 4) && purchaseTime.charAt(colon) == ':'
+                && isDigit(purchaseTime.charAt(0)) && isDigit(purchaseTime.charAt(colon - 1))
+                && isDigit(purchaseTime.charAt(length - 2)) && isDigit(purchaseTime.charAt(length - 1))) {
+            hours = length == 5
+                    ? (purchaseTime.charAt(0) - '0') * 10 + (purchaseTime.charAt(1) - '0')
+                    : purchaseTime.charAt(0) - '0';
+            minutes = (purchaseTime.charAt(length - 2) - '0') * 10 + (purchaseTime.charAt(length - 1) - '0');
+        } else {
+            String[] timeParts = purchaseTime.split(":");
+            hours = Integer.parseInt(timeParts[0]);
+            minutes = Integer.parseInt(timeParts[1]);
+        }
+        return purchaseTimePoints(hours, minutes);
+    }
+
+    /**
+     * Minutes outside 0-59 are clamped into the hour, which keeps the original hour-based
+     * comparison for whole-hour windows
+     */
+    int purchaseTimePoints(int hours, int minutes) {
+        int minuteOfDay = hours * 60 + Math.max(0, Math.min(59, minutes));
+        return minuteOfDay > timeWindowStart && minuteOfDay < timeWindowEnd ? timeWindowPoints : 0;
+    }
+
+    /**
+     * Parses an amount of the form {@code 123}, {@code 123.4} or {@code 123.45} into cents
+     * @param amount
+     * @return the amount in cents, or {@link #NOT_CANONICAL} for any other form
+     */
+    static long parseCents(String amount) {
+        int length = amount.length();
+        int i = 0;
+        long units = 0;
+        while (i < length && isDigit(amount.charAt(i))) {
+            units = units * 10 + (amount.charAt(i) - '0');
+            i++;
+        }
+        if (i == 0 || i > MAX_INTEGER_DIGITS) {
+            return NOT_CANONICAL;
+        }
+        if (i == length) {
+            return units * 100;
+        }
+        int fractionDigits = length - i - 1;
+        if (amount.charAt(i) != '.' || fractionDigits < 1 || fractionDigits > 2) {
+            return NOT_CANONICAL;
+        }
+        char tenths = amount.charAt(i + 1);
+        char hundredths = fractionDigits == 2 ? amount.charAt(i + 2) : '0';
+        if (!isDigit(tenths) || !isDigit(hundredths)) {
+            return NOT_CANONICAL;
+        }
+        return units * 100 + (tenths - '0') * 10 + (hundredths - '0');
+    }
+
+    /**
+     * Length of the string after {@link String#trim()}, without creating the trimmed copy
+     */
+    static int trimmedLength(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private int legacyRoundDollarPoints(String total) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        double totalDouble = Double.parseDouble(total);
+        return Double.parseDouble(df.format(totalDouble % 1)) == 0 ? roundDollarPoints : 0;
+    }
+
+    private int legacyMultipleOf25Points(String total) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        double totalDouble = Double.parseDouble(total);
+        return Double.parseDouble(df.format(totalDouble % totalMultiple)) == 0 ? totalMultiplePoints : 0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.srinivas.receiptprocessor.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * SpaceSaving keeps the keys with the largest weights seen, in bounded memory.
+ *
+ * It is the weighted Space-Saving summary split into shards by the hash of the key, every shard
+ * with its own lock, so threads adding different keys rarely wait on each other. A shard counts
+ * exactly until it holds its share of the capacity; a new key after that replaces the key with
+ * the smallest count, takes over its count as the error and adds its own weight to it. A count
+ * is then never lower than the true weight of its key and never higher by more than its error,
+ * and a key that is not kept has a true weight of at most the smallest count of its shard.
+ *
+ * A key always maps to the same shard, so the largest keys overall are the largest of the
+ * largest keys of every shard and reading the top k costs k per shard. The summary as a whole is
+ * exact while every shard is, which is not guaranteed up to the capacity: the keys seldom spread
+ * evenly over the shards, so one of them can run out of room first.
+ */
+class SpaceSaving {
+
+    /**
+     * The order of the counters returned, largest count first and then by key
+     */
+    static final Comparator<Counter> ORDER = Comparator.comparingLong(Counter::count).reversed()
+            .thenComparing(Counter::key);
+
+    private static final int MAX_SHARDS = 16;
+
+    private final Shard[] shards;
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        int shardCount = Math.min(MAX_SHARDS, capacity);
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(capacity / shardCount + (i < capacity % shardCount ? 1 : 0));
+        }
+    }
+
+    /**
+     * Method to add the weight of a key
+     * @param key
+     * @param weight ignored unless positive
+     */
+    void add(String key, long weight) {
+        if (weight > 0) {
+            shards[Math.floorMod(key.hashCode() * 0x9E3779B9, shards.length)].add(key, weight);
+        }
+    }
+
+    /**
+     * Method to get the keys with the largest counts
+     * @param k
+     * @return at most k counters, largest count first
+     */
+    List<Counter> top(int k) {
+        List<Counter> result = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.top(k, result);
+        }
+        result.sort(ORDER);
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    /**
+     * Method to get the largest true weight a key can have without being kept, which is also
+     * the largest error of any count
+     * @return 0 while every count is exact
+     */
+    long errorBound() {
+        long bound = 0;
+        for (Shard shard : shards) {
+            bound = Math.max(bound, shard.errorBound());
+        }
+        return bound;
+    }
+
+    /**
+     * A key with its count and the most its count can exceed its true weight by
+     */
+    record Counter(String key, long count, long error) {
+    }
+
+    private static final class Shard {
+
+        private final int capacity;
+
+        private final Map<String, Counter> counters = new HashMap<>();
+
+        private final TreeSet<Counter> ordered = new TreeSet<>(ORDER);
+
+        private boolean evicted;
+
+        Shard(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void add(String key, long weight) {
+            Counter counter = counters.get(key);
+            if (counter != null) {
+                ordered.remove(counter);
+                put(new Counter(key, counter.count() + weight, counter.error()));
+            } else if (counters.size() < capacity) {
+                put(new Counter(key, weight, 0));
+            } else {
+                Counter smallest = ordered.pollLast();
+                counters.remove(smallest.key());
+                evicted = true;
+                put(new Counter(key, smallest.count() + weight, smallest.count()));
+            }
+        }
+
+        synchronized void top(int k, List<Counter> result) {
+            Iterator<Counter> iterator = ordered.iterator();
+            for (int i = 0; i < k && iterator.hasNext(); i++) {
+                result.add(iterator.next());
+            }
+        }
+
+        synchronized long errorBound() {
+            return evicted ? ordered.last().count() : 0;
+        }
+
+        private void put(Counter counter) {
+            counters.put(counter.key(), counter);
+            ordered.add(counter);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srinivas.receiptprocessor.config.WriteBehindProperties;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WriteBehindWriter persists accepted receipts asynchronously when
+ * {@code receipts.write-behind.enabled} is true.
+ *
+ * Requests put scored receipts on a bounded queue and return at once. A single writer thread
+ * drains the queue and commits up to {@code flush-size} receipts with their items in one
+ * transaction, waiting at most {@code flush-interval} to fill a flush. The points of accepted
+ * receipts are kept in an in-flight map until their transaction commits, so they can be read
+ * before they are stored. When the queue is full a request waits up to {@code offer-timeout}
+ * and is then refused. On shutdown the writer stops after the queue is drained.
+ *
+ * The client already has the id of an accepted receipt, so a receipt that cannot be stored is
+ * not dropped. It stays readable in the in-flight map and is tried again after
+ * {@code retry-backoff}, doubling up to {@code max-retry-backoff}, until it is stored. The
+ * receipts waiting for another attempt are kept in {@code dead-letter-file}, rewritten whenever
+ * one is added or stored, and are queued again when the application starts. While as many
+ * receipts wait for a retry as the queue holds the writer takes no new ones, so a store that is
+ * down fills the queue and requests are refused rather than accepted and held in memory. A
+ * receipt refused by the unique content hash column is not retried: when the hash is stored
+ * under another id, the receipt is a duplicate that got past the check, for example after its
+ * hash was evicted from the index, and it is dropped.
+ */
+@Slf4j
+@Component
+public class WriteBehindWriter implements SmartLifecycle {
+
+    private final WriteBehindProperties properties;
+
+    private final PointsCache pointsCache;
+
+    private final ReceiptDeduplicator receiptDeduplicator;
+
+    private final ReceiptRollups receiptRollups;
+
+    private final ReceiptStore receiptStore;
+
+    private final BlockingQueue<Receipt> queue;
+
+    private final ConcurrentHashMap<String, Receipt> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Receipts that could not be stored by id, only used by the writer thread once it started
+     */
+    private final Map<String, Retry> retries = new LinkedHashMap<>();
+
+    /**
+     * Whether receipts were added to or removed from the retries since the dead-letter file was
+     * written
+     */
+    private boolean retriesChanged;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    public WriteBehindWriter(WriteBehindProperties properties, PointsCache pointsCache,
+                             ReceiptDeduplicator receiptDeduplicator, ReceiptRollups receiptRollups,
+                             ReceiptStore receiptStore) {
+        this.properties = properties;
+        this.pointsCache = pointsCache;
+        this.receiptDeduplicator = receiptDeduplicator;
+        this.receiptRollups = receiptRollups;
+        this.receiptStore = receiptStore;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.queueCapacity()));
+    }
+
+    /**
+     * Method to check if receipts are persisted asynchronously
+     * @return
+     */
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Method to accept a scored receipt for asynchronous persistence. The receipt must already
+     * have its id and its items linked to it.
+     * @param receipt
+     * @return false when the queue stayed full for the whole offer timeout and the receipt was
+     * not accepted
+     */
+    public boolean submit(Receipt receipt) {
+        inFlight.put(receipt.getId(), receipt);
+        boolean accepted;
+        try {
+            accepted = running && queue.offer(receipt, properties.offerTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            inFlight.remove(receipt.getId());
+            receiptDeduplicator.forget(receipt.getContentHash(), receipt.getId());
+        }
+        return accepted;
+    }
+
+    /**
+     * Method to get the points of an accepted receipt that is not stored yet
+     * @param id
+     * @return
+     */
+    public Optional<Integer> inFlightPoints(String id) {
+        return Optional.ofNullable(inFlight.get(id)).map(Receipt::getPoints);
+    }
+
+    /**
+     * Method to get the points breakdown of an accepted receipt that is not stored yet
+     * @param id
+     * @return
+     */
+    public Optional<PointsBreakdown> inFlightBreakdown(String id) {
+        return Optional.ofNullable(inFlight.get(id)).map(Receipt::getBreakdown);
+    }
+
+    /**
+     * Method to get the number of receipts waiting for the writer
+     * @return
+     */
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Method to get the number of receipts that could not be stored yet and wait for another
+     * attempt
+     * @return
+     */
+    int retrying() {
+        return retries.size();
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled() || running) {
+            return;
+        }
+        readDeadLetters();
+        running = true;
+        writer = new Thread(this::drain, "receipt-write-behind");
+        writer.start();
+        log.info("Write-behind persistence started, flush size {}, flush interval {}",
+                properties.flushSize(), properties.flushInterval());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(properties.shutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.error("Write-behind queue not drained on shutdown, {} receipts left", queue.size());
+        } else {
+            log.info("Write-behind queue drained");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server, so no request can still be adding to the queue while it drains
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 4096;
+    }
+
+    private void drain() {
+        int flushSize = Math.max(1, properties.flushSize());
+        long flushIntervalNanos = properties.flushInterval().toNanos();
+        List<Receipt> batch = new ArrayList<>(flushSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                retryDue();
+                long wait = Math.min(flushIntervalNanos, untilNextRetry());
+                if (running && retries.size() >= Math.max(1, properties.queueCapacity())) {
+                    // the store is failing, leave new receipts in the queue until retries succeed
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                    continue;
+                }
+                Receipt first = queue.poll(wait, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < flushSize) {
+                    if (queue.drainTo(batch, flushSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Receipt next = remaining > 0 && running ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                log.warn("Write-behind writer interrupted");
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+        if (!retries.isEmpty()) {
+            // a last attempt whatever the backoff, what still fails is kept for the next start
+            flush(retries.values().stream().map(Retry::receipt).toList());
+        }
+        if (!retries.isEmpty()) {
+            log.error("{} accepted receipts could not be stored, kept in {} until the next start",
+                    retries.size(), properties.deadLetterFile());
+        }
+    }
+
+    /**
+     * Commits a batch in one transaction, retrying receipt by receipt when the batch fails. A
+     * receipt that still fails waits for another attempt.
+     */
+    private void flush(List<Receipt> batch) {
+        try {
+            receiptStore.insertAll(batch);
+            batch.forEach(this::stored);
+            log.debug("Write-behind flushed {} receipts", batch.size());
+        } catch (RuntimeException e) {
+            log.error("Error flushing {} receipts, retrying one by one", batch.size(), e);
+            for (Receipt receipt : batch) {
+                try {
+                    receiptStore.insertAll(List.of(receipt));
+                    stored(receipt);
+                } catch (DataIntegrityViolationException single) {
+                    if (!resolved(receipt)) {
+                        failed(receipt, single);
+                    }
+                } catch (RuntimeException single) {
+                    failed(receipt, single);
+                }
+            }
+        }
+        if (retriesChanged) {
+            writeDeadLetters();
+        }
+    }
+
+    private void stored(Receipt receipt) {
+        pointsCache.put(receipt.getId(), receipt.getPoints());
+        receiptRollups.add(receipt);
+        inFlight.remove(receipt.getId());
+        if (retries.remove(receipt.getId()) != null) {
+            retriesChanged = true;
+        }
+    }
+
+    /**
+     * Settles a receipt refused by a unique column whose content hash is stored: under its own
+     * id, by an attempt whose outcome was lost, it is stored; under another id it is a duplicate
+     * and dropped, trying it again would fail every time
+     * @return false when the hash is not stored and the receipt is to be tried again
+     */
+    private boolean resolved(Receipt receipt) {
+        String contentHash = receipt.getContentHash();
+        Optional<String> storedId;
+        try {
+            storedId = contentHash == null ? Optional.empty() : receiptDeduplicator.findStored(contentHash);
+        } catch (RuntimeException e) {
+            log.warn("Could not look up the content hash of receipt {}: {}", receipt.getId(), e.toString());
+            return false;
+        }
+        if (storedId.isEmpty()) {
+            return false;
+        }
+        if (storedId.get().equals(receipt.getId())) {
+            stored(receipt);
+            return true;
+        }
+        inFlight.remove(receipt.getId());
+        if (retries.remove(receipt.getId()) != null) {
+            retriesChanged = true;
+        }
+        log.warn("Accepted receipt {} is a duplicate of stored receipt {}, dropped", receipt.getId(), storedId.get());
+        return true;
+    }
+
+    private void failed(Receipt receipt, RuntimeException e) {
+        Retry previous = retries.get(receipt.getId());
+        int attempts = previous == null ? 1 : previous.attempts() + 1;
+        long backoffNanos = Math.min(properties.maxRetryBackoff().toNanos(),
+                properties.retryBackoff().toNanos() << Math.min(attempts - 1, 20));
+        retries.put(receipt.getId(), new Retry(receipt, attempts, System.nanoTime() + backoffNanos));
+        if (previous == null) {
+            retriesChanged = true;
+            log.error("Accepted receipt {} could not be stored, trying again", receipt.getId(), e);
+        } else {
+            log.warn("Accepted receipt {} could not be stored after {} attempts: {}", receipt.getId(), attempts, e.toString());
+        }
+    }
+
+    /**
+     * Tries again to store the receipts whose backoff has passed
+     */
+    private void retryDue() {
+        if (retries.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<Receipt> due = new ArrayList<>();
+        for (Retry retry : retries.values()) {
+            if (retry.dueNanos() - now <= 0) {
+                due.add(retry.receipt());
+            }
+        }
+        if (!due.isEmpty()) {
+            flush(due);
+        }
+    }
+
+    private long untilNextRetry() {
+        long now = System.nanoTime();
+        long wait = Long.MAX_VALUE;
+        for (Retry retry : retries.values()) {
+            wait = Math.min(wait, Math.max(0, retry.dueNanos() - now));
+        }
+        return wait;
+    }
+
+    /**
+     * Writes the receipts waiting for a retry to the dead-letter file, replacing it at once so a
+     * crash leaves either the old or the new list
+     */
+    private void writeDeadLetters() {
+        Path file = properties.deadLetterFile();
+        try {
+            if (retries.isEmpty()) {
+                Files.deleteIfExists(file);
+            } else {
+                Path directory = file.toAbsolutePath().getParent();
+                Files.createDirectories(directory);
+                Path temporary = directory.resolve(file.getFileName() + ".tmp");
+                try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+                    for (Retry retry : retries.values()) {
+                        Receipt receipt = retry.receipt();
+                        out.write(objectMapper.writeValueAsBytes(
+                                new DeadLetter(receipt, receipt.getContentHash(), receipt.getBreakdown())));
+                        out.write('\n');
+                    }
+                    out.flush();
+                    channel.force(true);
+                }
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            retriesChanged = false;
+        } catch (IOException e) {
+            log.error("Could not write the {} receipts waiting for a retry to {}", retries.size(), file, e);
+        }
+    }
+
+    /**
+     * Queues again the receipts left in the dead-letter file by an earlier run
+     */
+    private void readDeadLetters() {
+        Path file = properties.deadLetterFile();
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                DeadLetter deadLetter = objectMapper.readValue(line, DeadLetter.class);
+                Receipt receipt = deadLetter.receipt();
+                receipt.setContentHash(deadLetter.contentHash());
+                receipt.setBreakdown(deadLetter.breakdown());
+                retries.put(receipt.getId(), new Retry(receipt, 0, System.nanoTime()));
+                inFlight.put(receipt.getId(), receipt);
+                if (receipt.getContentHash() != null) {
+                    receiptDeduplicator.remember(receipt.getContentHash(), receipt.getId());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the receipts waiting to be stored from " + file, e);
+        }
+        log.warn("{} accepted receipts from {} queued to be stored again", retries.size(), file);
+    }
+
+    /**
+     * A receipt waiting for another attempt to store it
+     */
+    private record Retry(Receipt receipt, int attempts, long dueNanos) {
+    }
+
+    /**
+     * A line of the dead-letter file, with the fields of the receipt its JSON leaves out
+     */
+    record DeadLetter(Receipt receipt, String contentHash, PointsBreakdown breakdown) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.srinivas.receiptprocessor.store;
+
+import com.srinivas.receiptprocessor.jpa.ReceiptRepository;
+import com.srinivas.receiptprocessor.jpa.ReceiptRow;
+import com.srinivas.receiptprocessor.jpa.RollupRow;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * JpaReceiptStore keeps the receipts in the database through {@link ReceiptRepository}.
+ *
+ * A receipt is one row, its items are stored in a column of it. A receipt that was
+ * neither persisted nor loaded is new to Spring Data even with its id assigned, so saving it
+ * inserts it without the select of a merge. Pages and exports read scalar projections in id
+ * order, keyset based: the next read starts after the last id on the primary key index. Ids are
+ * UUIDs in the database, a string that is not one cannot be the id of a stored receipt. Points
+ * are updated with one batched UPDATE of the points and breakdown columns, without loading the
+ * receipts.
+ */
+@Component
+@ConditionalOnProperty(prefix = "receipts.storage", name = "type", havingValue = "jpa", matchIfMissing = true)
+public class JpaReceiptStore implements ReceiptStore {
+
+    /**
+     * Cursor before the first receipt, every id is greater
+     */
+    private static final String FIRST = "00000000-0000-0000-0000-000000000000";
+
+    /**
+     * Changes only the points and breakdown columns, sent as one JDBC batch for all receipts of
+     * an update
+     */
+    private static final String UPDATE_POINTS = "update receipt set points = ?, breakdown = ? where id = ?";
+
+    private final ReceiptRepository receiptRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public JpaReceiptStore(ReceiptRepository receiptRepository, PlatformTransactionManager transactionManager) {
+        this.receiptRepository = receiptRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public Receipt save(Receipt receipt) {
+        return receiptRepository.save(receipt);
+    }
+
+    @Override
+    public void saveAll(List<Receipt> receipts) {
+        transactionTemplate.executeWithoutResult(status -> receiptRepository.saveAll(receipts));
+    }
+
+    @Override
+    public void insertAll(List<Receipt> receipts) {
+        transactionTemplate.executeWithoutResult(status -> receipts.forEach(entityManager::persist));
+    }
+
+    @Override
+    public void updatePoints(Map<String, PointsBreakdown> breakdowns) {
+        if (breakdowns.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement update = connection.prepareStatement(UPDATE_POINTS)) {
+                for (Map.Entry<String, PointsBreakdown> entry : breakdowns.entrySet()) {
+                    if (ReceiptIdGenerator.isWellFormed(entry.getKey())) {
+                        update.setInt(1, entry.getValue().total());
+                        update.setBytes(2, entry.getValue().pack());
+                        update.setObject(3, UUID.fromString(entry.getKey()));
+                        update.addBatch();
+                    }
+                }
+                update.executeBatch();
+            }
+        }));
+    }
+
+    @Override
+    public Optional<Integer> findPointsById(String id) {
+        return ReceiptIdGenerator.isWellFormed(id) ? receiptRepository.findPointsById(id) : Optional.empty();
+    }
+
+    @Override
+    public Optional<PointsBreakdown> findBreakdownById(String id) {
+        return ReceiptIdGenerator.isWellFormed(id) ? receiptRepository.findBreakdownById(id) : Optional.empty();
+    }
+
+    @Override
+    public Optional<String> findIdByContentHash(String contentHash) {
+        return receiptRepository.findIdByContentHash(contentHash);
+    }
+
+    @Override
+    public Optional<Receipt> findById(String id) {
+        return ReceiptIdGenerator.isWellFormed(id) ? receiptRepository.findById(id) : Optional.empty();
+    }
+
+    @Override
+    public List<RollupRow> rollupByRetailer() {
+        return receiptRepository.rollupByRetailer();
+    }
+
+    @Override
+    public List<RollupRow> rollupByPurchaseDate() {
+        return receiptRepository.rollupByPurchaseDate();
+    }
+
+    @Override
+    public List<Receipt> findPageAfter(String after, int limit) {
+        if (after != null && !ReceiptIdGenerator.isWellFormed(after)) {
+            return List.of();
+        }
+        return receiptRepository.findPageAfter(after == null ? FIRST : after, limit).stream()
+                .map(JpaReceiptStore::toReceipt)
+                .toList();
+    }
+
+    @Override
+    public void forEachAfter(String after, Consumer<Receipt> consumer) {
+        if (after != null && !ReceiptIdGenerator.isWellFormed(after)) {
+            return;
+        }
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<ReceiptRow> rows = receiptRepository.streamAfter(after == null ? FIRST : after)) {
+                rows.forEach(row -> consumer.accept(toReceipt(row)));
+            }
+        });
+    }
+
+    private static Receipt toReceipt(ReceiptRow row) {
+        return Receipt.builder()
+                .id(row.getId())
+                .retailer(row.getRetailer())
+                .purchaseDate(row.getPurchaseDate())
+                .purchaseTime(row.getPurchaseTime())
+                .total(row.getTotal())
+                .points(row.getPoints())
+                .breakdown(row.getBreakdown())
+                .items(row.getItems() == null ? new ArrayList<>() : row.getItems())
+                .build();
+    }
+}
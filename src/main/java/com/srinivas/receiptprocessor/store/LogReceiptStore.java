@@ -0,0 +1,536 @@
+package com.srinivas.receiptprocessor.store;
+
+import com.srinivas.receiptprocessor.config.LogStoreProperties;
+import com.srinivas.receiptprocessor.jpa.RollupRow;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptCodec.Head;
+import com.srinivas.receiptprocessor.store.ReceiptCodec.RollupFields;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * LogReceiptStore keeps the receipts on disk in an append-only {@link SegmentedLog} when
+ * {@code receipts.storage.type} is log.
+ *
+ * Every stored receipt is appended to the log as one record with its points, their breakdown and
+ * its items, and two memory-mapped {@link MappedIndex} files map ids and content hashes to the
+ * location of their record. Writes are sequential appends and a batch of receipts is written at
+ * once; lookups are one probe of the id index and one read of the start of the record, both
+ * served from the page cache once warm, so the receipts do not have to fit on the heap.
+ *
+ * Storing a receipt again under the same id appends a new record and moves the id to it, the old
+ * record stays in the log but is no longer live: a record is live while the id index points to
+ * it. Updating the points of a receipt appends an update record of a few dozen bytes with the new
+ * points and breakdown and the location of the receipt record, and moves the id to it; the
+ * receipt record stays where it is and is live through its update. Pages and exports read the
+ * live receipts in the order they were first appended. The rollups per retailer and per purchase
+ * date are computed together in one scan of the log when the application starts, reading only
+ * the fields before the items of every record.
+ *
+ * The indexes are checkpointed every {@code checkpoint-interval} bytes of log: the log is forced
+ * to disk, then the indexes, then the log location they are complete up to is recorded in them.
+ * On startup only the records after the checkpoint are indexed again, and a record torn by a
+ * crash at the end of the log is cut off.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "receipts.storage", name = "type", havingValue = "log")
+public class LogReceiptStore implements ReceiptStore {
+
+    private final SegmentedLog receiptLog;
+
+    private final MappedIndex ids;
+
+    private final MappedIndex hashes;
+
+    private final long checkpointInterval;
+
+    private final ReceiptIdGenerator receiptIdGenerator;
+
+    /**
+     * Records the rollup scan visits under one hold of the read lock
+     */
+    private static final int ROLLUP_LOCK_RECORDS = 1024;
+
+    /**
+     * Appends and index updates take the write lock, index lookups the read lock. Log reads need
+     * no lock, so a long export does not hold up writes.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private long uncheckpointedBytes;
+
+    public LogReceiptStore(LogStoreProperties properties, ReceiptIdGenerator receiptIdGenerator) throws IOException {
+        Path directory = properties.directory();
+        Files.createDirectories(directory);
+        this.checkpointInterval = properties.checkpointInterval().toBytes();
+        this.receiptIdGenerator = receiptIdGenerator;
+        this.receiptLog = SegmentedLog.open(directory, properties.segmentSize().toBytes(), properties.fsync());
+        this.ids = MappedIndex.open(directory.resolve("ids.idx"), properties.indexCapacity());
+        this.hashes = MappedIndex.open(directory.resolve("hashes.idx"), properties.indexCapacity());
+        recover(directory);
+    }
+
+    @Override
+    public Receipt save(Receipt receipt) {
+        append(List.of(receipt));
+        return receipt;
+    }
+
+    @Override
+    public void saveAll(List<Receipt> receipts) {
+        append(receipts);
+    }
+
+    @Override
+    public void insertAll(List<Receipt> receipts) {
+        append(receipts);
+    }
+
+    /**
+     * Appends an update record for every stored receipt, pointing at its receipt record, so the
+     * items are not written again and the receipts keep their place in the order
+     */
+    @Override
+    public void updatePoints(Map<String, PointsBreakdown> breakdowns) {
+        lock.writeLock().lock();
+        try {
+            List<Head> heads = new ArrayList<>(breakdowns.size());
+            List<byte[]> payloads = new ArrayList<>(breakdowns.size());
+            breakdowns.forEach((id, breakdown) -> {
+                long location = locate(id);
+                Head live = location < 0 ? null : readHead(location);
+                if (live != null) {
+                    Head head = new Head(breakdown.total(), id, live.contentHash(),
+                            live.isUpdate() ? live.receipt() : location);
+                    heads.add(head);
+                    payloads.add(ReceiptCodec.encodeUpdate(head, breakdown));
+                }
+            });
+            if (!heads.isEmpty()) {
+                write(heads, payloads);
+            }
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not append to the receipt log", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Integer> findPointsById(String id) {
+        Head[] found = new Head[1];
+        locked(() -> ids.get(ReceiptCodec.hash(id), location -> {
+            Head head = readHead(location);
+            if (head != null && id.equals(head.id())) {
+                found[0] = head;
+                return true;
+            }
+            return false;
+        }));
+        return found[0] == null ? Optional.empty() : Optional.of(found[0].points());
+    }
+
+    /**
+     * Reads the start of the record, the breakdown is in its head; records written before it was
+     * kept there, and heads longer than usual, are read whole
+     */
+    @Override
+    public Optional<PointsBreakdown> findBreakdownById(String id) {
+        long location = locked(() -> locate(id));
+        ByteBuffer start = location < 0 ? null : read(location, ReceiptCodec.HEAD_BYTES);
+        if (start == null) {
+            return Optional.empty();
+        }
+        if (ReceiptCodec.breakdownInHead(start)) {
+            try {
+                return Optional.ofNullable(ReceiptCodec.breakdown(start));
+            } catch (BufferUnderflowException e) {
+                // the head is longer than HEAD_BYTES
+            }
+        }
+        ByteBuffer payload = read(location, Integer.MAX_VALUE);
+        return payload == null ? Optional.empty() : Optional.ofNullable(ReceiptCodec.breakdown(payload));
+    }
+
+    @Override
+    public Optional<String> findIdByContentHash(String contentHash) {
+        return Optional.ofNullable(locked(() -> liveIdByContentHash(contentHash)));
+    }
+
+    @Override
+    public Optional<Receipt> findById(String id) {
+        long location = locked(() -> locate(id));
+        ByteBuffer payload = location < 0 ? null : read(location, Integer.MAX_VALUE);
+        if (payload == null) {
+            return Optional.empty();
+        }
+        Head head = ReceiptCodec.head(payload);
+        if (!head.isUpdate()) {
+            return Optional.of(ReceiptCodec.decode(payload));
+        }
+        ByteBuffer receipt = read(head.receipt(), Integer.MAX_VALUE);
+        return receipt == null ? Optional.empty() : Optional.of(updated(ReceiptCodec.decode(receipt), payload));
+    }
+
+    @Override
+    public List<RollupRow> rollupByRetailer() {
+        return rollups().byRetailer();
+    }
+
+    @Override
+    public List<RollupRow> rollupByPurchaseDate() {
+        return rollups().byPurchaseDate();
+    }
+
+    /**
+     * Both rollups in one scan of the log. The items of a record are never read and the read lock
+     * is taken once for every {@code ROLLUP_LOCK_RECORDS} records rather than for every record.
+     * Update records are skipped, their points are counted at the receipt record they update.
+     */
+    @Override
+    public Rollups rollups() {
+        Map<String, long[]> retailers = new HashMap<>();
+        Map<String, long[]> purchaseDates = new HashMap<>();
+        int[] visited = new int[1];
+        lock.readLock().lock();
+        try {
+            scan(0, (location, payload) -> {
+                if (++visited[0] % ROLLUP_LOCK_RECORDS == 0) {
+                    // lets a waiting append in
+                    lock.readLock().unlock();
+                    lock.readLock().lock();
+                }
+                Head head = ReceiptCodec.head(payload);
+                long live = head.isUpdate() ? -1 : liveLocation(head.id(), location);
+                if (live >= 0) {
+                    int points = live == location ? head.points() : readHead(live).points();
+                    RollupFields fields = ReceiptCodec.rollupFields(payload);
+                    add(retailers, fields.retailer(), points);
+                    add(purchaseDates, fields.purchaseDate(), points);
+                }
+                return true;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new Rollups(rows(retailers), rows(purchaseDates));
+    }
+
+    @Override
+    public List<Receipt> findPageAfter(String after, int limit) {
+        List<Receipt> page = new ArrayList<>(Math.min(limit, 1024));
+        scanLive(after, receipt -> {
+            page.add(receipt);
+            return page.size() < limit;
+        });
+        return page;
+    }
+
+    @Override
+    public void forEachAfter(String after, Consumer<Receipt> consumer) {
+        scanLive(after, receipt -> {
+            consumer.accept(receipt);
+            return true;
+        });
+    }
+
+    /**
+     * Method to checkpoint the indexes and close the files
+     * @throws IOException
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            checkpoint();
+            ids.close();
+            hashes.close();
+            receiptLog.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes the records after the checkpoint of the indexes, from the start of the log when a
+     * checkpoint is past its end
+     */
+    private void recover(Path directory) throws IOException {
+        long started = System.nanoTime();
+        long from = Math.min(ids.checkpoint(), hashes.checkpoint());
+        if (Math.max(ids.checkpoint(), hashes.checkpoint()) > receiptLog.end()) {
+            log.warn("The receipt indexes in {} are ahead of the log, rebuilding them", directory);
+            ids.clear();
+            hashes.clear();
+            from = 0;
+        }
+        long[] replayed = new long[1];
+        IOException[] failure = new IOException[1];
+        receiptLog.recover(from, (location, payload) -> {
+            try {
+                index(ReceiptCodec.head(payload), location);
+                replayed[0]++;
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+            return true;
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        checkpoint();
+        log.info("Opened the receipt log in {} with {} receipts, indexed {} records after the checkpoint in {} ms",
+                directory, ids.size(), replayed[0], (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Appends receipts as one write after checking no content hash is stored under another id
+     */
+    private void append(List<Receipt> receipts) {
+        List<byte[]> payloads = new ArrayList<>(receipts.size());
+        for (Receipt receipt : receipts) {
+            if (receipt.getId() == null) {
+                receipt.setId(receiptIdGenerator.next());
+            }
+            payloads.add(ReceiptCodec.encode(receipt));
+        }
+
+        lock.writeLock().lock();
+        try {
+            Map<String, String> batchHashes = new HashMap<>();
+            for (Receipt receipt : receipts) {
+                String contentHash = receipt.getContentHash();
+                if (contentHash == null) {
+                    continue;
+                }
+                String owner = batchHashes.putIfAbsent(contentHash, receipt.getId());
+                if (owner == null) {
+                    owner = liveIdByContentHash(contentHash);
+                }
+                if (owner != null && !owner.equals(receipt.getId())) {
+                    throw new DataIntegrityViolationException("The content hash of receipt " + receipt.getId()
+                            + " is already stored for receipt " + owner);
+                }
+            }
+
+            List<Head> heads = new ArrayList<>(receipts.size());
+            for (Receipt receipt : receipts) {
+                heads.add(new Head(receipt.getPoints(), receipt.getId(), receipt.getContentHash(), -1));
+            }
+            write(heads, payloads);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not append to the receipt log", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Appends records as one write and indexes them, under the write lock
+     */
+    private void write(List<Head> heads, List<byte[]> payloads) throws IOException {
+        long[] locations = receiptLog.append(payloads);
+        for (int i = 0; i < heads.size(); i++) {
+            index(heads.get(i), locations[i]);
+            uncheckpointedBytes += SegmentedLog.FRAME_BYTES + payloads.get(i).length;
+        }
+        if (uncheckpointedBytes >= checkpointInterval) {
+            checkpoint();
+        }
+    }
+
+    private void index(Head head, long location) throws IOException {
+        String id = head.id();
+        ids.put(ReceiptCodec.hash(id), location, stored -> {
+            Head storedHead = readHead(stored);
+            return storedHead != null && id.equals(storedHead.id());
+        });
+        String contentHash = head.contentHash();
+        if (contentHash != null) {
+            hashes.put(ReceiptCodec.hash(contentHash), location, stored -> {
+                Head storedHead = readHead(stored);
+                return storedHead != null && contentHash.equals(storedHead.contentHash());
+            });
+        }
+    }
+
+    private void checkpoint() throws IOException {
+        receiptLog.force();
+        long end = receiptLog.end();
+        ids.checkpoint(end);
+        hashes.checkpoint(end);
+        uncheckpointedBytes = 0;
+    }
+
+    /**
+     * The location of the live record of an id, -1 when there is none, under the lock
+     */
+    private long locate(String id) {
+        return ids.get(ReceiptCodec.hash(id), location -> {
+            Head head = readHead(location);
+            return head != null && id.equals(head.id());
+        });
+    }
+
+    /**
+     * The id of the live receipt with a content hash, null when there is none, under the lock
+     */
+    private String liveIdByContentHash(String contentHash) {
+        String[] found = new String[1];
+        hashes.get(ReceiptCodec.hash(contentHash), location -> {
+            Head head = readHead(location);
+            if (head != null && contentHash.equals(head.contentHash()) && isLive(head.id(), location)) {
+                found[0] = head.id();
+                return true;
+            }
+            return false;
+        });
+        return found[0];
+    }
+
+    private boolean isLive(String id, long location) {
+        return ids.get(ReceiptCodec.hash(id), stored -> stored == location) == location;
+    }
+
+    /**
+     * The location of the live record of the receipt record at a location: the location itself,
+     * that of the update record of the receipt, or -1 when the receipt was stored again, under
+     * the lock
+     */
+    private long liveLocation(String id, long location) {
+        if (isLive(id, location)) {
+            return location;
+        }
+        long live = locate(id);
+        Head head = live < 0 ? null : readHead(live);
+        return head != null && head.receipt() == location ? live : -1;
+    }
+
+    /**
+     * Calls the visitor with the live receipts after a receipt in the order their receipt records
+     * were appended, without holding the lock while the visitor runs
+     */
+    private void scanLive(String after, Function<Receipt, Boolean> visitor) {
+        long from = 0;
+        if (after != null) {
+            long location = locked(() -> locate(after));
+            if (location < 0) {
+                return;
+            }
+            Head head = readHead(location);
+            try {
+                from = receiptLog.next(head.isUpdate() ? head.receipt() : location);
+            } catch (IOException e) {
+                throw new DataAccessResourceFailureException("Could not read the receipt log", e);
+            }
+        }
+        scan(from, (location, payload) -> {
+            Head head = ReceiptCodec.head(payload);
+            long live = head.isUpdate() ? -1 : locked(() -> liveLocation(head.id(), location));
+            if (live < 0) {
+                return true;
+            }
+            Receipt receipt = ReceiptCodec.decode(payload);
+            return visitor.apply(live == location ? receipt : updated(receipt, read(live, Integer.MAX_VALUE)));
+        });
+    }
+
+    /**
+     * Sets the points and breakdown of an update record on its receipt
+     */
+    private static Receipt updated(Receipt receipt, ByteBuffer update) {
+        receipt.setPoints(ReceiptCodec.head(update).points());
+        receipt.setBreakdown(ReceiptCodec.breakdown(update));
+        return receipt;
+    }
+
+    private static void add(Map<String, long[]> groups, String key, int points) {
+        long[] group = groups.computeIfAbsent(key, k -> new long[2]);
+        group[0]++;
+        group[1] += points;
+    }
+
+    private static List<RollupRow> rows(Map<String, long[]> groups) {
+        List<RollupRow> rows = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> rows.add(new Rollup(key, group[0], group[1])));
+        return rows;
+    }
+
+    private void scan(long from, SegmentedLog.Visitor visitor) {
+        try {
+            receiptLog.scan(from, visitor);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not read the receipt log", e);
+        }
+    }
+
+    /**
+     * Reads the head of a record, the whole record when the head is longer than usual
+     */
+    private Head readHead(long location) {
+        ByteBuffer payload = read(location, ReceiptCodec.HEAD_BYTES);
+        try {
+            return payload == null ? null : ReceiptCodec.head(payload);
+        } catch (BufferUnderflowException e) {
+            payload = read(location, Integer.MAX_VALUE);
+            return payload == null ? null : ReceiptCodec.head(payload);
+        }
+    }
+
+    private ByteBuffer read(long location, int maxPayload) {
+        try {
+            return receiptLog.read(location, maxPayload);
+        } catch (IOException e) {
+            throw new DataAccessResourceFailureException("Could not read the receipt log", e);
+        }
+    }
+
+    private <T> T locked(Supplier<T> lookup) {
+        lock.readLock().lock();
+        try {
+            return lookup.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Rollup(String groupKey, long receipts, long points) implements RollupRow {
+
+        @Override
+        public String getGroupKey() {
+            return groupKey;
+        }
+
+        @Override
+        public long getReceipts() {
+            return receipts;
+        }
+
+        @Override
+        public long getPoints() {
+            return points;
+        }
+    }
+}
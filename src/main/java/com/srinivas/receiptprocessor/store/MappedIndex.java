@@ -0,0 +1,246 @@
+package com.srinivas.receiptprocessor.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongPredicate;
+
+/**
+ * MappedIndex maps keys to log locations in a memory-mapped hash table file.
+ *
+ * The file is a 64 byte header, holding the capacity, the number of keys and the checkpoint,
+ * followed by the slots: the 64-bit hash of a key and its location plus one, 0 for an empty slot.
+ * Collisions are resolved by linear probing and the table is doubled into a new file when it is
+ * half full. Only hashes are stored, so the caller confirms a slot is for its key by looking at
+ * the record the slot points to.
+ *
+ * Writes go to the page cache through the mapping and reach the disk when the operating system
+ * writes them back or at a checkpoint. The checkpoint is the log location up to which every
+ * record is known to be in the index; after a crash only the records from it on are indexed
+ * again, and since putting a key again is harmless, slots written after the checkpoint do not
+ * need to be undone.
+ *
+ * Not thread safe, {@link LogReceiptStore} guards it with its lock.
+ */
+final class MappedIndex implements Closeable {
+
+    private static final long MAGIC = 0x5243505449445831L;
+
+    private static final int HEADER_BYTES = 64;
+
+    private static final int CAPACITY_OFFSET = 8;
+
+    private static final int SIZE_OFFSET = 16;
+
+    private static final int CHECKPOINT_OFFSET = 24;
+
+    private static final int SLOT_BYTES = 16;
+
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Largest number of slots, a single mapping cannot be larger than 2 GB
+     */
+    static final int MAX_CAPACITY = 1 << 26;
+
+    private final Path path;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    private int capacity;
+
+    private int size;
+
+    private MappedIndex(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = (int) buffer.getLong(CAPACITY_OFFSET);
+        this.size = (int) buffer.getLong(SIZE_OFFSET);
+    }
+
+    /**
+     * Method to open an index file, or to create it when there is none or it is not an index
+     * @param path
+     * @param capacity slots of a new index, rounded up to a power of two
+     * @return
+     * @throws IOException
+     */
+    static MappedIndex open(Path path, int capacity) throws IOException {
+        if (Files.exists(path)) {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long stored = channel.size() >= HEADER_BYTES ? readCapacity(channel) : -1;
+            if (stored >= MIN_CAPACITY && stored <= MAX_CAPACITY && Long.bitCount(stored) == 1
+                    && channel.size() == HEADER_BYTES + stored * SLOT_BYTES) {
+                return new MappedIndex(path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            }
+            channel.close();
+        }
+        return create(path, capacity);
+    }
+
+    /**
+     * Method to create an empty index file, replacing the file there is
+     * @param path
+     * @param capacity slots, rounded up to a power of two
+     * @return
+     * @throws IOException
+     */
+    static MappedIndex create(Path path, int capacity) throws IOException {
+        int slots = Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.min(capacity, MAX_CAPACITY) - 1) << 1);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slots * SLOT_BYTES);
+        buffer.putLong(0, MAGIC);
+        buffer.putLong(CAPACITY_OFFSET, slots);
+        buffer.putLong(SIZE_OFFSET, 0);
+        buffer.putLong(CHECKPOINT_OFFSET, 0);
+        buffer.force();
+        return new MappedIndex(path, channel, buffer);
+    }
+
+    /**
+     * Method to find the location of a key
+     * @param hash the hash of the key
+     * @param matches whether the record at a location is the one of the key
+     * @return the first location with the hash that matches, -1 when there is none
+     */
+    long get(long hash, LongPredicate matches) {
+        int mask = capacity - 1;
+        for (int i = (int) hash & mask, probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+            int slot = HEADER_BYTES + i * SLOT_BYTES;
+            long stored = buffer.getLong(slot + Long.BYTES);
+            if (stored == 0) {
+                return -1;
+            }
+            if (buffer.getLong(slot) == hash && matches.test(stored - 1)) {
+                return stored - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Method to set the location of a key
+     * @param hash the hash of the key
+     * @param location
+     * @param sameKey whether the record at a location has the same key, its slot is then reused
+     * @throws IOException when the index has to grow and cannot
+     */
+    void put(long hash, long location, LongPredicate sameKey) throws IOException {
+        if (2L * (size + 1) > capacity) {
+            grow();
+        }
+        int mask = capacity - 1;
+        for (int i = (int) hash & mask, probes = 0; probes < capacity; i = (i + 1) & mask, probes++) {
+            int slot = HEADER_BYTES + i * SLOT_BYTES;
+            long stored = buffer.getLong(slot + Long.BYTES);
+            if (stored == 0) {
+                buffer.putLong(slot, hash);
+                buffer.putLong(slot + Long.BYTES, location + 1);
+                buffer.putLong(SIZE_OFFSET, ++size);
+                return;
+            }
+            if (buffer.getLong(slot) == hash && sameKey.test(stored - 1)) {
+                buffer.putLong(slot + Long.BYTES, location + 1);
+                return;
+            }
+        }
+        // the stored size was behind the slots after a crash
+        grow();
+        put(hash, location, sameKey);
+    }
+
+    /**
+     * Method to get the location up to which every record is in the index
+     * @return
+     */
+    long checkpoint() {
+        return buffer.getLong(CHECKPOINT_OFFSET);
+    }
+
+    /**
+     * Method to force the slots to disk and then record the checkpoint
+     * @param location every record before it is in the index
+     */
+    void checkpoint(long location) {
+        buffer.force();
+        buffer.putLong(CHECKPOINT_OFFSET, location);
+        buffer.force(0, HEADER_BYTES);
+    }
+
+    /**
+     * Method to remove every key and the checkpoint
+     */
+    void clear() {
+        for (int slot = HEADER_BYTES; slot < HEADER_BYTES + capacity * SLOT_BYTES; slot += Long.BYTES) {
+            buffer.putLong(slot, 0);
+        }
+        size = 0;
+        buffer.putLong(SIZE_OFFSET, 0);
+        buffer.putLong(CHECKPOINT_OFFSET, 0);
+        buffer.force();
+    }
+
+    /**
+     * Method to get the number of keys
+     * @return
+     */
+    int size() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Rehashes the slots into a file of twice the capacity next to this one and moves it over this
+     * one, so a crash leaves either index whole
+     */
+    private void grow() throws IOException {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IOException("The index " + path + " is full at " + size + " keys");
+        }
+        Path grownPath = path.resolveSibling(path.getFileName() + ".tmp");
+        MappedIndex grown = create(grownPath, 2 * capacity);
+        int mask = grown.capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            int slot = HEADER_BYTES + i * SLOT_BYTES;
+            long stored = buffer.getLong(slot + Long.BYTES);
+            if (stored == 0) {
+                continue;
+            }
+            long hash = buffer.getLong(slot);
+            int j = (int) hash & mask;
+            while (grown.buffer.getLong(HEADER_BYTES + j * SLOT_BYTES + Long.BYTES) != 0) {
+                j = (j + 1) & mask;
+            }
+            grown.buffer.putLong(HEADER_BYTES + j * SLOT_BYTES, hash);
+            grown.buffer.putLong(HEADER_BYTES + j * SLOT_BYTES + Long.BYTES, stored);
+            grown.size++;
+        }
+        grown.buffer.putLong(SIZE_OFFSET, grown.size);
+        grown.checkpoint(checkpoint());
+        Files.move(grownPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.close();
+        channel = grown.channel;
+        buffer = grown.buffer;
+        capacity = grown.capacity;
+        size = grown.size;
+    }
+
+    private static long readCapacity(FileChannel channel) throws IOException {
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        return header.getLong(0) == MAGIC ? header.getLong(CAPACITY_OFFSET) : -1;
+    }
+}
@@ -0,0 +1,329 @@
+package com.srinivas.receiptprocessor.store;
+
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReceiptCodec writes a scored receipt as the payload of a log record and reads it back.
+ *
+ * <pre>
+ * int    {@link #RECEIPT}
+ * int    points
+ * string id, contentHash
+ * bytes  points breakdown, packed
+ * string retailer, purchaseDate, purchaseTime, total
+ * int    item count, -1 for no item list
+ * string shortDescription, price     for every item
+ * </pre>
+ *
+ * A string is its length in UTF-8 bytes, -1 for null, followed by the bytes, and the packed
+ * breakdown is written the same way. The points, id, content hash and breakdown come first so a
+ * lookup only has to read the start of a record. Records written before that start with the
+ * points and keep the breakdown after the items, or end after the items when they were written
+ * before breakdowns were kept; they are read with no breakdown then.
+ *
+ * New points of a stored receipt are written as an update record, which leaves the receipt
+ * record as it is and replaces its points and breakdown:
+ *
+ * <pre>
+ * int    {@link #UPDATE}
+ * int    points
+ * string id, contentHash
+ * long   location of the receipt record
+ * bytes  points breakdown, packed
+ * </pre>
+ */
+final class ReceiptCodec {
+
+    /**
+     * Bytes of a record read for its head, enough for the head and breakdown of any receipt with a
+     * UUID id
+     */
+    static final int HEAD_BYTES = 256;
+
+    /**
+     * Starts a receipt record with the breakdown in its head, where older receipt records start
+     * with their points
+     */
+    static final int RECEIPT = Integer.MIN_VALUE + 1;
+
+    /**
+     * Starts an update record where a receipt record starts with its points, which are never
+     * this low
+     */
+    static final int UPDATE = Integer.MIN_VALUE;
+
+    private ReceiptCodec() {
+    }
+
+    /**
+     * The fields of a record needed to answer lookups
+     * @param receipt the location of the receipt record an update record is for, -1 for a
+     *                receipt record
+     */
+    record Head(int points, String id, String contentHash, long receipt) {
+
+        boolean isUpdate() {
+            return receipt >= 0;
+        }
+    }
+
+    /**
+     * The fields of a record the rollups are grouped by
+     */
+    record RollupFields(String retailer, String purchaseDate) {
+    }
+
+    static byte[] encode(Receipt receipt) {
+        if (receipt.getPoints() <= RECEIPT) {
+            throw new IllegalArgumentException("Receipt " + receipt.getId() + " has " + receipt.getPoints()
+                    + " points, which mark other records");
+        }
+        List<Item> items = receipt.getItems();
+        int itemCount = items == null ? -1 : items.size();
+        byte[][] strings = new byte[6 + 2 * Math.max(0, itemCount)][];
+        strings[0] = utf8(receipt.getId());
+        strings[1] = utf8(receipt.getContentHash());
+        strings[2] = utf8(receipt.getRetailer());
+        strings[3] = utf8(receipt.getPurchaseDate());
+        strings[4] = utf8(receipt.getPurchaseTime());
+        strings[5] = utf8(receipt.getTotal());
+        for (int i = 0; i < itemCount; i++) {
+            Item item = items.get(i);
+            strings[6 + 2 * i] = utf8(item.getShortDescription());
+            strings[7 + 2 * i] = utf8(item.getPrice());
+        }
+
+        byte[] breakdown = receipt.getBreakdown() == null ? null : receipt.getBreakdown().pack();
+
+        int size = 4 * Integer.BYTES + (breakdown == null ? 0 : breakdown.length);
+        for (byte[] string : strings) {
+            size += Integer.BYTES + (string == null ? 0 : string.length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(RECEIPT);
+        buffer.putInt(receipt.getPoints());
+        put(buffer, strings[0]);
+        put(buffer, strings[1]);
+        put(buffer, breakdown);
+        for (int i = 2; i < 6; i++) {
+            put(buffer, strings[i]);
+        }
+        buffer.putInt(itemCount);
+        for (int i = 6; i < strings.length; i++) {
+            put(buffer, strings[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Method to write an update record
+     * @param head the new points, the id and content hash of the receipt and the location of its
+     *             receipt record
+     * @param breakdown the new points breakdown
+     * @return
+     */
+    static byte[] encodeUpdate(Head head, PointsBreakdown breakdown) {
+        byte[] id = utf8(head.id());
+        byte[] contentHash = utf8(head.contentHash());
+        byte[] packed = breakdown.pack();
+        ByteBuffer buffer = ByteBuffer.allocate(6 * Integer.BYTES + Long.BYTES
+                + id.length + (contentHash == null ? 0 : contentHash.length) + packed.length);
+        buffer.putInt(UPDATE);
+        buffer.putInt(head.points());
+        put(buffer, id);
+        put(buffer, contentHash);
+        buffer.putLong(head.receipt());
+        put(buffer, packed);
+        return buffer.array();
+    }
+
+    /**
+     * Method to read the head of a record
+     * @param payload positioned at the start of the payload, backed by an array
+     * @return
+     * @throws BufferUnderflowException when the buffer ends inside the head
+     */
+    static Head head(ByteBuffer payload) {
+        ByteBuffer buffer = payload.duplicate();
+        int points = buffer.getInt();
+        if (points == UPDATE) {
+            points = buffer.getInt();
+            String id = string(buffer);
+            String contentHash = string(buffer);
+            return new Head(points, id, contentHash, buffer.getLong());
+        }
+        if (points == RECEIPT) {
+            points = buffer.getInt();
+        }
+        String id = string(buffer);
+        String contentHash = string(buffer);
+        return new Head(points, id, contentHash, -1);
+    }
+
+    /**
+     * Method to read the fields of a receipt record the rollups are grouped by, which come right
+     * after the head and before the items
+     * @param payload positioned at the start of the payload, backed by an array
+     * @return
+     */
+    static RollupFields rollupFields(ByteBuffer payload) {
+        ByteBuffer buffer = payload.duplicate();
+        boolean breakdownInHead = buffer.getInt() == RECEIPT;
+        if (breakdownInHead) {
+            buffer.position(buffer.position() + Integer.BYTES);
+        }
+        skip(buffer);
+        skip(buffer);
+        if (breakdownInHead) {
+            skip(buffer);
+        }
+        return new RollupFields(string(buffer), string(buffer));
+    }
+
+    /**
+     * Method to read a whole receipt record
+     * @param payload positioned at the start of the payload, backed by an array
+     * @return
+     */
+    static Receipt decode(ByteBuffer payload) {
+        ByteBuffer buffer = payload.duplicate();
+        Receipt receipt = new Receipt();
+        int points = buffer.getInt();
+        boolean breakdownInHead = points == RECEIPT;
+        receipt.setPoints(breakdownInHead ? buffer.getInt() : points);
+        receipt.setId(string(buffer));
+        receipt.setContentHash(string(buffer));
+        if (breakdownInHead) {
+            receipt.setBreakdown(readBreakdown(buffer));
+        }
+        receipt.setRetailer(string(buffer));
+        receipt.setPurchaseDate(string(buffer));
+        receipt.setPurchaseTime(string(buffer));
+        receipt.setTotal(string(buffer));
+        int itemCount = buffer.getInt();
+        if (itemCount >= 0) {
+            List<Item> items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                items.add(Item.builder().shortDescription(string(buffer)).price(string(buffer)).build());
+            }
+            receipt.setItems(items);
+        }
+        if (!breakdownInHead && buffer.hasRemaining()) {
+            receipt.setBreakdown(readBreakdown(buffer));
+        }
+        return receipt;
+    }
+
+    /**
+     * Method to tell whether a record keeps its breakdown in its head, as update records and the
+     * receipt records written since breakdowns moved there do
+     * @param payload positioned at the start of the payload
+     * @return
+     */
+    static boolean breakdownInHead(ByteBuffer payload) {
+        int first = payload.getInt(payload.position());
+        return first == UPDATE || first == RECEIPT;
+    }
+
+    /**
+     * Method to read the points breakdown of a record, skipping the strings before it without
+     * reading them
+     * @param payload positioned at the start of the payload, backed by an array; the start of
+     *                the record is enough when {@link #breakdownInHead(ByteBuffer)}
+     * @return null when the record has no breakdown
+     * @throws BufferUnderflowException when the buffer ends before the breakdown
+     */
+    static PointsBreakdown breakdown(ByteBuffer payload) {
+        ByteBuffer buffer = payload.duplicate();
+        int first = buffer.getInt();
+        if (first == UPDATE || first == RECEIPT) {
+            buffer.position(buffer.position() + Integer.BYTES);
+            skip(buffer);
+            skip(buffer);
+            if (first == UPDATE) {
+                buffer.position(buffer.position() + Long.BYTES);
+            }
+            return readBreakdown(buffer);
+        }
+        for (int i = 0; i < 6; i++) {
+            skip(buffer);
+        }
+        int itemCount = buffer.getInt();
+        for (int i = 0; i < 2 * itemCount; i++) {
+            skip(buffer);
+        }
+        return buffer.hasRemaining() ? readBreakdown(buffer) : null;
+    }
+
+    private static PointsBreakdown readBreakdown(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] packed = new byte[length];
+        buffer.get(packed);
+        return PointsBreakdown.unpack(packed);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters of a key, finished with the MurmurHash3 mix so the low
+     * bits used to pick an index slot are well spread
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] string) {
+        if (string == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(string.length);
+            buffer.put(string);
+        }
+    }
+
+    private static void skip(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,95 @@
+package com.srinivas.receiptprocessor.store;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReceiptIdGenerator assigns the ids of new receipts: version 7 UUIDs, which start with the time
+ * they were generated, so receipts stored one after the other get ids that sort one after the
+ * other and are inserted at the end of the primary key index instead of all over it.
+ *
+ * <pre>
+ * 48 bits  milliseconds since the epoch
+ *  4 bits  version, 7
+ * 12 bits  sequence within the millisecond
+ *  2 bits  variant
+ * 10 bits  node, {@code receipts.ids.node}
+ * 52 bits  random
+ * </pre>
+ *
+ * The sequence makes the ids of one node strictly increasing: when it runs out within a
+ * millisecond, or the clock goes back, the ids carry on from the last one as if the clock had
+ * moved on. Ids of different nodes never collide, and the random bits keep them from being
+ * guessed from one another.
+ */
+@Component
+public class ReceiptIdGenerator {
+
+    /**
+     * Largest node number
+     */
+    public static final int MAX_NODE = (1 << 10) - 1;
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private static final long RANDOM_MASK = (1L << 52) - 1;
+
+    private final Clock clock;
+
+    private final long node;
+
+    /**
+     * Milliseconds and sequence of the last id, shifted together so one compare-and-set moves both
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    public ReceiptIdGenerator(Clock clock, @Value("${receipts.ids.node:0}") int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("The node must be between 0 and " + MAX_NODE);
+        }
+        this.clock = clock;
+        this.node = (long) node << 52;
+    }
+
+    /**
+     * Method to get a new receipt id
+     * @return
+     */
+    public String next() {
+        return nextUuid().toString();
+    }
+
+    /**
+     * Method to get a new receipt id as a UUID
+     * @return
+     */
+    public UUID nextUuid() {
+        long now = clock.millis() << SEQUENCE_BITS;
+        long stamp = last.accumulateAndGet(now, (previous, current) -> Math.max(previous + 1, current));
+        long mostSignificant = (stamp >>> SEQUENCE_BITS) << 16 | 0x7000L | (stamp & ((1 << SEQUENCE_BITS) - 1));
+        long leastSignificant = 0x8000000000000000L | node | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    /**
+     * Method to check a string has the form of a receipt id, anything else cannot be stored
+     * @param id
+     * @return
+     */
+    public static boolean isWellFormed(String id) {
+        if (id == null || id.length() != 36) {
+            return false;
+        }
+        try {
+            UUID.fromString(id);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
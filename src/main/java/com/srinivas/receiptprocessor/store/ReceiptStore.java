@@ -0,0 +1,127 @@
+package com.srinivas.receiptprocessor.store;
+
+import com.srinivas.receiptprocessor.jpa.RollupRow;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * ReceiptStore is where scored receipts are kept, selected with {@code receipts.storage.type}.
+ *
+ * <ul>
+ *     <li>jpa: the JPA repositories over the configured datasource, the default</li>
+ *     <li>log: an append-only segmented log on disk with memory-mapped indexes, see
+ *     {@link LogReceiptStore}</li>
+ * </ul>
+ *
+ * Storing a receipt whose content hash is already stored under another id fails with a
+ * {@link org.springframework.dao.DataIntegrityViolationException} in both stores.
+ */
+public interface ReceiptStore {
+
+    /**
+     * The number of receipts and the total points per retailer and per purchase date
+     */
+    record Rollups(List<RollupRow> byRetailer, List<RollupRow> byPurchaseDate) {
+    }
+
+    /**
+     * Method to store a scored receipt with its items, an id is assigned when it has none
+     * @param receipt
+     * @return the stored receipt
+     */
+    Receipt save(Receipt receipt);
+
+    /**
+     * Method to store scored receipts together, either all of them or none. A receipt with the
+     * id of a stored receipt replaces it.
+     * @param receipts
+     */
+    void saveAll(List<Receipt> receipts);
+
+    /**
+     * Method to store scored receipts together that are known to be new, which spares the store
+     * looking for receipts to replace. The receipts must have their ids.
+     * @param receipts
+     */
+    void insertAll(List<Receipt> receipts);
+
+    /**
+     * Method to change the points of stored receipts together, either all of them or none. The
+     * points are set to the total of the breakdown, which is stored with them. Ids that are not
+     * stored are skipped.
+     * @param breakdowns the new points breakdown by receipt id
+     */
+    void updatePoints(Map<String, PointsBreakdown> breakdowns);
+
+    /**
+     * Method to get only the points of a receipt
+     * @param id
+     * @return
+     */
+    Optional<Integer> findPointsById(String id);
+
+    /**
+     * Method to get only the points breakdown of a receipt
+     * @param id
+     * @return empty when there is no receipt with the id or it was stored without a breakdown
+     */
+    Optional<PointsBreakdown> findBreakdownById(String id);
+
+    /**
+     * Method to get the id of the receipt stored with a content hash
+     * @param contentHash
+     * @return
+     */
+    Optional<String> findIdByContentHash(String contentHash);
+
+    /**
+     * Method to get a receipt with its items
+     * @param id
+     * @return
+     */
+    Optional<Receipt> findById(String id);
+
+    /**
+     * Method to get the number of receipts and the total points per retailer
+     * @return
+     */
+    List<RollupRow> rollupByRetailer();
+
+    /**
+     * Method to get the number of receipts and the total points per purchase date
+     * @return
+     */
+    List<RollupRow> rollupByPurchaseDate();
+
+    /**
+     * Method to get the rollups per retailer and per purchase date together. The log store
+     * computes both in one pass over its records, the jpa store runs both queries.
+     * @return
+     */
+    default Rollups rollups() {
+        return new Rollups(rollupByRetailer(), rollupByPurchaseDate());
+    }
+
+    /**
+     * Method to get the receipts stored after a receipt, with their items, in the order of the
+     * store: id order for jpa, the order they were stored in for log. A receipt keeps its place
+     * when its points are updated.
+     * @param after the id of a stored receipt, null to start from the first receipt
+     * @param limit
+     * @return
+     */
+    List<Receipt> findPageAfter(String after, int limit);
+
+    /**
+     * Method to read every receipt stored after a receipt, with its items, one at a time in the
+     * same order as {@link #findPageAfter(String, int)}
+     * @param after the id of a stored receipt, null to start from the first receipt
+     * @param consumer
+     */
+    void forEachAfter(String after, Consumer<Receipt> consumer);
+}
@@ -0,0 +1,378 @@
+package com.srinivas.receiptprocessor.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * SegmentedLog is an append-only log of records split into segment files.
+ *
+ * Every record is framed as its payload length, the CRC32C of its payload and the payload. Records
+ * are only ever appended to the last segment, and a new segment is started once the last one has
+ * reached the segment size, after the full one has been forced to disk. A record is addressed by
+ * its location: the number of its segment in the high bits and its position in the segment in the
+ * low 40 bits, so locations grow in the order records are appended.
+ *
+ * Appends are serialized; reads use positional reads, do not take any lock and only ever see
+ * records before the end of the log at the time they start.
+ */
+final class SegmentedLog implements Closeable {
+
+    /**
+     * Bytes in front of every payload: its length and its CRC32C
+     */
+    static final int FRAME_BYTES = 2 * Integer.BYTES;
+
+    private static final int POSITION_BITS = 40;
+
+    private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+
+    private static final String SUFFIX = ".log";
+
+    private static final int SCAN_BUFFER_BYTES = 1 << 20;
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final boolean fsync;
+
+    /**
+     * Open segments, the number of a segment is its index, replaced as a whole when a segment is added
+     */
+    private volatile FileChannel[] segments;
+
+    /**
+     * Location right after the last appended record
+     */
+    private volatile long end;
+
+    /**
+     * A record read by {@link #scan(long, Visitor)}
+     */
+    interface Visitor {
+
+        /**
+         * Method to look at a record
+         * @param location
+         * @param payload the payload, only valid during the call
+         * @return whether to go on with the next record
+         */
+        boolean visit(long location, ByteBuffer payload);
+    }
+
+    private SegmentedLog(Path directory, long segmentSize, boolean fsync, FileChannel[] segments) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        this.segments = segments;
+        int last = segments.length - 1;
+        this.end = location(last, segments[last].size());
+    }
+
+    /**
+     * Method to open the log in a directory, creating its first segment when there is none.
+     * {@link #recover(long, Visitor)} has to be called before appending to it.
+     * @param directory
+     * @param segmentSize size after which a new segment is started
+     * @param fsync whether every append is forced to disk before it returns
+     * @return
+     * @throws IOException
+     */
+    static SegmentedLog open(Path directory, long segmentSize, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        List<FileChannel> segments = new ArrayList<>();
+        for (Path file : files) {
+            if (!file.equals(segmentPath(directory, segments.size()))) {
+                throw new IOException("The receipt log segment " + file + " is out of sequence");
+            }
+            segments.add(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+        if (segments.isEmpty()) {
+            segments.add(openSegment(directory, 0));
+        }
+        return new SegmentedLog(directory, segmentSize, fsync, segments.toArray(FileChannel[]::new));
+    }
+
+    /**
+     * Method to check the records from a location to the end of the files and cut off a record
+     * torn by a crash at the end of the last segment
+     * @param from the location of a record, every record before it is known to be intact
+     * @param visitor called with every intact record from the location on
+     * @return the end of the log
+     * @throws IOException when a segment before the last one is damaged
+     */
+    synchronized long recover(long from, Visitor visitor) throws IOException {
+        FileChannel[] segments = this.segments;
+        int last = segments.length - 1;
+        long stop = scan(from, location(last, segments[last].size()), (location, payload) -> {
+            visitor.visit(location, payload);
+            return true;
+        });
+        int segment = segment(stop);
+        if (segment < last || position(stop) < segments[last].size()) {
+            if (segment < last) {
+                throw new IOException("The receipt log segment " + segmentPath(directory, segment)
+                        + " is damaged at position " + position(stop));
+            }
+            segments[last].truncate(position(stop));
+            segments[last].force(true);
+        }
+        end = stop;
+        return stop;
+    }
+
+    /**
+     * Method to append records, with one write for all of them
+     * @param payloads
+     * @return the location of every record
+     * @throws IOException
+     */
+    synchronized long[] append(List<byte[]> payloads) throws IOException {
+        FileChannel[] segments = this.segments;
+        int last = segments.length - 1;
+        long position = position(end);
+        if (position >= segmentSize) {
+            // the full segment is never written again, it only has to reach the disk once
+            segments[last].force(false);
+            FileChannel[] added = Arrays.copyOf(segments, segments.length + 1);
+            added[++last] = openSegment(directory, last);
+            this.segments = segments = added;
+            position = 0;
+        }
+
+        long[] locations = new long[payloads.size()];
+        ByteBuffer[] buffers = new ByteBuffer[2 * payloads.size()];
+        long bytes = 0;
+        CRC32C crc = new CRC32C();
+        for (int i = 0; i < payloads.size(); i++) {
+            byte[] payload = payloads.get(i);
+            crc.reset();
+            crc.update(payload);
+            buffers[2 * i] = ByteBuffer.allocate(FRAME_BYTES).putInt(payload.length).putInt((int) crc.getValue()).flip();
+            buffers[2 * i + 1] = ByteBuffer.wrap(payload);
+            locations[i] = location(last, position + bytes);
+            bytes += FRAME_BYTES + payload.length;
+        }
+        FileChannel channel = segments[last];
+        channel.position(position);
+        for (long written = 0; written < bytes; ) {
+            written += channel.write(buffers);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        end = location(last, position + bytes);
+        return locations;
+    }
+
+    /**
+     * Method to read a record
+     * @param location
+     * @param maxPayload bytes of the payload to read at most, the whole payload is checked
+     *                   against its CRC32C only when all of it is read
+     * @return the start of the payload, null when there is no intact record at the location
+     * @throws IOException
+     */
+    ByteBuffer read(long location, int maxPayload) throws IOException {
+        FileChannel channel = channel(location);
+        long limit = limit(location);
+        long position = position(location);
+        if (channel == null || position + FRAME_BYTES > limit) {
+            return null;
+        }
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_BYTES);
+        readFully(channel, frame, position);
+        int length = frame.getInt(0);
+        if (length < 0 || position + FRAME_BYTES + length > limit) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(Math.min(length, maxPayload));
+        readFully(channel, payload, position + FRAME_BYTES);
+        payload.flip();
+        if (payload.limit() == length && checksum(payload) != frame.getInt(Integer.BYTES)) {
+            return null;
+        }
+        return payload;
+    }
+
+    /**
+     * Method to get the location of the record after a record
+     * @param location the location of an intact record
+     * @return
+     * @throws IOException
+     */
+    long next(long location) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel(location), frame, position(location));
+        return location + FRAME_BYTES + frame.getInt(0);
+    }
+
+    /**
+     * Method to read the records from a location to the end of the log, in the order they were
+     * appended, with one sequential read per segment
+     * @param from the location of a record, 0 for the first one
+     * @param visitor
+     * @throws IOException
+     */
+    void scan(long from, Visitor visitor) throws IOException {
+        scan(from, end, visitor);
+    }
+
+    /**
+     * Method to get the location right after the last record
+     * @return
+     */
+    long end() {
+        return end;
+    }
+
+    /**
+     * Method to force the appended records to disk
+     * @throws IOException
+     */
+    synchronized void force() throws IOException {
+        FileChannel[] segments = this.segments;
+        segments[segments.length - 1].force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Scans the intact records from a location up to an end or until the visitor stops
+     * @return the location of the first record not visited
+     */
+    private long scan(long from, long stop, Visitor visitor) throws IOException {
+        FileChannel[] segments = this.segments;
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES).limit(0);
+        // position in the segment of the first byte in the buffer
+        long buffered = 0;
+        int segment = segment(from);
+        long position = position(from);
+        CRC32C crc = new CRC32C();
+        while (segment < segments.length) {
+            long limit = segment == segment(stop) ? position(stop) : segments[segment].size();
+            while (position + FRAME_BYTES <= limit) {
+                if (position < buffered || position + FRAME_BYTES > buffered + buffer.limit()) {
+                    buffer = fill(segments[segment], buffer, position, FRAME_BYTES, limit);
+                    buffered = position;
+                }
+                int offset = (int) (position - buffered);
+                int length = buffer.getInt(offset);
+                if (length < 0 || position + FRAME_BYTES + length > limit) {
+                    return location(segment, position);
+                }
+                if (position + FRAME_BYTES + length > buffered + buffer.limit()) {
+                    buffer = fill(segments[segment], buffer, position, FRAME_BYTES + length, limit);
+                    buffered = position;
+                    offset = 0;
+                }
+                ByteBuffer payload = buffer.slice(offset + FRAME_BYTES, length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+                    return location(segment, position);
+                }
+                if (!visitor.visit(location(segment, position), payload)) {
+                    return location(segment, position);
+                }
+                position += FRAME_BYTES + length;
+            }
+            if (segment == segment(stop) || position < limit) {
+                return location(segment, position);
+            }
+            segment++;
+            position = 0;
+            buffer.limit(0);
+            buffered = 0;
+        }
+        return location(segment, position);
+    }
+
+    /**
+     * Reads the segment from a position into the buffer, as far as it fits, growing the buffer
+     * when it cannot hold the bytes needed
+     */
+    private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, long position, int needed, long limit)
+            throws IOException {
+        if (buffer.capacity() < needed) {
+            buffer = ByteBuffer.allocate(needed);
+        }
+        buffer.clear().limit((int) Math.min(buffer.capacity(), limit - position));
+        readFully(channel, buffer, position);
+        return buffer.flip();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("The receipt log ended early at position " + (position + buffer.position()));
+            }
+        }
+    }
+
+    private static int checksum(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    private FileChannel channel(long location) {
+        FileChannel[] segments = this.segments;
+        int segment = segment(location);
+        return segment < segments.length ? segments[segment] : null;
+    }
+
+    /**
+     * The end of the readable bytes of the segment of a location
+     */
+    private long limit(long location) throws IOException {
+        long end = this.end;
+        int segment = segment(location);
+        if (segment == segment(end)) {
+            return position(end);
+        }
+        FileChannel channel = channel(location);
+        return segment < segment(end) && channel != null ? channel.size() : 0;
+    }
+
+    private static FileChannel openSegment(Path directory, int segment) throws IOException {
+        return FileChannel.open(segmentPath(directory, segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static Path segmentPath(Path directory, int segment) {
+        return directory.resolve(String.format("%020d", segment) + SUFFIX);
+    }
+
+    private static long location(int segment, long position) {
+        return (long) segment << POSITION_BITS | position;
+    }
+
+    private static int segment(long location) {
+        return (int) (location >>> POSITION_BITS);
+    }
+
+    private static long position(long location) {
+        return location & POSITION_MASK;
+    }
+}
@@ -0,0 +1,59 @@
+-- Moves the items of a receipt database created before items were stored in the receipt row
+-- out of the item table and into receipt.items, for H2. Run typed-columns.sql first, then run
+-- this once against a stopped application with a JDK, which compiles the function below, for
+-- example with
+--   java -cp h2.jar org.h2.tools.RunScript -url <jdbc url> -user <user> -script inline-items.sql
+-- The statements change the schema and are not undone on failure, take a backup first.
+
+-- items: the plain encoding of ItemListConverter, a format byte of 0, the item count, then the
+-- description and price in cents of every item. The converter reads plain encodings of any size;
+-- only the encodings it writes itself are deflated.
+--
+-- The item table has no column for the position of an item on its receipt, so the order the
+-- items were submitted in cannot be recovered. The items are written in the order of their ids,
+-- which only makes the result repeatable: the item ids of the original schema are random UUIDs.
+alter table receipt add column if not exists items varbinary(1048576);
+
+create alias item_list as $$
+byte[] itemList(java.sql.Connection connection, String receiptId) throws java.sql.SQLException {
+    java.io.ByteArrayOutputStream items = new java.io.ByteArrayOutputStream();
+    java.util.function.BiConsumer<java.io.ByteArrayOutputStream, Long> varint = (out, value) -> {
+        long rest = value;
+        while ((rest & ~0x7FL) != 0) {
+            out.write((int) (rest & 0x7F) | 0x80);
+            rest >>>= 7;
+        }
+        out.write((int) rest);
+    };
+    long count = 0;
+    try (java.sql.PreparedStatement statement = connection.prepareStatement(
+            "select short_description, price from item where receipt_id = ? order by id")) {
+        statement.setString(1, receiptId);
+        try (java.sql.ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                String description = rows.getString(1);
+                byte[] bytes = description == null
+                        ? null : description.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+                varint.accept(items, bytes == null ? 0L : bytes.length + 1L);
+                if (bytes != null) {
+                    items.writeBytes(bytes);
+                }
+                long price = rows.getLong(2);
+                varint.accept(items, rows.wasNull() ? 0L : price + 1);
+                count++;
+            }
+        }
+    }
+    java.io.ByteArrayOutputStream plain = new java.io.ByteArrayOutputStream(items.size() + 11);
+    plain.write(0);
+    varint.accept(plain, count);
+    plain.writeBytes(items.toByteArray());
+    return plain.toByteArray();
+}
+$$;
+
+update receipt set items = item_list(id) where items is null;
+
+drop alias item_list;
+drop table item;
+drop sequence if exists item_id_seq;
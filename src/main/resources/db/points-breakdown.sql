@@ -0,0 +1,8 @@
+-- Adds the points breakdown column to a receipt database created before breakdowns were kept,
+-- for H2. Run it once against a stopped application, for example with
+--   java -cp h2.jar org.h2.tools.RunScript -url <jdbc url> -user <user> -script points-breakdown.sql
+-- The receipts keep their points and have no breakdown until they are rescored with
+-- POST /receipts/rescore, which stores one for every receipt without it.
+
+-- breakdown: the points of every rule, packed, see PointsBreakdown
+alter table receipt add column breakdown varbinary(36);
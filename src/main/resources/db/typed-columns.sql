@@ -0,0 +1,33 @@
+-- Converts a receipt database created before amounts, dates and times were stored as numbers,
+-- for H2. Run it once against a stopped application, for example with
+--   java -cp h2.jar org.h2.tools.RunScript -url <jdbc url> -user <user> -script typed-columns.sql
+-- The statements change the schema and are not undone on failure, take a backup first.
+
+-- total: whole cents, or the total as it was received when it is not of the form 0.00
+alter table receipt add column total_cents bigint;
+alter table receipt add column total_text varchar(64);
+update receipt set total_cents = cast(replace(total, '.', '') as bigint)
+    where regexp_like(total, '^[0-9]{1,15}\.[0-9]{2}$');
+update receipt set total_text = total where total_cents is null;
+alter table receipt drop column total;
+alter table receipt alter column total_cents rename to total;
+
+-- purchase_date: days since 1970-01-01
+alter table receipt add column purchase_day integer;
+update receipt set purchase_day = datediff(day, date '1970-01-01', cast(purchase_date as date));
+alter table receipt drop column purchase_date;
+alter table receipt alter column purchase_day rename to purchase_date;
+
+-- purchase_time: minute of the day
+alter table receipt add column purchase_minute smallint;
+update receipt set purchase_minute =
+    cast(substring(purchase_time, 1, locate(':', purchase_time) - 1) as smallint) * 60
+    + cast(substring(purchase_time, locate(':', purchase_time) + 1) as smallint);
+alter table receipt drop column purchase_time;
+alter table receipt alter column purchase_minute rename to purchase_time;
+
+-- price: cents, prices are always of the form 0.00
+alter table item add column price_cents bigint;
+update item set price_cents = cast(replace(price, '.', '') as bigint);
+alter table item drop column price;
+alter table item alter column price_cents rename to price;
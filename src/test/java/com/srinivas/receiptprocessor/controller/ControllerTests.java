@@ -1,16 +1,32 @@
 package com.srinivas.receiptprocessor.controller;
 
+import com.srinivas.receiptprocessor.DTO.BatchResultDTO;
+import com.srinivas.receiptprocessor.DTO.PointsBreakdownDTO;
 import com.srinivas.receiptprocessor.DTO.PointsResponseDTO;
 import com.srinivas.receiptprocessor.DTO.PostResponseDTO;
+import com.srinivas.receiptprocessor.DTO.LeaderboardDTO;
+import com.srinivas.receiptprocessor.DTO.RejectionDTO;
+import com.srinivas.receiptprocessor.DTO.RollupDTO;
+import com.srinivas.receiptprocessor.DTO.ScoreResultDTO;
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
 import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
 import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.service.ReceiptBatchService;
+import com.srinivas.receiptprocessor.service.ReceiptRollups;
+import com.srinivas.receiptprocessor.service.ReceiptScoringService;
 import com.srinivas.receiptprocessor.service.ReceiptService;
+import com.srinivas.receiptprocessor.service.RejectionReason;
+import com.srinivas.receiptprocessor.service.RetailerLeaderboard;
+import com.srinivas.receiptprocessor.service.SaveResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -18,6 +34,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
 public class ControllerTests{
@@ -28,6 +45,18 @@ public class ControllerTests{
     @Mock
     private ReceiptService receiptService;
 
+    @Mock
+    private ReceiptBatchService receiptBatchService;
+
+    @Mock
+    private ReceiptScoringService receiptScoringService;
+
+    @Mock
+    private ReceiptRollups receiptRollups;
+
+    @Mock
+    private RetailerLeaderboard retailerLeaderboard;
+
     private Receipt validReceipt;
     private Receipt invalidReceipt;
 
@@ -41,7 +70,8 @@ public class ControllerTests{
     @Test
     void testSaveReceipt_Valid() throws Exception {
         PostResponseDTO postResponseDTO = new PostResponseDTO("bf304611-7746-4f46-b682-1395096106ef");
-        Mockito.when(receiptService.save(Mockito.any(Receipt.class))).thenReturn(postResponseDTO);
+        Mockito.when(receiptService.save(Mockito.any(Receipt.class)))
+                .thenReturn(SaveResult.saved("bf304611-7746-4f46-b682-1395096106ef"));
 
         ResponseEntity<?> response = controller.saveReceipt(validReceipt);
 
@@ -51,19 +81,71 @@ public class ControllerTests{
 
     @Test
     void testSaveReceipt_Invalid() throws Exception {
-        Mockito.when(receiptService.save(Mockito.any(Receipt.class))).thenThrow(new Exception("The receipt is invalid"));
+        List<ViolationDTO> violations = List.of(new ViolationDTO("total", "total-blank", "The total field cannot be blank"));
+        Mockito.when(receiptService.save(Mockito.any(Receipt.class))).thenReturn(SaveResult.invalid(violations));
 
         ResponseEntity<?> response = controller.saveReceipt(invalidReceipt);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-        assertEquals("The receipt is invalid", response.getBody());
+        assertEquals(new RejectionDTO("The receipt is invalid", violations), response.getBody());
+    }
+
+    @Test
+    void testSaveReceipt_Unavailable() throws Exception {
+        Mockito.when(receiptService.save(Mockito.any(Receipt.class))).thenReturn(SaveResult.unavailable());
+
+        ResponseEntity<?> response = controller.saveReceipt(validReceipt);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+    }
+
+    @Test
+    void testSaveReceipt_Error() throws Exception {
+        DataAccessResourceFailureException down = new DataAccessResourceFailureException("database down");
+        Mockito.when(receiptService.save(Mockito.any(Receipt.class))).thenThrow(down);
+
+        assertThrows(DataAccessResourceFailureException.class, () -> controller.saveReceipt(validReceipt));
+
+        ResponseEntity<String> unavailable = controller.storeUnavailable(down);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, unavailable.getStatusCode());
+        assertEquals(RejectionReason.UNAVAILABLE.getMessage(), unavailable.getBody());
+
+        ResponseEntity<String> failed = controller.storeFailed(new DataIntegrityViolationException("constraint"));
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, failed.getStatusCode());
+        assertEquals(RejectionReason.NOT_SAVED.getMessage(), failed.getBody());
+    }
+
+    @Test
+    void testSaveReceipts_Batch() {
+        List<BatchResultDTO> results = List.of(
+                BatchResultDTO.saved("bf304611-7746-4f46-b682-1395096106ef"),
+                BatchResultDTO.rejected("The receipt is invalid"));
+        Mockito.when(receiptBatchService.saveAll(Mockito.anyList())).thenReturn(results);
+
+        ResponseEntity<List<BatchResultDTO>> response = controller.saveReceipts(List.of(validReceipt, invalidReceipt));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+    }
+
+    @Test
+    void testScoreReceipts() {
+        List<ScoreResultDTO> results = List.of(
+                ScoreResultDTO.scored(28),
+                ScoreResultDTO.rejected("The receipt is invalid"));
+        Mockito.when(receiptScoringService.scoreAll(Mockito.anyList())).thenReturn(results);
+
+        ResponseEntity<List<ScoreResultDTO>> response = controller.scoreReceipts(List.of(validReceipt, invalidReceipt));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
+        Mockito.verifyNoInteractions(receiptService, receiptBatchService);
     }
 
     @Test
     void testGetPoints_ExistingReceipt() {
         int points = 30;
-        Mockito.when(receiptService.findById(Mockito.anyString())).thenReturn(Optional.of(validReceipt));
-        Mockito.when(receiptService.getPoints(Mockito.anyString())).thenReturn(points);
+        Mockito.when(receiptService.findPoints(Mockito.anyString())).thenReturn(Optional.of(points));
 
         ResponseEntity<?> response = controller.getPoints("receiptId");
 
@@ -73,7 +155,7 @@ public class ControllerTests{
 
     @Test
     void testGetPoints_NonExistingReceipt() {
-        Mockito.when(receiptService.findById(Mockito.anyString())).thenReturn(Optional.empty());
+        Mockito.when(receiptService.findPoints(Mockito.anyString())).thenReturn(Optional.empty());
 
         ResponseEntity<?> response = controller.getPoints("nonExistingReceiptId");
 
@@ -81,6 +163,44 @@ public class ControllerTests{
         assertEquals("Receipt not found", response.getBody());
     }
 
+    @Test
+    void testGetPointsBreakdown() {
+        PointsBreakdown breakdown = new PointsBreakdown(14, 50, 25, 10, 0, 0, 10);
+        Mockito.when(receiptService.findBreakdown("receiptId")).thenReturn(Optional.of(breakdown));
+        Mockito.when(receiptService.findBreakdown("oldReceiptId")).thenReturn(Optional.empty());
+        Mockito.when(receiptService.findPoints("oldReceiptId")).thenReturn(Optional.of(30));
+        Mockito.when(receiptService.findBreakdown("nonExistingReceiptId")).thenReturn(Optional.empty());
+        Mockito.when(receiptService.findPoints("nonExistingReceiptId")).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = controller.getPointsBreakdown("receiptId");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new PointsBreakdownDTO("receiptId", 109, 14, 50, 25, 10, 0, 0, 10), response.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, controller.getPointsBreakdown("oldReceiptId").getStatusCode());
+        assertEquals("Receipt not found", controller.getPointsBreakdown("nonExistingReceiptId").getBody());
+    }
+
+    @Test
+    void testGetLeaderboard() {
+        LeaderboardDTO leaderboard = new LeaderboardDTO("receipts", false, null, List.of());
+        Mockito.when(retailerLeaderboard.getCapacity()).thenReturn(1024);
+        Mockito.when(retailerLeaderboard.top(RetailerLeaderboard.Ranking.RECEIPTS, 5)).thenReturn(leaderboard);
+
+        assertEquals(leaderboard, controller.getLeaderboard("Receipts", 5).getBody());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getLeaderboard("items", 5).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getLeaderboard("points", 0).getStatusCode());
+    }
+
+    @Test
+    void testGetRetailerStats() {
+        RollupDTO rollup = new RollupDTO("Target", 2, 30, 15.0);
+        Mockito.when(receiptRollups.forRetailer("Target")).thenReturn(Optional.of(rollup));
+        Mockito.when(receiptRollups.forRetailer("Costco")).thenReturn(Optional.empty());
+
+        assertEquals(rollup, controller.getRetailerStats("Target").getBody());
+        assertEquals(HttpStatus.NOT_FOUND, controller.getRetailerStats("Costco").getStatusCode());
+    }
+
 
 
     private Receipt createTestReceipt() {
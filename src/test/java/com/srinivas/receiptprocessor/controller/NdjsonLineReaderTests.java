@@ -0,0 +1,33 @@
+package com.srinivas.receiptprocessor.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class NdjsonLineReaderTests {
+
+    @Test
+    public void testSplitsLinesAndSkipsBlankOnes() {
+        assertEquals(List.of("{\"a\":1}", "{\"b\":2}\r", "{\"c\":3}"),
+                read("{\"a\":1}\n\n  \r\n{\"b\":2}\r\n{\"c\":3}"));
+    }
+
+    @Test
+    public void testLinesLongerThanTheBufferAreKeptWhole() {
+        String longLine = "{\"retailer\":\"" + "x".repeat(200_000) + "\"}";
+
+        assertEquals(List.of("{}", longLine, "{}"), read("{}\n" + longLine + "\n{}\n"));
+    }
+
+    private List<String> read(String ndjson) {
+        NdjsonLineReader reader = new NdjsonLineReader(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        List<String> lines = new ArrayList<>();
+        reader.forEachRemaining(line -> lines.add(new String(line, StandardCharsets.UTF_8)));
+        return lines;
+    }
+}
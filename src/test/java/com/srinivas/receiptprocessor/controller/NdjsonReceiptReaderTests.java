@@ -0,0 +1,67 @@
+package com.srinivas.receiptprocessor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class NdjsonReceiptReaderTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testReadsOneReceiptPerLine() throws Exception {
+        List<Receipt> receipts = read("""
+                {"retailer":"Target","purchaseDate":"2022-01-01","purchaseTime":"13:01","total":"1.25","items":[{"shortDescription":"Gum","price":"1.25"}]}
+
+                {"retailer":"Walmart","purchaseDate":"2022-01-02","purchaseTime":"14:01","total":"2.00","items":[]}
+                """);
+
+        assertEquals(2, receipts.size());
+        assertEquals("Target", receipts.get(0).getRetailer());
+        assertEquals("1.25", receipts.get(0).getItems().get(0).getPrice());
+        assertEquals("Walmart", receipts.get(1).getRetailer());
+    }
+
+    @Test
+    public void testUnboundReceiptIsSkipped() throws Exception {
+        List<Receipt> receipts = read("""
+                {"retailer":"Target","items":{"nested":[1,2,{"a":[3]}]},"total":"1.00"}
+                [1, 2]
+                {"retailer":"Walmart"}
+                """);
+
+        assertEquals(3, receipts.size());
+        assertNull(receipts.get(0));
+        assertNull(receipts.get(1));
+        assertEquals("Walmart", receipts.get(2).getRetailer());
+    }
+
+    @Test
+    public void testMalformedJsonEndsTheStream() throws Exception {
+        List<Receipt> receipts = read("""
+                {"retailer":"Target"}
+                {"retailer": oops}
+                {"retailer":"Walmart"}
+                """);
+
+        assertEquals(2, receipts.size());
+        assertEquals("Target", receipts.get(0).getRetailer());
+        assertNull(receipts.get(1));
+    }
+
+    private List<Receipt> read(String ndjson) throws Exception {
+        NdjsonReceiptReader reader = new NdjsonReceiptReader(objectMapper,
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        List<Receipt> receipts = new ArrayList<>();
+        reader.forEachRemaining(receipts::add);
+        return receipts;
+    }
+}
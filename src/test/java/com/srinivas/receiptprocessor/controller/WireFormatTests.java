@@ -0,0 +1,96 @@
+package com.srinivas.receiptprocessor.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.srinivas.receiptprocessor.DTO.BatchResultDTO;
+import com.srinivas.receiptprocessor.DTO.PointsResponseDTO;
+import com.srinivas.receiptprocessor.DTO.PostResponseDTO;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class WireFormatTests {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testCborReceiptIsScoredAndAnsweredInCbor() throws Exception {
+        MvcResult saved = mockMvc.perform(post("/receipts/process")
+                        .contentType(CBOR).accept(CBOR)
+                        .content(cborMapper.writeValueAsBytes(receipt("Cbor Corner"))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andReturn();
+        String id = cborMapper.readValue(saved.getResponse().getContentAsByteArray(), PostResponseDTO.class).getId();
+
+        MvcResult points = mockMvc.perform(get("/receipts/{id}/points", id).accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+        assertThat(smileMapper.readValue(points.getResponse().getContentAsByteArray(), PointsResponseDTO.class).getPoints())
+                .isEqualTo(points("Cbor Corner"));
+    }
+
+    @Test
+    void testSmileBatchIsAnsweredInSmile() throws Exception {
+        MvcResult saved = mockMvc.perform(post("/receipts/process/batch")
+                        .contentType(SMILE).accept(SMILE)
+                        .content(smileMapper.writeValueAsBytes(List.of(receipt("Smile Market"), receipt("Smile Market 2")))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(SMILE))
+                .andReturn();
+
+        BatchResultDTO[] results = smileMapper.readValue(saved.getResponse().getContentAsByteArray(), BatchResultDTO[].class);
+        assertThat(results).hasSize(2).allSatisfy(result -> assertThat(result.getId()).isNotNull());
+    }
+
+    @Test
+    void testJsonStaysTheDefault() throws Exception {
+        mockMvc.perform(post("/receipts/process")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsBytes(receipt("Json Shop"))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON));
+    }
+
+    private static Receipt receipt(String retailer) {
+        return Receipt.builder()
+                .retailer(retailer)
+                .purchaseDate("2022-01-01")
+                .purchaseTime("13:01")
+                .total("6.49")
+                .items(List.of(Item.builder().shortDescription("Mountain Dew 12PK").price("6.49").build()))
+                .build();
+    }
+
+    private static int points(String retailer) {
+        // letters and digits of the retailer, an odd purchase day and one item
+        return (int) retailer.chars().filter(Character::isLetterOrDigit).count() + 6;
+    }
+}
@@ -1,19 +1,30 @@
 package com.srinivas.receiptprocessor.repository;
 
-import com.srinivas.receiptprocessor.jpa.ItemRepository;
 import com.srinivas.receiptprocessor.jpa.ReceiptRepository;
+import com.srinivas.receiptprocessor.jpa.ReceiptRow;
+import com.srinivas.receiptprocessor.jpa.RollupRow;
 import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
 import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.JpaReceiptStore;
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import jakarta.persistence.EntityManager;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
+import java.time.Clock;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 @DataJpaTest
+@Import(JpaReceiptStore.class)
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
 public class RepositoryTests {
 
@@ -21,7 +32,10 @@ public class RepositoryTests {
     private ReceiptRepository receiptRepository;
 
     @Autowired
-    private ItemRepository itemRepository;
+    private EntityManager entityManager;
+
+    @Autowired
+    private JpaReceiptStore jpaReceiptStore;
 
     @Test
     public void testReceiptRepository() {
@@ -69,39 +83,212 @@ public class RepositoryTests {
     }
 
     @Test
-    public void testItemRepository() {
+    public void testFindPointsById(){
+        Receipt receipt = Receipt.builder()
+                .retailer("Walmart")
+                .purchaseDate("2020-01-01")
+                .purchaseTime("10:00")
+                .total("100.00")
+                .points(10).build();
+
+        Receipt savedReceipt = receiptRepository.save(receipt);
+
+        Assertions.assertThat(receiptRepository.findPointsById(savedReceipt.getId())).contains(10);
+        Assertions.assertThat(receiptRepository.findPointsById("018f3a2c-0000-7000-8000-00000000ffff")).isEmpty();
+    }
+
+    @Test
+    public void testFindIdByContentHash(){
+        Receipt receipt = Receipt.builder()
+                .retailer("Walmart")
+                .purchaseDate("2020-01-01")
+                .purchaseTime("10:00")
+                .total("100.00")
+                .contentHash("0f1e")
+                .points(10).build();
+
+        Receipt savedReceipt = receiptRepository.save(receipt);
+
+        Assertions.assertThat(receiptRepository.findIdByContentHash("0f1e")).contains(savedReceipt.getId());
+        Assertions.assertThat(receiptRepository.findIdByContentHash("missing")).isEmpty();
+    }
+
+    @Test
+    public void testItemsAreStoredWithTheirReceipt() {
+        Receipt receipt = Receipt.builder()
+                .retailer("Walmart")
+                .purchaseDate("2020-01-01")
+                .purchaseTime("10:00")
+                .total("15.00")
+                .items(List.of(Item.builder().shortDescription("Milk").price("10.00").build(),
+                        Item.builder().shortDescription("Bread").price("5.00").build()))
+                .points(10).build();
+
+        receiptRepository.save(receipt);
+        entityManager.flush();
+        entityManager.clear();
+
+        Assertions.assertThat(receiptRepository.findById(receipt.getId()).orElseThrow().getItems())
+                .extracting(Item::getShortDescription, Item::getPrice)
+                .containsExactly(Assertions.tuple("Milk", "10.00"), Assertions.tuple("Bread", "5.00"));
+        Assertions.assertThat(entityManager.createNativeQuery("select count(*) from information_schema.tables "
+                + "where table_name = 'ITEM'").getSingleResult()).isEqualTo(0L);
+    }
+
+    @Test
+    public void testManyItemsAreStoredDeflated() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            items.add(Item.builder().shortDescription(i % 2 == 0 ? "Gatorade" : "Emils Cheese Pizza").price("2.25").build());
+        }
+        Receipt receipt = Receipt.builder()
+                .retailer("Walmart")
+                .purchaseDate("2020-01-01")
+                .purchaseTime("10:00")
+                .total("112.50")
+                .items(items)
+                .points(10).build();
+
+        receiptRepository.save(receipt);
+        entityManager.flush();
+        entityManager.clear();
+
+        Assertions.assertThat(columnType("RECEIPT", "ITEMS")).isEqualTo("BINARY VARYING");
+        byte[] column = (byte[]) entityManager.createNativeQuery("select items from receipt").getSingleResult();
+        Assertions.assertThat(column[0]).isEqualTo((byte) 1);
+        Assertions.assertThat(column.length).isLessThan(100);
+        Assertions.assertThat(receiptRepository.findById(receipt.getId()).orElseThrow().getItems()).isEqualTo(items);
+    }
+
+    @Test
+    public void testRollupByRetailerAndPurchaseDate(){
+        receiptRepository.saveAll(List.of(
+                Receipt.builder().retailer("Walmart").purchaseDate("2020-01-01").points(10).build(),
+                Receipt.builder().retailer("Walmart").purchaseDate("2020-01-02").points(20).build(),
+                Receipt.builder().retailer("Target").purchaseDate("2020-01-01").points(5).build()));
 
-        Item item = Item.builder()
-                .shortDescription("Milk")
-                .price("10.00")
-                .build();
+        List<RollupRow> retailers = receiptRepository.rollupByRetailer();
+        List<RollupRow> days = receiptRepository.rollupByPurchaseDate();
 
-        Item savedItem = itemRepository.save(item);
+        Assertions.assertThat(retailers).extracting(RollupRow::getGroupKey, RollupRow::getReceipts, RollupRow::getPoints)
+                .containsExactlyInAnyOrder(Assertions.tuple("Walmart", 2L, 30L), Assertions.tuple("Target", 1L, 5L));
+        Assertions.assertThat(days).extracting(RollupRow::getGroupKey, RollupRow::getReceipts, RollupRow::getPoints)
+                .containsExactlyInAnyOrder(Assertions.tuple("2020-01-01", 2L, 15L), Assertions.tuple("2020-01-02", 1L, 20L));
+    }
+
+    @Test
+    public void testKeysetPageAndStream(){
+        ReceiptIdGenerator ids = new ReceiptIdGenerator(Clock.systemUTC(), 0);
+        String idA = ids.next();
+        String idB = ids.next();
+        String idC = ids.next();
+        Receipt a = Receipt.builder().id(idA).retailer("Walmart").purchaseDate("2020-01-01").points(10).build();
+        a.setItems(List.of(Item.builder().shortDescription("Milk").price("1.00").build(),
+                Item.builder().shortDescription("Bread").price("2.00").build()));
+        Receipt b = Receipt.builder().id(idB).retailer("Target").purchaseDate("2020-01-02").points(20)
+                .items(List.of()).build();
+        Receipt c = Receipt.builder().id(idC).retailer("Costco").purchaseDate("2020-01-03").points(30).build();
+        c.setItems(List.of(Item.builder().shortDescription("Eggs").price("3.00").build()));
+        receiptRepository.saveAll(List.of(c, a, b));
+
+        Assertions.assertThat(receiptRepository.findPageAfter("00000000-0000-0000-0000-000000000000", 2))
+                .extracting(ReceiptRow::getId, ReceiptRow::getPoints, row -> row.getItems().size())
+                .containsExactly(Assertions.tuple(idA, 10, 2), Assertions.tuple(idB, 20, 0));
+        Assertions.assertThat(receiptRepository.findPageAfter(idB, 2))
+                .extracting(ReceiptRow::getId).containsExactly(idC);
+
+        try (Stream<ReceiptRow> rows = receiptRepository.streamAfter(idA)) {
+            Assertions.assertThat(rows).extracting(ReceiptRow::getId, row -> row.getItems().size())
+                    .containsExactly(Assertions.tuple(idB, 0), Assertions.tuple(idC, 1));
+        }
+    }
+
+    @Test
+    public void testReceiptIdsAreStoredAsUuids(){
+        Receipt receipt = Receipt.builder().id(new ReceiptIdGenerator(Clock.systemUTC(), 0).next())
+                .retailer("Walmart").purchaseDate("2020-01-01").points(10).build();
+        receiptRepository.save(receipt);
+
+        Assertions.assertThat(columnType("RECEIPT", "ID")).isEqualTo("UUID");
+        Assertions.assertThat(receiptRepository.findPointsById(receipt.getId())).contains(10);
+    }
+
+    @Test
+    public void testAmountsDatesAndTimesAreStoredAsNumbers(){
+        ReceiptIdGenerator ids = new ReceiptIdGenerator(Clock.systemUTC(), 0);
+        Receipt whole = Receipt.builder().id(ids.next()).retailer("Walmart").purchaseDate("2022-01-01")
+                .purchaseTime("9:05").total("35.35").points(10).build();
+        whole.setItems(List.of(Item.builder().shortDescription("Milk").price("6.49").build()));
+        Receipt fraction = Receipt.builder().id(ids.next()).retailer("Target").purchaseDate("2022-03-20")
+                .purchaseTime("14:33").total("9.005").points(20).build();
+        receiptRepository.saveAll(List.of(whole, fraction));
+        entityManager.flush();
+        entityManager.clear();
 
-        Assertions.assertThat(savedItem).isNotNull();
-        Assertions.assertThat(savedItem.getId()).isNotNull();
+        Assertions.assertThat(columnType("RECEIPT", "TOTAL")).isEqualTo("BIGINT");
+        Assertions.assertThat(columnType("RECEIPT", "PURCHASE_DATE")).isEqualTo("INTEGER");
+        Assertions.assertThat(columnType("RECEIPT", "PURCHASE_TIME")).isEqualTo("SMALLINT");
+        Assertions.assertThat(entityManager.createNativeQuery("select total, purchase_date, purchase_time from receipt "
+                + "where total_text is null").getSingleResult()).isEqualTo(new Object[]{3535L, 18993, (short) 545});
 
+        Receipt found = receiptRepository.findById(whole.getId()).orElseThrow();
+        Assertions.assertThat(found.getTotal()).isEqualTo("35.35");
+        Assertions.assertThat(found.getPurchaseDate()).isEqualTo("2022-01-01");
+        Assertions.assertThat(found.getPurchaseTime()).isEqualTo("09:05");
+        Assertions.assertThat(found.getItems()).extracting(Item::getPrice).containsExactly("6.49");
+        Assertions.assertThat(receiptRepository.findPageAfter("00000000-0000-0000-0000-000000000000", 2))
+                .extracting(ReceiptRow::getPurchaseDate, ReceiptRow::getPurchaseTime, ReceiptRow::getTotal)
+                .containsExactly(Assertions.tuple("2022-01-01", "09:05", "35.35"),
+                        Assertions.tuple("2022-03-20", "14:33", "9.005"));
     }
 
     @Test
-    public void testItemRepositoryTwoOrMoreItems(){
-        Item item = Item.builder()
-                .shortDescription("Milk")
-                .price("10.00")
-                .build();
+    public void testUpdatePointsChangesOnlyThePoints(){
+        ReceiptIdGenerator ids = new ReceiptIdGenerator(Clock.systemUTC(), 0);
+        Receipt first = Receipt.builder().id(ids.next()).retailer("Walmart").purchaseDate("2022-01-01")
+                .purchaseTime("10:00").total("1.00").points(10).contentHash("h1").build();
+        Receipt second = Receipt.builder().id(ids.next()).retailer("Target").purchaseDate("2022-01-01")
+                .purchaseTime("10:00").total("2.00").points(20).contentHash("h2").build();
+        receiptRepository.saveAll(List.of(first, second));
+        entityManager.flush();
 
-        Item item1 = Item.builder()
-                .shortDescription("Bread")
-                .price("5.00")
-                .build();
+        PointsBreakdown breakdown = new PointsBreakdown(7, 0, 0, 0, 0, 0, 8);
+        jpaReceiptStore.updatePoints(Map.of(first.getId(), breakdown, "not-a-uuid", breakdown));
+        entityManager.clear();
 
-        itemRepository.save(item);
-        itemRepository.save(item1);
+        Receipt found = receiptRepository.findById(first.getId()).orElseThrow();
+        Assertions.assertThat(found.getPoints()).isEqualTo(15);
+        Assertions.assertThat(found.getBreakdown()).isEqualTo(breakdown);
+        Assertions.assertThat(found.getContentHash()).isEqualTo("h1");
+        Assertions.assertThat(found.getTotal()).isEqualTo("1.00");
+        Assertions.assertThat(receiptRepository.findPointsById(second.getId())).contains(20);
+    }
 
-        List<Item> items = itemRepository.findAll();
+    @Test
+    public void testBreakdownIsStoredPacked(){
+        ReceiptIdGenerator ids = new ReceiptIdGenerator(Clock.systemUTC(), 0);
+        PointsBreakdown breakdown = new PointsBreakdown(14, 50, 25, 10, 6, 6, 10);
+        Receipt scored = Receipt.builder().id(ids.next()).retailer("Target").purchaseDate("2022-01-01")
+                .purchaseTime("15:00").total("1.00").points(breakdown.total()).breakdown(breakdown).contentHash("h1").build();
+        Receipt unscored = Receipt.builder().id(ids.next()).retailer("Walmart").purchaseDate("2022-01-01")
+                .purchaseTime("10:00").total("2.00").points(20).contentHash("h2").build();
+        receiptRepository.saveAll(List.of(scored, unscored));
+        entityManager.flush();
+        entityManager.clear();
 
-        Assertions.assertThat(items).isNotNull();
-        Assertions.assertThat(items.size()).isEqualTo(2);
+        Assertions.assertThat(columnType("RECEIPT", "BREAKDOWN")).isEqualTo("BINARY VARYING");
+        Assertions.assertThat((byte[]) entityManager.createNativeQuery("select breakdown from receipt where points = ?1")
+                .setParameter(1, breakdown.total()).getSingleResult()).hasSize(8);
+        Assertions.assertThat(jpaReceiptStore.findBreakdownById(scored.getId())).contains(breakdown);
+        Assertions.assertThat(jpaReceiptStore.findBreakdownById(unscored.getId())).isEmpty();
+        Assertions.assertThat(jpaReceiptStore.findBreakdownById("not-a-uuid")).isEmpty();
+        Assertions.assertThat(jpaReceiptStore.findPageAfter(null, 2)).extracting(Receipt::getBreakdown)
+                .containsExactly(breakdown, null);
+    }
 
+    private String columnType(String table, String column) {
+        return (String) entityManager.createNativeQuery("select data_type from information_schema.columns "
+                + "where table_name = ?1 and column_name = ?2")
+                .setParameter(1, table).setParameter(2, column).getSingleResult();
     }
 }
@@ -0,0 +1,185 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.BatchResultDTO;
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.config.WriteBehindProperties;
+import com.srinivas.receiptprocessor.jpa.ReceiptRepository;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.JpaReceiptStore;
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReceiptBatchServiceTests {
+
+    private ReceiptBatchService receiptBatchService;
+
+    private ReceiptRepository receiptRepository;
+
+    private ReceiptRollups receiptRollups;
+
+    @BeforeEach
+    public void init() {
+        receiptRepository = Mockito.mock(ReceiptRepository.class);
+        ReceiptStore receiptStore = new JpaReceiptStore(receiptRepository, Mockito.mock(PlatformTransactionManager.class));
+        PointsCache pointsCache = new PointsCache(100, Duration.ofMinutes(1));
+        ReceiptDeduplicator receiptDeduplicator = new ReceiptDeduplicator(receiptStore, 100);
+        receiptRollups = new ReceiptRollups(receiptStore, new RetailerLeaderboard(1024));
+        ReceiptMetrics receiptMetrics = new ReceiptMetrics(new SimpleMeterRegistry(), 64);
+        ReceiptIdGenerator receiptIdGenerator = new ReceiptIdGenerator(Clock.systemUTC(), 0);
+        WriteBehindWriter writeBehindWriter = new WriteBehindWriter(
+                new WriteBehindProperties(false, 10, 10, Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofSeconds(1),
+                        Duration.ofMillis(10), Duration.ofSeconds(1), Path.of("dead-letters.ndjson")),
+                pointsCache, receiptDeduplicator, receiptRollups, receiptStore);
+        ReceiptService receiptService = new ReceiptService(receiptStore, pointsCache,
+                writeBehindWriter, receiptDeduplicator, new ScoringEngine(new ScoringRules()), receiptMetrics,
+                new ReceiptValidator(Clock.systemDefaultZone()), new RejectionLog(10), receiptRollups, receiptIdGenerator);
+        receiptBatchService = new ReceiptBatchService(receiptService, receiptStore, pointsCache,
+                receiptDeduplicator, receiptMetrics, receiptRollups, receiptIdGenerator, 2);
+
+        when(receiptRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Receipt> chunk = invocation.getArgument(0);
+            chunk.forEach(receipt -> receipt.setId("id-" + receipt.getRetailer()));
+            return chunk;
+        });
+    }
+
+    @Test
+    public void testSaveAllKeepsOrderAndRejectsInvalidReceipts() {
+        List<Receipt> receipts = List.of(
+                createTestReceipt("A", "2020-01-01"),
+                createTestReceipt("B", "2099-01-01"),
+                new Receipt(),
+                createTestReceipt("C", "2020-01-02"),
+                createTestReceipt("D", "2020-01-03"));
+
+        List<BatchResultDTO> results = receiptBatchService.saveAll(receipts);
+
+        assertEquals(5, results.size());
+        assertEquals("id-A", results.get(0).getId());
+        assertEquals(ReceiptBatchService.INVALID_RECEIPT, results.get(1).getError());
+        assertEquals("purchaseDate", results.get(1).getViolations().get(0).getField());
+        assertEquals(ReceiptBatchService.INVALID_RECEIPT, results.get(2).getError());
+        assertEquals("id-C", results.get(3).getId());
+        assertEquals("id-D", results.get(4).getId());
+        verify(receiptRepository, times(3)).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    public void testSaveAllKeepsItemsWithTheirReceipt() {
+        List<Receipt> saved = new ArrayList<>();
+        when(receiptRepository.saveAll(Mockito.anyList())).thenAnswer(invocation -> {
+            List<Receipt> chunk = invocation.getArgument(0);
+            saved.addAll(chunk);
+            return chunk;
+        });
+
+        receiptBatchService.saveAll(List.of(createTestReceipt("A", "2020-01-01")));
+
+        Receipt receipt = saved.get(0);
+        assertEquals(88, receipt.getPoints());
+        assertEquals(List.of("Milk", "Bread1"),
+                receipt.getItems().stream().map(Item::getShortDescription).toList());
+    }
+
+    @Test
+    public void testSaveAllReturnsExistingIdForDuplicates() {
+        List<BatchResultDTO> first = receiptBatchService.saveAll(List.of(
+                createTestReceipt("A", "2020-01-01"),
+                createTestReceipt("B", "2020-01-01"),
+                createTestReceipt("B", "2020-01-01")));
+        List<BatchResultDTO> second = receiptBatchService.saveAll(List.of(createTestReceipt("A", "2020-01-01")));
+
+        assertEquals("id-A", first.get(0).getId());
+        assertEquals("id-B", first.get(1).getId());
+        assertEquals("id-B", first.get(2).getId());
+        assertEquals("id-A", second.get(0).getId());
+        verify(receiptRepository, times(1)).saveAll(Mockito.anyList());
+    }
+
+    @Test
+    public void testSaveAllRetriesFailedChunkOneByOne() {
+        when(receiptRepository.saveAll(Mockito.anyList())).thenThrow(new IllegalStateException("constraint"));
+        when(receiptRepository.save(Mockito.any(Receipt.class))).thenAnswer(invocation -> {
+            Receipt receipt = invocation.getArgument(0);
+            if (receipt.getRetailer().equals("B")) {
+                throw new IllegalStateException("constraint");
+            }
+            receipt.setId("id-" + receipt.getRetailer());
+            return receipt;
+        });
+
+        List<BatchResultDTO> results = receiptBatchService.saveAll(List.of(
+                createTestReceipt("A", "2020-01-01"),
+                createTestReceipt("B", "2020-01-01")));
+
+        assertEquals("id-A", results.get(0).getId());
+        assertNull(results.get(0).getError());
+        assertNotNull(results.get(1).getError());
+        assertEquals(ReceiptBatchService.NOT_SAVED, results.get(1).getError());
+    }
+
+    @Test
+    public void testSaveAllReturnsExistingIdForReceiptStoredConcurrently() {
+        when(receiptRepository.saveAll(Mockito.anyList())).thenThrow(new DataIntegrityViolationException("content_hash"));
+        when(receiptRepository.save(Mockito.any(Receipt.class))).thenAnswer(invocation -> {
+            Receipt receipt = invocation.getArgument(0);
+            if (receipt.getRetailer().equals("B")) {
+                throw new DataIntegrityViolationException("content_hash");
+            }
+            receipt.setId("id-" + receipt.getRetailer());
+            return receipt;
+        });
+        when(receiptRepository.findIdByContentHash(Mockito.anyString()))
+                .thenReturn(Optional.empty(), Optional.empty(), Optional.of("id-stored"));
+
+        List<BatchResultDTO> results = receiptBatchService.saveAll(List.of(
+                createTestReceipt("A", "2020-01-01"),
+                createTestReceipt("B", "2020-01-01")));
+
+        assertEquals("id-A", results.get(0).getId());
+        assertEquals("id-stored", results.get(1).getId());
+        assertNull(results.get(1).getError());
+        assertEquals(1, receiptRollups.total().getReceipts());
+    }
+
+    private Receipt createTestReceipt(String retailer, String purchaseDate) {
+        Item item = Item.builder()
+                .shortDescription("Milk")
+                .price("10.00")
+                .build();
+
+        Item item1 = Item.builder()
+                .shortDescription("Bread1")
+                .price("5.00")
+                .build();
+
+        return Receipt.builder()
+                .retailer(retailer)
+                .purchaseDate(purchaseDate)
+                .purchaseTime("10:00")
+                .items(new ArrayList<>(List.of(item, item1)))
+                .total("15.00")
+                .build();
+    }
+}
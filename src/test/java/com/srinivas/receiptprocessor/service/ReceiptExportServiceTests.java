@@ -0,0 +1,79 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ItemDTO;
+import com.srinivas.receiptprocessor.DTO.ReceiptDTO;
+import com.srinivas.receiptprocessor.DTO.ReceiptPageDTO;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+public class ReceiptExportServiceTests {
+
+    private ReceiptStore receiptStore;
+
+    private ReceiptExportService receiptExportService;
+
+    @BeforeEach
+    public void init() {
+        receiptStore = Mockito.mock(ReceiptStore.class);
+        receiptExportService = new ReceiptExportService(receiptStore);
+    }
+
+    @Test
+    public void testPage() {
+        when(receiptStore.findPageAfter(null, 3)).thenReturn(List.of(receipt("a"), receipt("b"), receipt("c")));
+        when(receiptStore.findPageAfter("b", 3)).thenReturn(List.of(receipt("c")));
+
+        ReceiptPageDTO first = receiptExportService.page(null, 2);
+        assertEquals(List.of("a", "b"), first.getReceipts().stream().map(ReceiptDTO::getId).toList());
+        assertEquals(List.of(new ItemDTO("Milk", "1.00")), first.getReceipts().get(1).getItems());
+        assertEquals("b", first.getNext());
+
+        ReceiptPageDTO last = receiptExportService.page(first.getNext(), 2);
+        assertEquals(1, last.getReceipts().size());
+        assertNull(last.getNext());
+
+        assertThrows(IllegalArgumentException.class, () -> receiptExportService.page(null, ReceiptExportService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testExport() {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Receipt> consumer = invocation.getArgument(1);
+            consumer.accept(receipt("c"));
+            consumer.accept(receipt("d"));
+            return null;
+        }).when(receiptStore).forEachAfter(Mockito.eq("b"), Mockito.any(Consumer.class));
+
+        List<ReceiptDTO> exported = new ArrayList<>();
+        receiptExportService.export("b", exported::add);
+
+        assertEquals(List.of("c", "d"), exported.stream().map(ReceiptDTO::getId).toList());
+        assertEquals(10, exported.get(0).getPoints());
+    }
+
+    private static Receipt receipt(String id) {
+        return Receipt.builder()
+                .id(id)
+                .retailer("Walmart")
+                .purchaseDate("2022-01-01")
+                .purchaseTime("13:01")
+                .total("1.00")
+                .points(10)
+                .items(List.of(Item.builder().shortDescription("Milk").price("1.00").build()))
+                .build();
+    }
+}
@@ -0,0 +1,126 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.LeaderboardEntryDTO;
+import com.srinivas.receiptprocessor.DTO.RollupDTO;
+import com.srinivas.receiptprocessor.jpa.RollupRow;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class ReceiptRollupsTests {
+
+    @Test
+    public void testLoadAndAdd() {
+        ReceiptStore receiptStore = Mockito.mock(ReceiptStore.class);
+        when(receiptStore.rollupByRetailer()).thenReturn(List.of(row("Target", 2, 30), row(null, 1, 5)));
+        when(receiptStore.rollupByPurchaseDate()).thenReturn(List.of(row("2022-01-01", 3, 35)));
+        when(receiptStore.rollups()).thenCallRealMethod();
+        ReceiptRollups receiptRollups = new ReceiptRollups(receiptStore, new RetailerLeaderboard(1024));
+        receiptRollups.load();
+
+        receiptRollups.add(receipt("Walmart", "2022-01-02", 10));
+        receiptRollups.add(receipt("Target", "2022-01-01", 15));
+
+        assertEquals(List.of(new RollupDTO("Target", 3, 45, 15.0), new RollupDTO("Walmart", 1, 10, 10.0)),
+                receiptRollups.byRetailer());
+        assertEquals(List.of(new RollupDTO("2022-01-01", 4, 50, 12.5), new RollupDTO("2022-01-02", 1, 10, 10.0)),
+                receiptRollups.byPurchaseDate());
+        assertEquals(new RollupDTO(null, 5, 60, 12.0), receiptRollups.total());
+        assertEquals(Optional.empty(), receiptRollups.forRetailer("Costco"));
+    }
+
+    @Test
+    public void testRescoredPointsAndRerank() {
+        RetailerLeaderboard retailerLeaderboard = new RetailerLeaderboard(1024);
+        ReceiptRollups receiptRollups = new ReceiptRollups(Mockito.mock(ReceiptStore.class), retailerLeaderboard);
+        Receipt target = receipt("Target", "2022-01-01", 30);
+        receiptRollups.add(target);
+        receiptRollups.add(receipt("Walmart", "2022-01-01", 20));
+
+        receiptRollups.rescored(target, 10);
+
+        assertEquals(new RollupDTO("Target", 1, 10, 10.0), receiptRollups.forRetailer("Target").get());
+        assertEquals(new RollupDTO("2022-01-01", 2, 30, 15.0), receiptRollups.forPurchaseDate("2022-01-01").get());
+        // the leaderboard only follows lowered points once it is ranked again
+        assertEquals("Target", retailerLeaderboard.top(RetailerLeaderboard.Ranking.POINTS, 1).getEntries().get(0).getRetailer());
+        receiptRollups.rerank();
+        assertEquals("Walmart", retailerLeaderboard.top(RetailerLeaderboard.Ranking.POINTS, 1).getEntries().get(0).getRetailer());
+        assertEquals(1, retailerLeaderboard.top(RetailerLeaderboard.Ranking.RECEIPTS, 2).getEntries().get(1).getValue());
+    }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        ReceiptRollups receiptRollups = new ReceiptRollups(Mockito.mock(ReceiptStore.class), new RetailerLeaderboard(1024));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    receiptRollups.add(receipt("Target", "2022-01-0" + (j % 2 + 1), 3));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        assertEquals(new RollupDTO("Target", 40_000, 120_000, 3.0), receiptRollups.forRetailer("Target").get());
+        assertEquals(20_000, receiptRollups.forPurchaseDate("2022-01-01").get().getReceipts());
+    }
+
+    @Test
+    public void testRerankWhileAddingKeepsEveryReceipt() throws Exception {
+        RetailerLeaderboard retailerLeaderboard = new RetailerLeaderboard(1024);
+        ReceiptRollups receiptRollups = new ReceiptRollups(Mockito.mock(ReceiptStore.class), retailerLeaderboard);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> adders = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            adders.add(executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    receiptRollups.add(receipt("Shop " + j % 10, "2022-01-01", 1));
+                }
+            }));
+        }
+        while (adders.stream().anyMatch(adder -> !adder.isDone())) {
+            receiptRollups.rerank();
+        }
+        executor.shutdown();
+
+        long ranked = retailerLeaderboard.top(RetailerLeaderboard.Ranking.RECEIPTS, 10).getEntries().stream()
+                .mapToLong(LeaderboardEntryDTO::getValue).sum();
+        assertEquals(40_000, ranked);
+    }
+
+    private static Receipt receipt(String retailer, String purchaseDate, int points) {
+        return Receipt.builder().retailer(retailer).purchaseDate(purchaseDate).points(points).build();
+    }
+
+    private static RollupRow row(String groupKey, long receipts, long points) {
+        return new RollupRow() {
+            @Override
+            public String getGroupKey() {
+                return groupKey;
+            }
+
+            @Override
+            public long getReceipts() {
+                return receipts;
+            }
+
+            @Override
+            public long getPoints() {
+                return points;
+            }
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.srinivas.receiptprocessor.DTO.ScoreResultDTO;
+import com.srinivas.receiptprocessor.config.ScoreProperties;
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.config.WriteBehindProperties;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ReceiptScoringServiceTests {
+
+    private ReceiptScoringService receiptScoringService;
+
+    private ReceiptService receiptService;
+
+    private ReceiptStore receiptStore;
+
+    private ReceiptRollups receiptRollups;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    public void init() {
+        receiptStore = Mockito.mock(ReceiptStore.class);
+        PointsCache pointsCache = new PointsCache(100, Duration.ofMinutes(1));
+        ReceiptDeduplicator receiptDeduplicator = new ReceiptDeduplicator(receiptStore, 100);
+        receiptRollups = new ReceiptRollups(receiptStore, new RetailerLeaderboard(1024));
+        WriteBehindWriter writeBehindWriter = new WriteBehindWriter(
+                new WriteBehindProperties(false, 10, 10, Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofSeconds(1),
+                        Duration.ofMillis(10), Duration.ofSeconds(1), Path.of("dead-letters.ndjson")),
+                pointsCache, receiptDeduplicator, receiptRollups, receiptStore);
+        registry = new SimpleMeterRegistry();
+        ScoringEngine scoringEngine = new ScoringEngine(new ScoringRules());
+        ReceiptValidator receiptValidator = new ReceiptValidator(Clock.systemDefaultZone());
+        receiptService = new ReceiptService(receiptStore, pointsCache, writeBehindWriter, receiptDeduplicator,
+                scoringEngine, new ReceiptMetrics(registry, 64), receiptValidator, new RejectionLog(10), receiptRollups,
+                new ReceiptIdGenerator(Clock.systemUTC(), 0));
+        receiptScoringService = new ReceiptScoringService(receiptValidator, scoringEngine, new ScoreProperties(4, 3));
+    }
+
+    @AfterEach
+    public void close() {
+        receiptScoringService.close();
+    }
+
+    @Test
+    public void testScoreAllKeepsOrderAndStoresNothing() {
+        List<Receipt> receipts = new ArrayList<>();
+        for (int i = 0; i < ReceiptScoringService.PARALLEL_THRESHOLD * 4; i++) {
+            receipts.add(i % 10 == 3 ? createTestReceipt("Shop " + i, "2099-01-01", i % 7)
+                    : i % 10 == 7 ? null
+                    : createTestReceipt("Shop " + i, "2020-01-0" + (1 + i % 9), i % 7));
+        }
+
+        List<ScoreResultDTO> results = receiptScoringService.scoreAll(receipts);
+
+        registry.find("receipts.phase").timers().forEach(timer -> assertEquals(0, timer.count(), timer.getId().toString()));
+        assertEquals(0, registry.get("receipts.items").summary().count());
+
+        assertEquals(receipts.size(), results.size());
+        for (int i = 0; i < receipts.size(); i++) {
+            if (i % 10 == 3) {
+                assertNull(results.get(i).getPoints());
+                assertEquals("purchaseDate", results.get(i).getViolations().get(0).getField());
+            } else if (i % 10 == 7) {
+                assertEquals(ReceiptBatchService.INVALID_RECEIPT, results.get(i).getError());
+            } else {
+                assertEquals(ScoreResultDTO.scored(receiptService.calculatePoints(receipts.get(i))), results.get(i));
+            }
+        }
+        Mockito.verifyNoInteractions(receiptStore);
+        assertEquals(0, receiptRollups.total().getReceipts());
+    }
+
+    @Test
+    public void testScoredPointsMatchTheSavedPoints() {
+        List<Receipt> saved = new ArrayList<>();
+        Mockito.when(receiptStore.save(Mockito.any(Receipt.class))).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        Receipt receipt = createTestReceipt("M&M Corner Market", "2022-03-20", 5);
+
+        ScoreResultDTO result = receiptScoringService.scoreAll(List.of(receipt)).get(0);
+        receiptService.save(receipt);
+
+        assertEquals(saved.get(0).getPoints(), result.getPoints());
+    }
+
+    @Test
+    public void testScoreAllReadsAndScoresChunksInOrder() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Receipt> receipts = List.of(
+                createTestReceipt("A", "2020-01-01", 1),
+                createTestReceipt("B", "2020-01-02", 2),
+                createTestReceipt("C", "2020-01-03", 3));
+        List<String> lines = List.of(
+                objectMapper.writeValueAsString(receipts.get(0)),
+                "{\"retailer\": oops}",
+                objectMapper.writeValueAsString(receipts.get(1)),
+                objectMapper.writeValueAsString(receipts.get(2)));
+        List<List<ScoreResultDTO>> chunks = new ArrayList<>();
+
+        receiptScoringService.scoreAll(lines.iterator(), line -> {
+            try {
+                return objectMapper.readValue(line, Receipt.class);
+            } catch (IOException e) {
+                return null;
+            }
+        }, chunks::add);
+
+        assertEquals(2, chunks.size());
+        assertEquals(3, chunks.get(0).size());
+        assertEquals(ScoreResultDTO.scored(receiptService.calculatePoints(receipts.get(0))), chunks.get(0).get(0));
+        assertEquals(ReceiptBatchService.INVALID_RECEIPT, chunks.get(0).get(1).getError());
+        assertEquals(ScoreResultDTO.scored(receiptService.calculatePoints(receipts.get(2))), chunks.get(1).get(0));
+    }
+
+    private Receipt createTestReceipt(String retailer, String purchaseDate, int extraItems) {
+        List<Item> items = new ArrayList<>();
+        items.add(Item.builder().shortDescription("Milk").price("10.00").build());
+        for (int i = 0; i < extraItems; i++) {
+            items.add(Item.builder().shortDescription("Bread " + i).price("1.25").build());
+        }
+        return Receipt.builder()
+                .retailer(retailer)
+                .purchaseDate(purchaseDate)
+                .purchaseTime("14:" + (10 + extraItems))
+                .items(items)
+                .total(String.format("%d.%02d", 10 + extraItems * 125 / 100, extraItems * 125 % 100))
+                .build();
+    }
+}
@@ -0,0 +1,124 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReceiptValidatorTests {
+
+    private final ReceiptValidator receiptValidator =
+            new ReceiptValidator(Clock.fixed(Instant.parse("2023-10-27T14:30:20Z"), ZoneOffset.UTC));
+
+    @Test
+    public void testValidReceipt() {
+        assertEquals(List.of(), receiptValidator.validate(createTestReceipt()));
+    }
+
+    @Test
+    public void testEveryViolationIsReported() {
+        Receipt receipt = Receipt.builder()
+                .retailer("  ")
+                .purchaseDate("2023-02-29")
+                .purchaseTime("24:00")
+                .total("abc")
+                .items(Arrays.asList(
+                        Item.builder().shortDescription("M&M").price("1.5").build(),
+                        null))
+                .build();
+
+        assertEquals(List.of(
+                violation("retailer", RejectionReason.RETAILER_BLANK),
+                violation("purchaseDate", RejectionReason.DATE_FORMAT),
+                violation("purchaseTime", RejectionReason.TIME_FORMAT),
+                violation("total", RejectionReason.TOTAL_FORMAT),
+                violation("items[0].shortDescription", RejectionReason.DESCRIPTION_FORMAT),
+                violation("items[0].price", RejectionReason.PRICE_FORMAT),
+                violation("items[1]", RejectionReason.ITEM_MISSING)), receiptValidator.validate(receipt));
+        assertEquals(5, receiptValidator.validate(new Receipt()).size());
+    }
+
+    @Test
+    public void testNotInTheFuture() {
+        assertTrue(receiptValidator.isValidPurchaseDateTime("2023-10-26", "23:59"));
+        assertTrue(receiptValidator.isValidPurchaseDateTime("2023-10-27", "14:30"));
+        assertFalse(receiptValidator.isValidPurchaseDateTime("2023-10-27", "14:31"));
+        assertFalse(receiptValidator.isValidPurchaseDateTime("2023-10-28", "00:00"));
+
+        Receipt receipt = createTestReceipt();
+        receipt.setPurchaseDate("2024-01-01");
+        receipt.setPurchaseTime("99:99");
+        assertEquals(List.of(
+                violation("purchaseTime", RejectionReason.TIME_FORMAT),
+                violation("purchaseDate", RejectionReason.DATE_FUTURE)), receiptValidator.validate(receipt));
+    }
+
+    @Test
+    public void testCalendarDates() {
+        assertEquals(20240229, ReceiptValidator.parseDate("2024-02-29"));
+        assertEquals(20000229, ReceiptValidator.parseDate("2000-02-29"));
+        assertEquals(-1, ReceiptValidator.parseDate("1900-02-29"));
+        assertEquals(-1, ReceiptValidator.parseDate("2023-04-31"));
+        assertEquals(-1, ReceiptValidator.parseDate("2023-00-10"));
+        assertEquals(-1, ReceiptValidator.parseDate("2023-1-10"));
+        assertEquals(-1, ReceiptValidator.parseDate("2023/01/10"));
+    }
+
+    @Test
+    public void testCharacterChecksMatchThePatternsOfTheModel() {
+        Pattern time = Pattern.compile("([01]?[0-9]|2[0-3]):[0-5][0-9]");
+        Pattern price = Pattern.compile("^\\d+\\.\\d{2}$");
+        Pattern description = Pattern.compile("^[\\w\\s\\-]+$");
+        List<String> values = new ArrayList<>(List.of("", "1", "9:30", "09:30", "19:59", "23:59", "24:00", "123:00",
+                "1:5", "12:60", "0.00", "12.50", ".50", "1.5", "1.505", "1a.00", "-1.00", "Mountain Dew 12PK",
+                "Klarbrunn 12-PK", "snake_case", "tab\tand\nnewline", "M&M", "café", "a.b"));
+        for (char c = 0; c < 256; c++) {
+            values.add(String.valueOf(c));
+        }
+        for (String value : values) {
+            assertEquals(time.matcher(value).matches(), ReceiptValidator.parseTime(value) >= 0, value);
+            assertEquals(price.matcher(value).matches(), ReceiptValidator.isPrice(value), value);
+            assertEquals(description.matcher(value).matches(), ReceiptValidator.isDescription(value), value);
+        }
+    }
+
+    @Test
+    public void testBlankMatchesNotBlank() {
+        List<String> values = new ArrayList<>(List.of("", " ", "\t\n", "\u0000", "\u2003", " \u2003 ", "\u00a0", "a", " a "));
+        for (char c = 0; c < 256; c++) {
+            values.add(String.valueOf(c));
+        }
+        for (String value : values) {
+            assertEquals(value.trim().isEmpty(), ReceiptValidator.isBlank(value), value);
+        }
+        assertTrue(ReceiptValidator.isBlank(null));
+        assertTrue(ReceiptValidator.isBlank("\u0000"));
+        assertFalse(ReceiptValidator.isBlank("\u2003"));
+    }
+
+    private static ViolationDTO violation(String field, RejectionReason reason) {
+        return new ViolationDTO(field, reason.getCode(), reason.getMessage());
+    }
+
+    private Receipt createTestReceipt() {
+        return Receipt.builder()
+                .retailer("Target")
+                .purchaseDate("2022-01-01")
+                .purchaseTime("9:30")
+                .total("6.49")
+                .items(List.of(Item.builder().shortDescription("Mountain Dew 12PK").price("6.49").build()))
+                .build();
+    }
+}
@@ -0,0 +1,19 @@
+package com.srinivas.receiptprocessor.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RejectionLogTests {
+
+    @Test
+    public void testLogsAtMostTheLimitPerSecond() {
+        RejectionLog rejectionLog = new RejectionLog(2);
+
+        assertTrue(rejectionLog.permit());
+        assertTrue(rejectionLog.permit());
+        assertFalse(rejectionLog.permit());
+        assertFalse(rejectionLog.permit());
+    }
+}
@@ -0,0 +1,172 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.config.LogStoreProperties;
+import com.srinivas.receiptprocessor.config.RescoreProperties;
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.LogReceiptStore;
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RescoringJobTests {
+
+    @TempDir
+    Path directory;
+
+    private final ScoringEngine scoringEngine = new ScoringEngine(new ScoringRules());
+
+    private PointsCache pointsCache;
+
+    private ReceiptRollups receiptRollups;
+
+    @BeforeEach
+    public void init() {
+        pointsCache = new PointsCache(100, Duration.ofMinutes(1));
+        receiptRollups = new ReceiptRollups(Mockito.mock(ReceiptStore.class), new RetailerLeaderboard(1024));
+    }
+
+    @Test
+    public void testOnlyChangedPointsAreUpdated() throws Exception {
+        Receipt stale = receipt("a", "Target", 7);
+        Receipt current = receipt("b", "Walmart", 0);
+        Receipt staleToo = receipt("c", "Target", -3);
+        List.of(stale, current, staleToo).forEach(receiptRollups::add);
+        ReceiptStore receiptStore = Mockito.mock(ReceiptStore.class);
+        Mockito.when(receiptStore.findPageAfter(null, 2)).thenReturn(List.of(stale, current));
+        Mockito.when(receiptStore.findPageAfter("b", 2)).thenReturn(List.of(staleToo));
+        Mockito.when(receiptStore.findPageAfter("c", 2)).thenReturn(List.of());
+
+        RescoringJob job = createJob(receiptStore);
+        assertTrue(job.start(false));
+        job.awaitEnd();
+
+        Mockito.verify(receiptStore).updatePoints(Map.of("a", scoringEngine.breakdown(stale)));
+        Mockito.verify(receiptStore).updatePoints(Map.of("c", scoringEngine.breakdown(staleToo)));
+        Mockito.verify(receiptStore, Mockito.times(2)).updatePoints(Mockito.anyMap());
+        assertEquals("completed", job.status().getState());
+        assertEquals(3, job.status().getScanned());
+        assertEquals(2, job.status().getUpdated());
+        assertEquals(Optional.of(scoringEngine.score(stale)), pointsCache.get("a", id -> null));
+        assertEquals(scoringEngine.score(stale) + scoringEngine.score(staleToo),
+                receiptRollups.forRetailer("Target").get().getTotalPoints());
+        assertEquals(scoringEngine.score(stale) + scoringEngine.score(staleToo),
+                receiptRollups.total().getTotalPoints() - current.getPoints());
+        assertFalse(Files.exists(directory.resolve("rescore.checkpoint")));
+    }
+
+    @Test
+    public void testReceiptsWithoutABreakdownGetOne() throws Exception {
+        Receipt old = receipt("a", "Target", 0);
+        old.setBreakdown(null);
+        receiptRollups.add(old);
+        ReceiptStore receiptStore = Mockito.mock(ReceiptStore.class);
+        Mockito.when(receiptStore.findPageAfter(null, 2)).thenReturn(List.of(old));
+        Mockito.when(receiptStore.findPageAfter("a", 2)).thenReturn(List.of());
+
+        RescoringJob job = createJob(receiptStore);
+        job.start(false);
+        job.awaitEnd();
+
+        Mockito.verify(receiptStore).updatePoints(Map.of("a", scoringEngine.breakdown(old)));
+        assertEquals(1, job.status().getUpdated());
+        assertEquals(Optional.empty(), pointsCache.get("a", id -> null));
+        assertEquals(old.getPoints(), receiptRollups.forRetailer("Target").get().getTotalPoints());
+    }
+
+    @Test
+    public void testStoppedJobResumesFromItsCheckpoint() throws Exception {
+        ReceiptStore receiptStore = Mockito.mock(ReceiptStore.class);
+        RescoringJob job = createJob(receiptStore);
+        Mockito.when(receiptStore.findPageAfter(null, 2)).thenAnswer(invocation -> {
+            job.stop();
+            return List.of(receipt("a", "Target", 1), receipt("b", "Target", 1));
+        });
+        Mockito.when(receiptStore.findPageAfter("b", 2)).thenReturn(List.of(receipt("c", "Target", 1)));
+        Mockito.when(receiptStore.findPageAfter("c", 2)).thenReturn(List.of());
+
+        job.start(false);
+        job.awaitEnd();
+        assertEquals("stopped", job.status().getState());
+        assertEquals("b", job.status().getCursor());
+        assertTrue(Files.exists(directory.resolve("rescore.checkpoint")));
+        Mockito.verify(receiptStore, Mockito.never()).findPageAfter("b", 2);
+
+        RescoringJob resumed = createJob(receiptStore);
+        resumed.start(false);
+        resumed.awaitEnd();
+        assertEquals("completed", resumed.status().getState());
+        assertEquals(3, resumed.status().getScanned());
+        assertEquals(3, resumed.status().getUpdated());
+        Mockito.verify(receiptStore, Mockito.times(1)).findPageAfter(null, 2);
+    }
+
+    @Test
+    public void testLogStoreReceiptsAreAllRescored() throws Exception {
+        LogReceiptStore receiptStore = new LogReceiptStore(new LogStoreProperties(directory.resolve("log"),
+                DataSize.ofMegabytes(16), false, DataSize.ofMegabytes(16), 16), new ReceiptIdGenerator(Clock.systemUTC(), 0));
+        List<Receipt> receipts = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            receipts.add(receipt("r" + i, "Target", i % 3 == 0 ? 0 : 5));
+        }
+        receiptStore.saveAll(receipts);
+
+        RescoringJob job = createJob(receiptStore);
+        job.start(false);
+        job.awaitEnd();
+
+        assertEquals("completed", job.status().getState());
+        assertEquals(4, job.status().getUpdated());
+        for (Receipt receipt : receipts) {
+            assertEquals(Optional.of(scoringEngine.score(receipt)), receiptStore.findPointsById(receipt.getId()));
+        }
+        assertEquals(7, receiptStore.findPageAfter(null, 100).size());
+        receiptStore.close();
+    }
+
+    private RescoringJob createJob(ReceiptStore receiptStore) {
+        return new RescoringJob(new RescoreProperties(2, 2, 0, directory.resolve("rescore.checkpoint")),
+                receiptStore, scoringEngine, pointsCache, receiptRollups);
+    }
+
+    /**
+     * A receipt whose stored points, and the retailer name points of its breakdown, are off from
+     * its score by the given difference
+     */
+    private Receipt receipt(String id, String retailer, int difference) {
+        Receipt receipt = Receipt.builder()
+                .id(id)
+                .retailer(retailer)
+                .purchaseDate("2022-01-01")
+                .purchaseTime("13:01")
+                .total("6.49")
+                .items(List.of(Item.builder().shortDescription("Mountain Dew 12PK").price("6.49").build()))
+                .contentHash("hash-" + id)
+                .build();
+        PointsBreakdown breakdown = scoringEngine.breakdown(receipt);
+        receipt.setBreakdown(new PointsBreakdown(breakdown.retailerName() + difference, breakdown.roundDollar(),
+                breakdown.quarterMultiple(), breakdown.itemPairs(), breakdown.descriptionLength(),
+                breakdown.oddDay(), breakdown.timeWindow()));
+        receipt.setPoints(receipt.getBreakdown().total());
+        return receipt;
+    }
+}
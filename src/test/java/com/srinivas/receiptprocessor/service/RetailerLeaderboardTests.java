@@ -0,0 +1,163 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.DTO.LeaderboardDTO;
+import com.srinivas.receiptprocessor.DTO.LeaderboardEntryDTO;
+import com.srinivas.receiptprocessor.DTO.RollupDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetailerLeaderboardTests {
+
+    @Test
+    public void testExactBelowCapacity() {
+        RetailerLeaderboard leaderboard = new RetailerLeaderboard(64);
+        leaderboard.add("Target", 1, 30);
+        leaderboard.add("Walmart", 1, 94);
+        leaderboard.add("Target", 1, 30);
+        leaderboard.add("Costco", 1, 0);
+
+        LeaderboardDTO byPoints = leaderboard.top(RetailerLeaderboard.Ranking.POINTS, 10);
+        assertFalse(byPoints.isApproximate());
+        assertNull(byPoints.getErrorBound());
+        assertEquals(List.of(new LeaderboardEntryDTO("Walmart", 94, null), new LeaderboardEntryDTO("Target", 60, null)),
+                byPoints.getEntries());
+
+        LeaderboardDTO byReceipts = leaderboard.top(RetailerLeaderboard.Ranking.of("receipts"), 2);
+        assertEquals(List.of(new LeaderboardEntryDTO("Target", 2, null), new LeaderboardEntryDTO("Costco", 1, null)),
+                byReceipts.getEntries());
+    }
+
+    @Test
+    public void testExactUpToCapacity() {
+        RetailerLeaderboard leaderboard = new RetailerLeaderboard(64);
+        for (int i = 0; i < 64; i++) {
+            leaderboard.add("Retailer" + i, 1, i + 1);
+        }
+
+        LeaderboardDTO top = leaderboard.top(RetailerLeaderboard.Ranking.POINTS, 64);
+        assertFalse(top.isApproximate());
+        assertNull(top.getErrorBound());
+        assertEquals(64, top.getEntries().size());
+        for (int i = 0; i < 64; i++) {
+            assertEquals(new LeaderboardEntryDTO("Retailer" + (63 - i), 64 - i, null), top.getEntries().get(i));
+        }
+    }
+
+    @Test
+    public void testSummarizedPastCapacityKeepsTheCounts() {
+        RetailerLeaderboard leaderboard = new RetailerLeaderboard(4);
+        leaderboard.add("Walmart", 10, 500);
+        leaderboard.add("Target", 1, 30);
+        leaderboard.add("Costco", 1, 20);
+        leaderboard.add("Kroger", 1, 10);
+        assertFalse(leaderboard.top(RetailerLeaderboard.Ranking.POINTS, 4).isApproximate());
+
+        leaderboard.add("Aldi", 1, 5);
+        leaderboard.add("Walmart", 1, 50);
+
+        LeaderboardDTO top = leaderboard.top(RetailerLeaderboard.Ranking.POINTS, 1);
+        assertTrue(top.isApproximate());
+        LeaderboardEntryDTO first = top.getEntries().get(0);
+        assertEquals("Walmart", first.getRetailer());
+        assertTrue(first.getValue() >= 550 && first.getValue() - first.getError() <= 550, first.toString());
+        assertTrue(leaderboard.top(RetailerLeaderboard.Ranking.RECEIPTS, 1).isApproximate());
+    }
+
+    @Test
+    public void testRebuildIsExactAgainWithinCapacity() {
+        RetailerLeaderboard leaderboard = new RetailerLeaderboard(4);
+        for (int i = 0; i < 10; i++) {
+            leaderboard.add("Retailer" + i, 1, 10);
+        }
+        assertTrue(leaderboard.top(RetailerLeaderboard.Ranking.POINTS, 4).isApproximate());
+
+        leaderboard.rebuild(List.of(
+                RollupDTO.builder().key("Target").receipts(2).totalPoints(60).build(),
+                RollupDTO.builder().key("Walmart").receipts(1).totalPoints(94).build()));
+
+        LeaderboardDTO top = leaderboard.top(RetailerLeaderboard.Ranking.POINTS, 4);
+        assertFalse(top.isApproximate());
+        assertEquals(List.of(new LeaderboardEntryDTO("Walmart", 94, null), new LeaderboardEntryDTO("Target", 60, null)),
+                top.getEntries());
+    }
+
+    @Test
+    public void testApproximateKeepsHeavyHittersWithinBounds() {
+        RetailerLeaderboard leaderboard = new RetailerLeaderboard(64);
+        Map<String, Long> points = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // a few large retailers and a long tail of small ones
+            String retailer = random.nextInt(4) == 0 ? "Big" + random.nextInt(5) : "Small" + random.nextInt(5_000);
+            long receiptPoints = 1 + random.nextInt(100);
+            leaderboard.add(retailer, 1, receiptPoints);
+            points.merge(retailer, receiptPoints, Long::sum);
+        }
+
+        LeaderboardDTO top = leaderboard.top(RetailerLeaderboard.Ranking.POINTS, 5);
+        assertTrue(top.isApproximate());
+        for (LeaderboardEntryDTO entry : top.getEntries()) {
+            assertTrue(entry.getRetailer().startsWith("Big"), entry.getRetailer());
+            long actual = points.get(entry.getRetailer());
+            assertTrue(entry.getValue() >= actual && entry.getValue() - entry.getError() <= actual, entry.toString());
+            assertTrue(entry.getError() <= top.getErrorBound());
+        }
+    }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        RetailerLeaderboard leaderboard = new RetailerLeaderboard(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    leaderboard.add("Retailer" + (j % 100), 1, 2);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        List<LeaderboardEntryDTO> entries = leaderboard.top(RetailerLeaderboard.Ranking.RECEIPTS, 100).getEntries();
+        assertEquals(100, entries.size());
+        assertTrue(entries.stream().allMatch(entry -> entry.getValue() == 400));
+    }
+
+    @Test
+    public void testConcurrentAddsAcrossTheSwitchToASummary() throws Exception {
+        RetailerLeaderboard leaderboard = new RetailerLeaderboard(64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            int thread = i;
+            executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    leaderboard.add("Big" + (j % 4), 1, 1);
+                    if (j % 100 == 0) {
+                        leaderboard.add("Small" + thread + "-" + j, 1, 1);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+
+        LeaderboardDTO top = leaderboard.top(RetailerLeaderboard.Ranking.RECEIPTS, 4);
+        assertTrue(top.isApproximate());
+        for (LeaderboardEntryDTO entry : top.getEntries()) {
+            assertTrue(entry.getRetailer().startsWith("Big"), entry.getRetailer());
+            assertTrue(entry.getValue() >= 10_000 && entry.getValue() - entry.getError() <= 10_000, entry.toString());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScoringEngineTests {
+
+    private final ScoringEngine scoringEngine = new ScoringEngine(new ScoringRules());
+
+    @Test
+    public void testParseCents() {
+        assertEquals(1250, ScoringEngine.parseCents("12.50"));
+        assertEquals(1250, ScoringEngine.parseCents("12.5"));
+        assertEquals(1200, ScoringEngine.parseCents("12"));
+        assertEquals(ScoringEngine.NOT_CANONICAL, ScoringEngine.parseCents("12.345"));
+        assertEquals(ScoringEngine.NOT_CANONICAL, ScoringEngine.parseCents("-1.00"));
+        assertEquals(ScoringEngine.NOT_CANONICAL, ScoringEngine.parseCents(".50"));
+        assertEquals(ScoringEngine.NOT_CANONICAL, ScoringEngine.parseCents("1e2"));
+    }
+
+    @Test
+    public void testTotalRulesMatchDoubleRules() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long cents = Math.floorMod(random.nextLong(), 100_000_000_000L);
+            String total = (cents / 100) + "." + String.format("%02d", cents % 100);
+            assertEquals(legacyRoundDollarPoints(total), scoringEngine.roundDollarPoints(total), total);
+            assertEquals(legacyMultipleOf25Points(total), scoringEngine.multipleOf25Points(total), total);
+        }
+        for (String total : List.of("12.345", "1e2", "-4.00", "9.999", "12.")) {
+            assertEquals(legacyRoundDollarPoints(total), scoringEngine.roundDollarPoints(total), total);
+            assertEquals(legacyMultipleOf25Points(total), scoringEngine.multipleOf25Points(total), total);
+        }
+    }
+
+    @Test
+    public void testTrimmedLengthPointsMatchDoubleRule() {
+        for (long cents = 0; cents < 50_000; cents++) {
+            String price = (cents / 100) + "." + String.format("%02d", cents % 100);
+            Item item = Item.builder().shortDescription("  Abc ").price(price).build();
+            int expected = (int) Math.ceil(Double.parseDouble(price) * 0.2);
+            assertEquals(expected, scoringEngine.trimmedLengthPoints(List.of(item)), price);
+        }
+    }
+
+    @Test
+    public void testRetailerDateAndTimeRules() {
+        assertEquals(14, scoringEngine.retailerNamePoints("M&M Corner Market"));
+        assertEquals(0, scoringEngine.retailerNamePoints("&&  --"));
+        assertEquals(6, scoringEngine.purchaseDatePoints("2022-01-01"));
+        assertEquals(0, scoringEngine.purchaseDatePoints("2022-01-02"));
+        assertEquals(0, scoringEngine.purchaseTimePoints("14:00"));
+        assertEquals(10, scoringEngine.purchaseTimePoints("14:01"));
+        assertEquals(10, scoringEngine.purchaseTimePoints("15:59"));
+        assertEquals(0, scoringEngine.purchaseTimePoints("16:00"));
+        assertEquals(0, scoringEngine.purchaseTimePoints("9:30"));
+    }
+
+    @Test
+    public void testScore() {
+        Receipt receipt = Receipt.builder()
+                .retailer("M&M Corner Market")
+                .purchaseDate("2022-03-20")
+                .purchaseTime("14:33")
+                .total("9.00")
+                .items(List.of(
+                        Item.builder().shortDescription("Gatorade").price("2.25").build(),
+                        Item.builder().shortDescription("Gatorade").price("2.25").build(),
+                        Item.builder().shortDescription("Gatorade").price("2.25").build(),
+                        Item.builder().shortDescription("Gatorade").price("2.25").build()))
+                .build();
+
+        assertEquals(109, scoringEngine.score(receipt));
+        assertEquals(new PointsBreakdown(14, 50, 25, 10, 0, 0, 10), scoringEngine.breakdown(receipt));
+    }
+
+    @Test
+    public void testBreakdownPacksIntoFewBytes() {
+        PointsBreakdown none = new PointsBreakdown(0, 0, 0, 0, 0, 0, 0);
+        assertEquals(1, none.pack().length);
+        assertEquals(none, PointsBreakdown.unpack(none.pack()));
+        // the mask, 1 byte each for 14, 50 and 10, 2 for 100 whose zigzag is 200
+        PointsBreakdown usual = new PointsBreakdown(14, 50, 0, 10, 100, 0, 0);
+        assertEquals(6, usual.pack().length);
+        assertEquals(usual, PointsBreakdown.unpack(usual.pack()));
+
+        Random random = new Random(42);
+        int[] edges = {Integer.MIN_VALUE, Integer.MAX_VALUE, -1, 63, 64, -64, -65};
+        for (int i = 0; i < 10_000; i++) {
+            int[] points = new int[7];
+            for (int rule = 0; rule < 7; rule++) {
+                int pick = random.nextInt(4);
+                points[rule] = pick == 0 ? 0 : pick == 1 ? edges[random.nextInt(edges.length)] : random.nextInt(pick == 2 ? 200 : Integer.MAX_VALUE);
+            }
+            PointsBreakdown breakdown = new PointsBreakdown(points[0], points[1], points[2], points[3], points[4], points[5], points[6]);
+            byte[] packed = breakdown.pack();
+            assertTrue(packed.length <= PointsBreakdown.MAX_PACKED_BYTES);
+            assertEquals(breakdown, PointsBreakdown.unpack(packed));
+        }
+        assertThrows(IllegalArgumentException.class, () -> PointsBreakdown.unpack(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> PointsBreakdown.unpack(new byte[]{1}));
+        assertThrows(IllegalArgumentException.class, () -> PointsBreakdown.unpack(new byte[]{1, 2, 3}));
+        assertThrows(IllegalArgumentException.class, () -> PointsBreakdown.unpack(new byte[]{(byte) 0x80}));
+    }
+
+    @Test
+    public void testTimeWindowMatchesHourRule() {
+        for (int hours = -1; hours <= 25; hours++) {
+            for (int minutes = -5; minutes <= 120; minutes++) {
+                int expected = (hours > 14 || (hours == 14 && minutes > 0)) && hours < 16 ? 10 : 0;
+                assertEquals(expected, scoringEngine.purchaseTimePoints(hours, minutes), hours + ":" + minutes);
+            }
+        }
+    }
+
+    @Test
+    public void testConfiguredRules() {
+        ScoringRules rules = new ScoringRules();
+        rules.setRetailerCharacterPoints(2);
+        rules.setTotalMultipleCents(10);
+        rules.setDescriptionPriceMultiplier(new BigDecimal("0.15"));
+        rules.setOddDayPoints(0);
+        rules.setTimeWindowStart(LocalTime.of(9, 30));
+        rules.setTimeWindowEnd(LocalTime.of(11, 0));
+        ScoringEngine configured = new ScoringEngine(rules);
+
+        assertEquals(14, configured.retailerNamePoints("Walmart"));
+        assertEquals(25, configured.multipleOf25Points("12.30"));
+        assertEquals(0, configured.multipleOf25Points("12.25"));
+        // ceil(10.01 * 0.15) = ceil(1.5015)
+        assertEquals(2, configured.trimmedLengthPoints(List.of(Item.builder().shortDescription("abc").price("10.01").build())));
+        assertEquals(0, configured.purchaseDatePoints("2022-01-01"));
+        assertEquals(10, configured.purchaseTimePoints("09:31"));
+        assertEquals(0, configured.purchaseTimePoints("09:30"));
+        assertEquals(0, configured.purchaseTimePoints("11:00"));
+    }
+
+    private static int legacyRoundDollarPoints(String total) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        return Double.parseDouble(df.format(Double.parseDouble(total) % 1)) == 0 ? 50 : 0;
+    }
+
+    private static int legacyMultipleOf25Points(String total) {
+        DecimalFormat df = new DecimalFormat("0.00");
+        return Double.parseDouble(df.format(Double.parseDouble(total) % 0.25)) == 0 ? 25 : 0;
+    }
+}
@@ -1,18 +1,31 @@
 package com.srinivas.receiptprocessor.service;
 
-import com.srinivas.receiptprocessor.DTO.PostResponseDTO;
-import com.srinivas.receiptprocessor.jpa.ItemRepository;
+import com.srinivas.receiptprocessor.DTO.RollupDTO;
+import com.srinivas.receiptprocessor.DTO.ViolationDTO;
+import com.srinivas.receiptprocessor.config.ScoringRules;
+import com.srinivas.receiptprocessor.config.WriteBehindProperties;
 import com.srinivas.receiptprocessor.jpa.ReceiptRepository;
 import com.srinivas.receiptprocessor.model.Item;
 import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.JpaReceiptStore;
+import com.srinivas.receiptprocessor.store.ReceiptIdGenerator;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,8 +41,11 @@ public class ServiceTests {
     @Mock
     private ReceiptRepository receiptRepository;
 
-    @Mock
-    private ItemRepository itemRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    private ReceiptRollups receiptRollups;
+
+    private ReceiptDeduplicator receiptDeduplicator;
 
     Receipt receipt;
 
@@ -38,8 +54,19 @@ public class ServiceTests {
     @BeforeEach
     public void init() {
         receiptRepository = Mockito.mock(ReceiptRepository.class);
-        itemRepository = Mockito.mock(ItemRepository.class);
-        receiptService = new ReceiptService(receiptRepository, itemRepository);
+        ReceiptStore receiptStore = new JpaReceiptStore(receiptRepository, Mockito.mock(PlatformTransactionManager.class));
+        meterRegistry = new SimpleMeterRegistry();
+        PointsCache pointsCache = new PointsCache(100, Duration.ofMinutes(1));
+        receiptDeduplicator = new ReceiptDeduplicator(receiptStore, 100);
+        receiptRollups = new ReceiptRollups(receiptStore, new RetailerLeaderboard(1024));
+        WriteBehindWriter writeBehindWriter = new WriteBehindWriter(
+                new WriteBehindProperties(false, 10, 10, Duration.ofMillis(10), Duration.ofMillis(10), Duration.ofSeconds(1),
+                        Duration.ofMillis(10), Duration.ofSeconds(1), Path.of("dead-letters.ndjson")),
+                pointsCache, receiptDeduplicator, receiptRollups, receiptStore);
+        receiptService = new ReceiptService(receiptStore, pointsCache, writeBehindWriter,
+                receiptDeduplicator, new ScoringEngine(new ScoringRules()), new ReceiptMetrics(meterRegistry, 64),
+                new ReceiptValidator(Clock.fixed(Instant.parse("2023-10-27T12:00:00Z"), ZoneOffset.UTC)),
+                new RejectionLog(10), receiptRollups, new ReceiptIdGenerator(Clock.systemUTC(), 0));
         receipt = createTestReceipt();
     }
 
@@ -51,10 +78,76 @@ public class ServiceTests {
                 .thenReturn(receipt);
 
 
-        PostResponseDTO postResponseDTO = receiptService.save(receipt);
+        SaveResult result = receiptService.save(receipt);
+
+        assertEquals(SaveResult.Status.SAVED, result.getStatus());
+        Assertions.assertThat(result.getId()).isNotNull();
+    }
+
+    @Test
+    public void testSaveDuplicateReturnsExistingId() throws Exception {
+        when(receiptRepository.save(Mockito.any(Receipt.class)))
+                .thenReturn(receipt);
+
+        SaveResult first = receiptService.save(receipt);
+        SaveResult second = receiptService.save(createTestReceipt());
+
+        assertEquals(first.getId(), second.getId());
+        assertEquals(SaveResult.Status.DUPLICATE, second.getStatus());
+        Mockito.verify(receiptRepository, Mockito.times(1)).save(Mockito.any(Receipt.class));
+    }
+
+    @Test
+    public void testSaveDuplicateOfStoredReceipt() throws Exception {
+        when(receiptRepository.findIdByContentHash(Mockito.anyString()))
+                .thenReturn(Optional.of("67439e3e-42d1-4f00-9930-0303fb0358d7"));
+
+        SaveResult result = receiptService.save(receipt);
+
+        assertEquals("67439e3e-42d1-4f00-9930-0303fb0358d7", result.getId());
+        Mockito.verify(receiptRepository, Mockito.never()).save(Mockito.any(Receipt.class));
+    }
+
+    @Test
+    public void testSaveStoredConcurrentlyIsLookedUpOnce() {
+        when(receiptRepository.findIdByContentHash(Mockito.anyString()))
+                .thenReturn(Optional.empty(), Optional.of("67439e3e-42d1-4f00-9930-0303fb0358d7"));
+        when(receiptRepository.save(Mockito.any(Receipt.class)))
+                .thenThrow(new DataIntegrityViolationException("unique content_hash"));
+
+        SaveResult result = receiptService.save(receipt);
+
+        assertEquals(SaveResult.Status.DUPLICATE, result.getStatus());
+        assertEquals("67439e3e-42d1-4f00-9930-0303fb0358d7", result.getId());
+        assertEquals(1, receiptDeduplicator.lookups());
+        assertEquals(1, receiptDeduplicator.duplicates());
+    }
+
+    @Test
+    public void testSaveUpdatesRollupsOncePerStoredReceipt() {
+        when(receiptRepository.save(Mockito.any(Receipt.class)))
+                .thenReturn(receipt);
+
+        receiptService.save(receipt);
+        receiptService.save(createTestReceipt());
+
+        assertEquals(new RollupDTO("Walmart", 1, 94, 94.0), receiptRollups.forRetailer("Walmart").get());
+        assertEquals(new RollupDTO("2020-01-01", 1, 94, 94.0), receiptRollups.forPurchaseDate("2020-01-01").get());
+        assertEquals(1, receiptRollups.total().getReceipts());
+    }
 
-        Assertions.assertThat(postResponseDTO).isNotNull();
-        Assertions.assertThat(postResponseDTO.getId()).isNotNull();
+    @Test
+    public void testSaveRejectsInvalidReceiptBeforeScoring() {
+        Receipt invalid = createTestReceipt();
+        invalid.setPurchaseTime("25:00");
+
+        SaveResult result = receiptService.save(invalid);
+
+        assertEquals(SaveResult.Status.INVALID, result.getStatus());
+        assertEquals(List.of(new ViolationDTO("purchaseTime", "time-format", RejectionReason.TIME_FORMAT.getMessage())),
+                result.getViolations());
+        assertEquals(0, meterRegistry.get("receipts.phase").tag("phase", "score").timer().count());
+        Mockito.verify(receiptRepository, Mockito.never()).save(Mockito.any(Receipt.class));
     }
 
     @Test
@@ -70,10 +163,38 @@ public class ServiceTests {
 
     @Test
     public void testGetPoints(){
-        when(receiptRepository.findById(Mockito.anyString()))
-                .thenReturn(Optional.ofNullable(receipt));
+        when(receiptRepository.findPointsById(Mockito.anyString()))
+                .thenReturn(Optional.of(receipt.getPoints()));
         int points = receiptService.getPoints("67439e3e-42d1-4f00-9930-0303fb0358d7");
         assertEquals(10, points);
+        Mockito.verify(receiptRepository, Mockito.never()).findById(Mockito.anyString());
+    }
+
+    @Test
+    public void testFindPointsLoadsOnceAndCachesSavedReceipts() throws Exception {
+        when(receiptRepository.findPointsById(Mockito.anyString()))
+                .thenReturn(Optional.of(receipt.getPoints()));
+
+        assertEquals(Optional.of(10), receiptService.findPoints("67439e3e-42d1-4f00-9930-0303fb0358d7"));
+        assertEquals(Optional.of(10), receiptService.findPoints("67439e3e-42d1-4f00-9930-0303fb0358d7"));
+        Mockito.verify(receiptRepository, Mockito.times(1)).findPointsById(Mockito.anyString());
+        assertEquals(1, receiptService.pointsCache.stats().loadCount());
+        assertEquals(1, receiptService.pointsCache.stats().missCount());
+        assertEquals(1, receiptService.pointsCache.stats().hitCount());
+
+        when(receiptRepository.save(Mockito.any(Receipt.class)))
+                .thenReturn(receipt);
+        receiptService.save(receipt);
+        assertEquals(Optional.of(94), receiptService.findPoints(receipt.getId()));
+        Mockito.verify(receiptRepository, Mockito.times(1)).findPointsById(Mockito.anyString());
+    }
+
+    @Test
+    public void testFindPointsForMissingReceipt(){
+        when(receiptRepository.findPointsById(Mockito.anyString()))
+                .thenReturn(Optional.empty());
+
+        assertEquals(Optional.empty(), receiptService.findPoints("missing"));
     }
 
     @Test
@@ -136,6 +257,40 @@ public class ServiceTests {
         assertEquals(94, points);
     }
 
+    @Test
+    public void testCalculatePointsTimingEveryRule(){
+        receiptService.receiptMetrics = new ReceiptMetrics(meterRegistry, 1);
+
+        assertEquals(94, receiptService.calculatePoints(receipt));
+        assertEquals(1, meterRegistry.get("receipts.rule").tag("rule", "description-length").timer().count());
+        assertEquals(7, meterRegistry.get("receipts.rule").timers().size());
+        assertEquals(2.0, meterRegistry.get("receipts.items").summary().totalAmount());
+    }
+
+    @Test
+    public void testSaveRecordsPhasesAndOutcomes() throws Exception {
+        when(receiptRepository.save(Mockito.any(Receipt.class)))
+                .thenReturn(receipt);
+
+        receiptService.save(receipt);
+        receiptService.save(createTestReceipt());
+        Receipt invalid = createTestReceipt();
+        invalid.setPurchaseDate("2099-01-01");
+        invalid.setTotal("");
+        receiptService.save(invalid);
+
+        assertEquals(1.0, meterRegistry.get("receipts.processed").tag("outcome", "accepted").counter().count());
+        assertEquals(1.0, meterRegistry.get("receipts.processed").tag("outcome", "duplicate").counter().count());
+        assertEquals(1.0, meterRegistry.get("receipts.processed").tag("outcome", "rejected").counter().count());
+        assertEquals(1.0, meterRegistry.get("receipts.rejections").tag("reason", "date-future").counter().count());
+        assertEquals(1.0, meterRegistry.get("receipts.rejections").tag("reason", "total-blank").counter().count());
+        assertEquals(0.0, meterRegistry.get("receipts.rejections").tag("reason", "retailer-blank").counter().count());
+        assertEquals(3, meterRegistry.get("receipts.phase").tag("phase", "validate").timer().count());
+        assertEquals(2, meterRegistry.get("receipts.phase").tag("phase", "dedup").timer().count());
+        assertEquals(1, meterRegistry.get("receipts.phase").tag("phase", "score").timer().count());
+        assertEquals(1, meterRegistry.get("receipts.phase").tag("phase", "persist").timer().count());
+    }
+
     @Test
     public void testPurchaseDatePoints() {
         // Test with even day
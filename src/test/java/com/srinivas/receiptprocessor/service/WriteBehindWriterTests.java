@@ -0,0 +1,219 @@
+package com.srinivas.receiptprocessor.service;
+
+import com.srinivas.receiptprocessor.config.WriteBehindProperties;
+import com.srinivas.receiptprocessor.jpa.ReceiptRepository;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import com.srinivas.receiptprocessor.store.JpaReceiptStore;
+import com.srinivas.receiptprocessor.store.ReceiptStore;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteBehindWriterTests {
+
+    @TempDir
+    Path directory;
+
+    private PointsCache pointsCache;
+
+    private ReceiptRollups receiptRollups;
+
+    private EntityManager entityManager;
+
+    private ReceiptRepository receiptRepository;
+
+    private ReceiptStore receiptStore;
+
+    private ReceiptDeduplicator receiptDeduplicator;
+
+    @BeforeEach
+    public void init() {
+        pointsCache = new PointsCache(100, Duration.ofMinutes(1));
+        receiptRollups = new ReceiptRollups(Mockito.mock(ReceiptStore.class), new RetailerLeaderboard(1024));
+        entityManager = Mockito.mock(EntityManager.class);
+        receiptRepository = Mockito.mock(ReceiptRepository.class);
+        receiptStore = new JpaReceiptStore(receiptRepository, Mockito.mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(receiptStore, "entityManager", entityManager);
+        receiptDeduplicator = new ReceiptDeduplicator(receiptStore, 100);
+    }
+
+    @Test
+    public void testAcceptedReceiptsAreReadableAndDrainedOnStop() {
+        WriteBehindWriter writer = createWriter(100, Duration.ofMillis(10));
+        List<Receipt> persisted = new ArrayList<>();
+        Mockito.doAnswer(invocation -> persisted.add(invocation.getArgument(0)))
+                .when(entityManager).persist(Mockito.any(Receipt.class));
+
+        writer.start();
+        for (int i = 0; i < 50; i++) {
+            writer.submit(createTestReceipt("id-" + i, i));
+        }
+        writer.stop();
+
+        assertEquals(50, persisted.size());
+        assertEquals(0, writer.queued());
+        assertEquals(Optional.empty(), writer.inFlightPoints("id-7"));
+        assertEquals(Optional.of(7), pointsCache.get("id-7", id -> null));
+        assertEquals(50, receiptRollups.forRetailer("Walmart").get().getReceipts());
+    }
+
+    @Test
+    public void testInFlightPointsBeforeFlush() throws Exception {
+        WriteBehindWriter writer = createWriter(10, Duration.ofSeconds(5));
+        writer.start();
+        Mockito.doAnswer(invocation -> {
+            Thread.sleep(200);
+            return null;
+        }).when(entityManager).persist(Mockito.any(Receipt.class));
+
+        writer.submit(createTestReceipt("id-1", 42));
+
+        assertEquals(Optional.of(42), writer.inFlightPoints("id-1"));
+        writer.stop();
+        assertEquals(Optional.empty(), writer.inFlightPoints("id-1"));
+    }
+
+    @Test
+    public void testFullQueueRefusesReceipt() {
+        WriteBehindWriter writer = createWriter(1, Duration.ofMillis(10));
+        ReflectionTestUtils.setField(writer, "running", true);
+
+        assertTrue(writer.submit(createTestReceipt("id-1", 1)));
+
+        assertFalse(writer.submit(createTestReceipt("id-2", 2)));
+        assertEquals(Optional.empty(), writer.inFlightPoints("id-2"));
+    }
+
+    @Test
+    public void testReceiptsThatFailAreRetriedUntilStored() throws Exception {
+        WriteBehindWriter writer = createWriter(10, Duration.ofMillis(10));
+        List<Receipt> persisted = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            if (failures.incrementAndGet() <= 4) {
+                throw new IllegalStateException("store down");
+            }
+            return persisted.add(invocation.getArgument(0));
+        }).when(entityManager).persist(Mockito.any(Receipt.class));
+
+        writer.start();
+        writer.submit(createTestReceipt("id-1", 42));
+        for (int i = 0; i < 100 && persisted.isEmpty(); i++) {
+            assertEquals(Optional.of(42), writer.inFlightPoints("id-1"));
+            Thread.sleep(20);
+        }
+        writer.stop();
+
+        assertEquals(1, persisted.size());
+        assertEquals(0, writer.retrying());
+        assertEquals(Optional.empty(), writer.inFlightPoints("id-1"));
+        assertFalse(Files.exists(directory.resolve("dead-letters.ndjson")));
+    }
+
+    @Test
+    public void testReceiptsNotStoredBeforeStopAreStoredAfterTheNextStart() throws Exception {
+        Mockito.doThrow(new IllegalStateException("store down")).when(entityManager).persist(Mockito.any(Receipt.class));
+        WriteBehindWriter writer = createWriter(10, Duration.ofMillis(10));
+        writer.start();
+        Receipt receipt = createTestReceipt("id-1", 42);
+        receipt.setContentHash("hash-1");
+        receipt.setBreakdown(new PointsBreakdown(0, 0, 0, 0, 32, 0, 10));
+        writer.submit(receipt);
+        writer.stop();
+        assertTrue(Files.exists(directory.resolve("dead-letters.ndjson")));
+
+        List<Receipt> persisted = new ArrayList<>();
+        Mockito.doAnswer(invocation -> persisted.add(invocation.getArgument(0)))
+                .when(entityManager).persist(Mockito.any(Receipt.class));
+        WriteBehindWriter restarted = createWriter(10, Duration.ofMillis(10));
+        restarted.start();
+        restarted.stop();
+
+        assertEquals(List.of(receipt), persisted);
+        assertEquals("hash-1", persisted.get(0).getContentHash());
+        assertEquals(receipt.getBreakdown(), persisted.get(0).getBreakdown());
+        assertFalse(Files.exists(directory.resolve("dead-letters.ndjson")));
+    }
+
+    @Test
+    public void testDuplicateContentHashIsDroppedInsteadOfRetried() {
+        WriteBehindWriter writer = createWriter(10, Duration.ofMillis(10));
+        List<Receipt> persisted = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            Receipt receipt = invocation.getArgument(0);
+            if ("hash-2".equals(receipt.getContentHash())) {
+                throw new DataIntegrityViolationException("unique content_hash");
+            }
+            return persisted.add(receipt);
+        }).when(entityManager).persist(Mockito.any(Receipt.class));
+        // stored by another instance, or evicted from the index while the receipt was queued
+        Mockito.when(receiptRepository.findIdByContentHash("hash-2")).thenReturn(Optional.of("id-stored"));
+
+        writer.start();
+        Receipt first = createTestReceipt("id-1", 1);
+        first.setContentHash("hash-1");
+        Receipt duplicate = createTestReceipt("id-2", 2);
+        duplicate.setContentHash("hash-2");
+        writer.submit(first);
+        writer.submit(duplicate);
+        writer.stop();
+
+        // the mock does not roll the failed batch back, so id-1 is persisted again one by one
+        assertEquals(List.of("id-1"), persisted.stream().map(Receipt::getId).distinct().toList());
+        assertEquals(0, writer.retrying());
+        assertEquals(Optional.empty(), writer.inFlightPoints("id-2"));
+        assertEquals(1, receiptRollups.forRetailer("Walmart").get().getReceipts());
+        assertEquals(Optional.of("id-stored"), receiptDeduplicator.findExisting("hash-2"));
+        assertFalse(Files.exists(directory.resolve("dead-letters.ndjson")));
+    }
+
+    @Test
+    public void testOnlyTheFirstReceiptClaimsAContentHash() {
+        assertEquals("id-1", receiptDeduplicator.remember("hash-1", "id-1"));
+        assertEquals("id-1", receiptDeduplicator.remember("hash-1", "id-2"));
+        receiptDeduplicator.forget("hash-1", "id-2");
+        assertEquals(Optional.of("id-1"), receiptDeduplicator.findExisting("hash-1"));
+        receiptDeduplicator.forget("hash-1", "id-1");
+        assertEquals("id-2", receiptDeduplicator.remember("hash-1", "id-2"));
+    }
+
+    private WriteBehindWriter createWriter(int queueCapacity, Duration flushInterval) {
+        WriteBehindWriter writer = new WriteBehindWriter(
+                new WriteBehindProperties(true, queueCapacity, 8, flushInterval, Duration.ofMillis(10), Duration.ofSeconds(10),
+                        Duration.ofMillis(10), Duration.ofMillis(40), directory.resolve("dead-letters.ndjson")),
+                pointsCache, receiptDeduplicator, receiptRollups, receiptStore);
+        return writer;
+    }
+
+    private Receipt createTestReceipt(String id, int points) {
+        Receipt receipt = Receipt.builder()
+                .id(id)
+                .retailer("Walmart")
+                .purchaseDate("2020-01-01")
+                .purchaseTime("10:00")
+                .total("10.00")
+                .points(points)
+                .items(List.of(Item.builder().shortDescription("Milk").price("10.00").build()))
+                .build();
+        return receipt;
+    }
+}
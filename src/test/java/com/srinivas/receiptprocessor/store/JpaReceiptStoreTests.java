@@ -0,0 +1,125 @@
+package com.srinivas.receiptprocessor.store;
+
+import com.srinivas.receiptprocessor.jpa.ReceiptRepository;
+import com.srinivas.receiptprocessor.jpa.ReceiptRow;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+public class JpaReceiptStoreTests {
+
+    private static final String FIRST = "00000000-0000-0000-0000-000000000000";
+
+    private static final String A = "018f3a2c-0000-7000-8000-000000000001";
+
+    private static final String B = "018f3a2c-0000-7001-8000-000000000002";
+
+    private static final String C = "018f3a2c-0000-7002-8000-000000000003";
+
+    private ReceiptRepository receiptRepository;
+
+    private JpaReceiptStore receiptStore;
+
+    @BeforeEach
+    public void init() {
+        receiptRepository = Mockito.mock(ReceiptRepository.class);
+        receiptStore = new JpaReceiptStore(receiptRepository, Mockito.mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    public void testFindPageAfterReadsItemsWithTheirReceipt() {
+        when(receiptRepository.findPageAfter(FIRST, 3)).thenReturn(List.of(row(A), row(B, "Milk")));
+
+        List<Receipt> page = receiptStore.findPageAfter(null, 3);
+
+        assertEquals(List.of(A, B), page.stream().map(Receipt::getId).toList());
+        assertEquals("1.00", page.get(0).getTotal());
+        assertEquals(List.of(), page.get(0).getItems());
+        assertEquals(List.of("Milk"), page.get(1).getItems().stream().map(Item::getShortDescription).toList());
+    }
+
+    @Test
+    public void testForEachAfterExportsEveryReceipt() {
+        when(receiptRepository.streamAfter(FIRST)).thenReturn(Stream.of(
+                row(A, "Milk", "Bread"), row(B), row(C, "Eggs")));
+
+        List<Receipt> exported = new ArrayList<>();
+        receiptStore.forEachAfter(null, exported::add);
+
+        assertEquals(List.of(A, B, C), exported.stream().map(Receipt::getId).toList());
+        assertEquals(List.of("Milk", "Bread"), exported.get(0).getItems().stream().map(Item::getShortDescription).toList());
+        assertEquals(List.of(), exported.get(1).getItems());
+        assertEquals(List.of("Eggs"), exported.get(2).getItems().stream().map(Item::getShortDescription).toList());
+    }
+
+    @Test
+    public void testMalformedCursorFindsNothing() {
+        assertEquals(List.of(), receiptStore.findPageAfter("a", 3));
+        Mockito.verifyNoInteractions(receiptRepository);
+    }
+
+    private static ReceiptRow row(String id, String... shortDescriptions) {
+        return new Row(id, Stream.of(shortDescriptions)
+                .map(shortDescription -> Item.builder().shortDescription(shortDescription).price("1.00").build())
+                .toList());
+    }
+
+    private record Row(String id, List<Item> items) implements ReceiptRow {
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public String getRetailer() {
+            return "Walmart";
+        }
+
+        @Override
+        public String getPurchaseDate() {
+            return "2022-01-01";
+        }
+
+        @Override
+        public String getPurchaseTime() {
+            return "13:01";
+        }
+
+        @Override
+        public Long getTotalCents() {
+            return 100L;
+        }
+
+        @Override
+        public String getTotalText() {
+            return null;
+        }
+
+        @Override
+        public int getPoints() {
+            return 10;
+        }
+
+        @Override
+        public PointsBreakdown getBreakdown() {
+            return null;
+        }
+
+        @Override
+        public List<Item> getItems() {
+            return items;
+        }
+    }
+}
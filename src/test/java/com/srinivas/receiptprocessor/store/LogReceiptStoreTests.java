@@ -0,0 +1,316 @@
+package com.srinivas.receiptprocessor.store;
+
+import com.srinivas.receiptprocessor.config.LogStoreProperties;
+import com.srinivas.receiptprocessor.jpa.RollupRow;
+import com.srinivas.receiptprocessor.model.Item;
+import com.srinivas.receiptprocessor.model.PointsBreakdown;
+import com.srinivas.receiptprocessor.model.Receipt;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogReceiptStoreTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSaveAndFind() throws IOException {
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+        Receipt saved = store.save(receipt(null, "Target", 28, "h1"));
+        assertNotNull(saved.getId());
+
+        assertEquals(Optional.of(28), store.findPointsById(saved.getId()));
+        assertEquals(Optional.of(saved.getId()), store.findIdByContentHash("h1"));
+        Receipt found = store.findById(saved.getId()).orElseThrow();
+        assertEquals("Target", found.getRetailer());
+        assertEquals(List.of("Mountain Dew 12PK", "Emils Cheese Pizza"),
+                found.getItems().stream().map(Item::getShortDescription).toList());
+        assertEquals(Optional.empty(), store.findPointsById("missing"));
+        assertEquals(Optional.empty(), store.findIdByContentHash("missing"));
+        store.close();
+    }
+
+    @Test
+    public void testBreakdownIsReadWithoutTheItems() throws IOException {
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+        PointsBreakdown breakdown = new PointsBreakdown(6, 50, 25, 5, 3, 6, -10);
+        Receipt scored = receipt("a", "Target", breakdown.total(), "h1");
+        scored.setBreakdown(breakdown);
+        store.saveAll(List.of(scored, receipt("b", "Walmart", 20, "h2")));
+
+        assertEquals(Optional.of(breakdown), store.findBreakdownById("a"));
+        assertEquals(breakdown, store.findById("a").orElseThrow().getBreakdown());
+        assertEquals(2, store.findById("a").orElseThrow().getItems().size());
+        // stored without a breakdown, as receipts were before they were kept
+        assertEquals(Optional.empty(), store.findBreakdownById("b"));
+        assertEquals(Optional.of(20), store.findPointsById("b"));
+        assertEquals(Optional.empty(), store.findBreakdownById("missing"));
+        store.close();
+    }
+
+    @Test
+    public void testRecordsWithTheBreakdownAfterTheItemsAreRead() throws IOException {
+        PointsBreakdown breakdown = new PointsBreakdown(6, 50, 25, 5, 3, 6, -10);
+        try (SegmentedLog receiptLog = SegmentedLog.open(directory, DataSize.ofMegabytes(16).toBytes(), false)) {
+            // as written before the breakdown moved to the head, the items fill more than HEAD_BYTES
+            receiptLog.append(List.of(legacyRecord("a", breakdown, 20), legacyRecord("b", null, 1)));
+        }
+
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+        assertEquals(Optional.of(breakdown), store.findBreakdownById("a"));
+        Receipt found = store.findById("a").orElseThrow();
+        assertEquals(breakdown.total(), found.getPoints());
+        assertEquals(breakdown, found.getBreakdown());
+        assertEquals(20, found.getItems().size());
+        assertEquals(Optional.empty(), store.findBreakdownById("b"));
+        assertEquals("Target", store.findById("b").orElseThrow().getRetailer());
+        assertEquals(Map.of("Target", breakdown.total() + 1L), store.rollupByRetailer().stream()
+                .collect(Collectors.toMap(RollupRow::getGroupKey, RollupRow::getPoints)));
+
+        // a head longer than HEAD_BYTES is read whole
+        String longId = "x".repeat(ReceiptCodec.HEAD_BYTES);
+        Receipt scored = receipt(longId, "Target", breakdown.total(), "h1");
+        scored.setBreakdown(breakdown);
+        store.save(scored);
+        assertEquals(Optional.of(breakdown), store.findBreakdownById(longId));
+        store.close();
+    }
+
+    @Test
+    public void testDuplicateContentHashIsRejected() throws IOException {
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+        store.save(receipt("a", "Target", 10, "h1"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> store.saveAll(List.of(
+                receipt("b", "Walmart", 20, "h2"), receipt("c", "Costco", 30, "h1"))));
+        // nothing of the failed batch is stored
+        assertEquals(Optional.empty(), store.findPointsById("b"));
+
+        // the same id replaces its receipt and frees its old content hash
+        store.save(receipt("a", "Target", 11, "h3"));
+        assertEquals(Optional.of(11), store.findPointsById("a"));
+        assertEquals(Optional.empty(), store.findIdByContentHash("h1"));
+        store.save(receipt("d", "Costco", 40, "h1"));
+        assertEquals(Optional.of("d"), store.findIdByContentHash("h1"));
+        store.close();
+    }
+
+    @Test
+    public void testPagesAndRollupsReadLiveReceiptsInOrder() throws IOException {
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+        List<Receipt> receipts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            receipts.add(receipt("r" + i, i % 2 == 0 ? "Target" : "Walmart", i, "h" + i));
+        }
+        store.saveAll(receipts);
+        store.save(receipt("r3", "Costco", 100, "h3"));
+
+        List<String> first = store.findPageAfter(null, 4).stream().map(Receipt::getId).toList();
+        assertEquals(List.of("r0", "r1", "r2", "r4"), first);
+        List<String> rest = new ArrayList<>();
+        store.forEachAfter("r4", receipt -> rest.add(receipt.getId()));
+        assertEquals(List.of("r5", "r6", "r7", "r8", "r9", "r3"), rest);
+        assertEquals(List.of(), store.findPageAfter("missing", 4));
+
+        Map<String, Long> points = store.rollupByRetailer().stream()
+                .collect(Collectors.toMap(RollupRow::getGroupKey, RollupRow::getPoints));
+        assertEquals(Map.of("Target", 20L, "Walmart", 22L, "Costco", 100L), points);
+        ReceiptStore.Rollups rollups = store.rollups();
+        assertEquals(3, rollups.byRetailer().size());
+        assertEquals(1, rollups.byPurchaseDate().size());
+        assertEquals("2022-01-01", rollups.byPurchaseDate().get(0).getGroupKey());
+        assertEquals(10, rollups.byPurchaseDate().get(0).getReceipts());
+        assertEquals(142, rollups.byPurchaseDate().get(0).getPoints());
+        store.close();
+    }
+
+    @Test
+    public void testReceiptsWithoutAnIdGetAVersion7Id() throws IOException {
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+
+        Receipt saved = store.save(receipt(null, "Target", 10, "h1"));
+
+        assertTrue(ReceiptIdGenerator.isWellFormed(saved.getId()));
+        assertEquals(7, UUID.fromString(saved.getId()).version());
+        assertEquals(Optional.of(10), store.findPointsById(saved.getId()));
+        store.close();
+    }
+
+    @Test
+    public void testUpdatedPointsKeepTheirPlace() throws IOException {
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+        Receipt large = receipt("a", "Target", 10, "h1");
+        for (int i = 0; i < 50; i++) {
+            large.getItems().add(Item.builder().shortDescription("Item " + i).price("1.00").build());
+        }
+        store.saveAll(List.of(large, receipt("b", "Walmart", 20, "h2"), receipt("c", "Costco", 30, "h3")));
+        long before = Files.size(segment(0));
+
+        PointsBreakdown breakdown = new PointsBreakdown(6, 0, 0, 5, 0, 0, 0);
+        store.updatePoints(Map.of("a", breakdown, "missing", new PointsBreakdown(99, 0, 0, 0, 0, 0, 0)));
+
+        // the update holds the points and breakdown, not the 52 items again
+        assertTrue(Files.size(segment(0)) - before < ReceiptCodec.HEAD_BYTES);
+        assertUpdated(store, 11, breakdown);
+        assertEquals(Optional.empty(), store.findPointsById("missing"));
+
+        PointsBreakdown again = new PointsBreakdown(6, 0, 0, 5, 0, 0, 2);
+        store.updatePoints(Map.of("a", again));
+        assertUpdated(store, 13, again);
+        store.close();
+
+        store = open(DataSize.ofMegabytes(16));
+        assertUpdated(store, 13, again);
+        // storing the receipt again replaces it and its updates
+        store.save(receipt("a", "Target", 12, "h1"));
+        assertEquals(Optional.of(12), store.findPointsById("a"));
+        assertEquals(Optional.empty(), store.findBreakdownById("a"));
+        assertEquals(List.of("b", "c", "a"), store.findPageAfter(null, 10).stream().map(Receipt::getId).toList());
+        assertEquals(62L, store.rollups().byPurchaseDate().get(0).getPoints());
+        store.close();
+    }
+
+    @Test
+    public void testReopenRecoversAcrossSegments() throws IOException {
+        // small segments so the log spans many of them
+        LogReceiptStore store = open(DataSize.ofKilobytes(1));
+        for (int i = 0; i < 100; i++) {
+            store.save(receipt("r" + i, "Target", i, "h" + i));
+        }
+        store.close();
+
+        store = open(DataSize.ofKilobytes(1));
+        for (int i = 100; i < 200; i++) {
+            store.save(receipt("r" + i, "Target", i, "h" + i));
+        }
+        // not closed, as after a crash of the process, the last checkpoint is at r99
+
+        store = open(DataSize.ofKilobytes(1));
+        assertEquals(Optional.of(199), store.findPointsById("r199"));
+        assertEquals(Optional.of("r7"), store.findIdByContentHash("h7"));
+        assertEquals(200, store.findPageAfter(null, 1000).size());
+        store.close();
+    }
+
+    @Test
+    public void testTornRecordIsCutOff() throws IOException {
+        LogReceiptStore store = open(DataSize.ofMegabytes(16));
+        store.save(receipt("a", "Target", 10, "h1"));
+        store.save(receipt("b", "Walmart", 20, "h2"));
+        store.close();
+        try (FileChannel segment = FileChannel.open(directory.resolve(String.format("%020d.log", 0)),
+                StandardOpenOption.WRITE)) {
+            // a crash in the middle of writing the last record
+            segment.truncate(segment.size() - 5);
+        }
+
+        store = open(DataSize.ofMegabytes(16));
+        assertEquals(Optional.of(10), store.findPointsById("a"));
+        assertEquals(Optional.empty(), store.findPointsById("b"));
+        store.save(receipt("c", "Costco", 30, "h3"));
+        assertEquals(List.of("a", "c"), store.findPageAfter(null, 10).stream().map(Receipt::getId).toList());
+        store.close();
+
+        store = open(DataSize.ofMegabytes(16));
+        assertEquals(Optional.of(30), store.findPointsById("c"));
+        assertTrue(store.findIdByContentHash("h2").isEmpty());
+        store.close();
+    }
+
+    private void assertUpdated(LogReceiptStore store, int points, PointsBreakdown breakdown) {
+        assertEquals(Optional.of(points), store.findPointsById("a"));
+        assertEquals(Optional.of(breakdown), store.findBreakdownById("a"));
+        assertEquals(Optional.of("a"), store.findIdByContentHash("h1"));
+        Receipt found = store.findById("a").orElseThrow();
+        assertEquals(points, found.getPoints());
+        assertEquals(breakdown, found.getBreakdown());
+        assertEquals(52, found.getItems().size());
+        List<Receipt> page = store.findPageAfter(null, 10);
+        assertEquals(List.of("a", "b", "c"), page.stream().map(Receipt::getId).toList());
+        assertEquals(points, page.get(0).getPoints());
+        assertEquals(List.of("b", "c"), store.findPageAfter("a", 10).stream().map(Receipt::getId).toList());
+        Map<String, Long> rollup = store.rollupByRetailer().stream()
+                .collect(Collectors.toMap(RollupRow::getGroupKey, RollupRow::getPoints));
+        assertEquals(Map.of("Target", (long) points, "Walmart", 20L, "Costco", 30L), rollup);
+    }
+
+    /**
+     * A receipt record as written before the breakdown moved to the head, ending with it when
+     * there is one
+     */
+    private static byte[] legacyRecord(String id, PointsBreakdown breakdown, int items) {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        buffer.putInt(breakdown == null ? 1 : breakdown.total());
+        for (String field : new String[]{id, null, "Target", "2022-01-01", "13:01", "35.35"}) {
+            putString(buffer, field);
+        }
+        buffer.putInt(items);
+        for (int i = 0; i < items; i++) {
+            putString(buffer, "Item " + i);
+            putString(buffer, "1.00");
+        }
+        if (breakdown != null) {
+            byte[] packed = breakdown.pack();
+            buffer.putInt(packed.length);
+            buffer.put(packed);
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            buffer.putInt(bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private Path segment(int index) {
+        return directory.resolve(String.format("%020d.log", index));
+    }
+
+    private LogReceiptStore open(DataSize segmentSize) throws IOException {
+        return new LogReceiptStore(new LogStoreProperties(directory, segmentSize, false, DataSize.ofMegabytes(16), 16),
+                new ReceiptIdGenerator(Clock.systemUTC(), 0));
+    }
+
+    private static Receipt receipt(String id, String retailer, int points, String contentHash) {
+        return Receipt.builder()
+                .id(id)
+                .retailer(retailer)
+                .purchaseDate("2022-01-01")
+                .purchaseTime("13:01")
+                .total("35.35")
+                .points(points)
+                .contentHash(contentHash)
+                .items(new ArrayList<>(List.of(
+                        Item.builder().shortDescription("Mountain Dew 12PK").price("6.49").build(),
+                        Item.builder().shortDescription("Emils Cheese Pizza").price("12.25").build())))
+                .build();
+    }
+}
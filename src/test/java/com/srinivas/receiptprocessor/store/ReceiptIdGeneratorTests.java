@@ -0,0 +1,59 @@
+package com.srinivas.receiptprocessor.store;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReceiptIdGeneratorTests {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+    @Test
+    public void testIdsAreVersion7WithTheTimeAndNode() {
+        ReceiptIdGenerator receiptIdGenerator = new ReceiptIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC), 5);
+
+        UUID id = receiptIdGenerator.nextUuid();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(NOW.toEpochMilli(), id.getMostSignificantBits() >>> 16);
+        assertEquals(5, (id.getLeastSignificantBits() >>> 52) & ReceiptIdGenerator.MAX_NODE);
+    }
+
+    @Test
+    public void testIdsIncreaseWithinAMillisecond() {
+        // a fixed clock runs the sequence over into the following milliseconds
+        ReceiptIdGenerator receiptIdGenerator = new ReceiptIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC), 0);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(receiptIdGenerator.next());
+        }
+
+        assertEquals(ids.stream().sorted().toList(), ids);
+        assertEquals(ids.size(), ids.stream().distinct().count());
+    }
+
+    @Test
+    public void testNodeOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ReceiptIdGenerator(Clock.systemUTC(), ReceiptIdGenerator.MAX_NODE + 1));
+    }
+
+    @Test
+    public void testIsWellFormed() {
+        assertTrue(ReceiptIdGenerator.isWellFormed(new ReceiptIdGenerator(Clock.systemUTC(), 0).next()));
+        assertFalse(ReceiptIdGenerator.isWellFormed("missing"));
+        assertFalse(ReceiptIdGenerator.isWellFormed(null));
+    }
+}